@@ -0,0 +1,118 @@
+package connect4_benchmarks;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import connect4.Board;
+import connect4.WindowEvaluator;
+import utility.Constants;
+
+
+/*
+ * Benchmarks of the Board operations that dominate the search.
+ * Every invocation runs the operation on all the positions of the game phase.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	@Param({"early", "middle", "late"})
+	public String phase;
+
+	private Board[] boards;
+	private int[] freeColumns;
+	private final WindowEvaluator windowEvaluator = new WindowEvaluator();
+
+
+	@Setup
+	public void setUp() {
+		boards = Positions.load(phase);
+		freeColumns = new int[boards.length];
+		for (int i=0; i<boards.length; i++) {
+			int numOfColumns = boards[i].getGeometry().getNumOfColumns();
+			int col = numOfColumns / 2;
+			while (boards[i].checkFullColumn(col)) {
+				col = (col + 1) % numOfColumns;
+			}
+			freeColumns[i] = col;
+		}
+	}
+
+
+	@Benchmark
+	public void evaluate(Blackhole bh) {
+		for (Board board : boards) {
+			bh.consume(board.evaluate());
+		}
+	}
+
+
+	// The same values as "evaluate", from the tables of the windows.
+	@Benchmark
+	public void windowEvaluator(Blackhole bh) {
+		for (Board board : boards) {
+			bh.consume(windowEvaluator.evaluate(board));
+		}
+	}
+
+
+	@Benchmark
+	public void checkWinState(Blackhole bh) {
+		for (Board board : boards) {
+			bh.consume(board.checkWinState());
+		}
+	}
+
+
+	@Benchmark
+	public void countNInARow(Blackhole bh) {
+		for (Board board : boards) {
+			bh.consume(board.countNInARow(3, Constants.P1));
+		}
+	}
+
+
+	@Benchmark
+	public void getChildren(Blackhole bh) {
+		for (Board board : boards) {
+			bh.consume(board.getChildren(Constants.P1));
+		}
+	}
+
+
+	@Benchmark
+	public void copyConstructor(Blackhole bh) {
+		for (Board board : boards) {
+			bh.consume(new Board(board));
+		}
+	}
+
+
+	// The copy is part of the measurement, since the search always moves on a copy.
+	@Benchmark
+	public void makeMove(Blackhole bh) {
+		for (int i=0; i<boards.length; i++) {
+			Board child = new Board(boards[i]);
+			child.makeMove(freeColumns[i], Constants.P1);
+			bh.consume(child);
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package connect4_benchmarks;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import connect4.Board;
+import connect4.EvaluationCache;
+import connect4.MiniMaxAi;
+import utility.Constants;
+
+
+/*
+ * Benchmarks of whole searches at fixed depths.
+ * Every invocation searches all the positions of the game phase.
+ * The leaves are evaluated without the evaluation cache, which would hold all of them after the first invocation,
+ * so that the times are those of the search and of the evaluation. With "-p cache=true",
+ * every invocation starts with an empty cache instead, to time the cache within a single search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MiniMaxBenchmark {
+
+	@Param({"early", "middle", "late"})
+	public String phase;
+
+	@Param({"3", "5"})
+	public int depth;
+
+	@Param({"false"})
+	public boolean cache;
+
+	private Board[] boards;
+	private MiniMaxAi[] ais;
+
+
+	@Setup
+	public void setUp() {
+		boards = Positions.load(phase);
+		ais = new MiniMaxAi[boards.length];
+		for (int i=0; i<boards.length; i++) {
+			int player = (boards[i].getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+			ais[i] = new MiniMaxAi(depth, player);
+			ais[i].setEvaluationCache(null);
+		}
+	}
+
+
+	@Setup(Level.Invocation)
+	public void clearCache() {
+		if (cache) {
+			EvaluationCache evaluationCache = new EvaluationCache(1024);
+			for (MiniMaxAi ai : ais) {
+				ai.setEvaluationCache(evaluationCache);
+			}
+		}
+	}
+
+
+	@Benchmark
+	public void miniMax(Blackhole bh) {
+		for (int i=0; i<boards.length; i++) {
+			bh.consume(ais[i].miniMax(boards[i]));
+		}
+	}
+
+
+	@Benchmark
+	public void miniMaxAlphaBeta(Blackhole bh) {
+		for (int i=0; i<boards.length; i++) {
+			bh.consume(ais[i].miniMaxAlphaBeta(boards[i]));
+		}
+	}
+
+}
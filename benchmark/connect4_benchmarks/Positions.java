@@ -0,0 +1,59 @@
+package connect4_benchmarks;
+
+
+import connect4.Board;
+
+
+/*
+ * The corpus of positions used by the benchmarks.
+ * They come from games of the MiniMax AI with some random moves mixed in,
+ * and none of them is a terminal position.
+ */
+public class Positions {
+
+	private Positions() { }  // Prevents instantiation.
+
+	public static final String[] EARLY = {
+			"777557",
+			"763514",
+			"76776771"
+	};
+
+	public static final String[] MIDDLE = {
+			"1256377364754677",
+			"776777547464464646",
+			"34667757677637664353"
+	};
+
+	public static final String[] LATE = {
+			"657426727737456365557235146643",
+			"76525737177623635547512656613422",
+			"7577756717645661363416211544335531"
+	};
+
+
+	// It returns the boards of the given game phase: "early", "middle" or "late".
+	public static Board[] load(String phase) {
+		String[] moves;
+		switch (phase) {
+			case "early":
+				moves = EARLY;
+				break;
+			case "middle":
+				moves = MIDDLE;
+				break;
+			case "late":
+				moves = LATE;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown game phase \"" + phase + "\".");
+		}
+
+		Board[] boards = new Board[moves.length];
+		for (int i=0; i<moves.length; i++) {
+			boards[i] = Board.fromMoveString(moves[i]);
+		}
+		return boards;
+	}
+
+}
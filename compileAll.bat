@@ -1,7 +1,7 @@
 :: This file is for Windows only.
 
 if not exist bin mkdir bin
-javac src\connect4\*.java src\gui\*.java -d bin
+javac src\connect4\*.java src\enumeration\*.java src\gui\*.java src\monitoring\*.java src\server\*.java src\tools\*.java src\utility\*.java -d bin
 
 :: Copy the folder "res\images" to "bin".
 if not exist bin\images mkdir bin\images
@@ -0,0 +1,13 @@
+:: This file is for Windows only.
+:: The JMH jars must be in the folder "lib":
+:: jmh-core, jmh-generator-annprocess, jopt-simple and commons-math3.
+:: Any JMH options can be given, e.g. "runBenchmarks.bat BoardBenchmark.evaluate".
+
+if not exist bin mkdir bin
+javac src\connect4\*.java src\enumeration\*.java src\gui\*.java src\monitoring\*.java src\tools\*.java src\utility\*.java -d bin
+
+if not exist bin_benchmark mkdir bin_benchmark
+javac -cp "bin;lib\*" benchmark\connect4_benchmarks\*.java -d bin_benchmark
+
+java -cp "bin;bin_benchmark;lib\*" org.openjdk.jmh.Main -prof gc %*
+pause
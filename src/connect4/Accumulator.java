@@ -0,0 +1,16 @@
+package connect4;
+
+
+/*
+ * The state of an evaluator that a board keeps up to date with its checkers, like its hash key,
+ * so that the evaluator does not have to look at the whole board at every leaf.
+ * It is copied with the board, so every board of a search has its own.
+ */
+public interface Accumulator {
+
+	// It gets called when a checker of the player is added to, or removed from, the cell of the given bit index.
+	void update(int bitIndex, int player, boolean added);
+
+	Accumulator copy();
+
+}
@@ -8,9 +8,10 @@ import utility.Constants;
 
 public class Board {
 
-	static final int numOfRows = Constants.NUM_OF_ROWS;
-	static final int numOfColumns = Constants.NUM_OF_COLUMNS;
-	static final int inARow = Constants.IN_A_ROW;
+	private final Geometry geometry;
+	private final int numOfRows;
+	private final int numOfColumns;
+	private final int inARow;
 
 	// Immediate move that led to this board.
 	private Move lastMove;
@@ -20,7 +21,23 @@ public class Board {
 	private int lastPlayer;
 
 	private int winner;
-	private int [][] gameBoard;
+
+	// The checkers of each player, as bitsets laid out by the class "Geometry".
+	private long[] player1Bits;
+	private long[] player2Bits;
+
+	// The first empty cell of each column, counting from the bottom row.
+	private int[] heights;
+
+	// The Zobrist hash of the checkers on the board.
+	private long hashKey;
+
+	// The state of the evaluator, if any, updated with every checker.
+	private Accumulator accumulator;
+
+	// It becomes false when cells are changed directly, instead of with "makeMove()".
+	// The winner must then be found by searching the whole board.
+	private boolean winnerKnown;
 
 	private boolean overflow;
 
@@ -31,59 +48,127 @@ public class Board {
 
 	// constructor
 	public Board() {
+		this(Geometry.STANDARD);
+	}
+
+
+	public Board(Geometry geometry) {
+		this.geometry = geometry;
+		this.numOfRows = geometry.getNumOfRows();
+		this.numOfColumns = geometry.getNumOfColumns();
+		this.inARow = geometry.getInARow();
 		this.lastMove = new Move();
 		this.lastPlayer = Constants.P2;
 		this.winner = Constants.EMPTY;
-		this.gameBoard = new int[7][8];
+		this.player1Bits = new long[geometry.getNumOfWords()];
+		this.player2Bits = new long[geometry.getNumOfWords()];
+		this.heights = new int[numOfColumns];
+		this.winnerKnown = true;
 		this.overflow = false;
 		this.gameOver = false;
 		this.turn = 0;
-		for(int i=0; i<numOfRows; i++) {
-			for(int j=0; j<numOfColumns; j++) {
-				gameBoard[i][j] = Constants.EMPTY;
-			}
-		}
 	}
 
 
 	// copy constructor
 	public Board(Board board) {
+		geometry = board.geometry;
+		numOfRows = board.numOfRows;
+		numOfColumns = board.numOfColumns;
+		inARow = board.inARow;
+
 		lastMove = board.getLastMove();
 		lastPlayer = board.getLastPlayer();
-		winner = board.getWinner();
+		winner = board.winner;
+		winnerKnown = board.winnerKnown;
 
 		this.overflow = board.isOverflow();
 		this.gameOver = board.isGameOver();
 		this.turn = board.getTurn();
 
-		int N1 = board.getGameBoard().length;
-		int N2 = board.getGameBoard()[0].length;
-		this.gameBoard = new int[N1][N2];
-		for(int i=0; i<N1; i++) {
-			for(int j=0; j<N2; j++) {
-				this.gameBoard[i][j] = board.getGameBoard()[i][j];
+		this.player1Bits = board.player1Bits.clone();
+		this.player2Bits = board.player2Bits.clone();
+		this.heights = board.heights.clone();
+		this.hashKey = board.hashKey;
+		this.accumulator = (board.accumulator == null) ? null : board.accumulator.copy();
+	}
+
+
+	// It creates the board that results from the given move sequence, e.g. "4453".
+	// The columns are numbered from 1 (then a, b, ... after 9) and Player 1 moves first.
+	public static Board fromMoveString(String moves) {
+		return fromMoveString(Geometry.STANDARD, moves);
+	}
+
+
+	public static Board fromMoveString(Geometry geometry, String moves) {
+		Board board = new Board(geometry);
+		for (int i=0; i<moves.length(); i++) {
+			int col = Character.digit(moves.charAt(i), Character.MAX_RADIX) - 1;
+			if (col < 0 || col >= geometry.getNumOfColumns() || board.checkFullColumn(col)) {
+				throw new IllegalArgumentException("Invalid move '" + moves.charAt(i) + "' at position " + (i+1) + " of \"" + moves + "\".");
 			}
+			board.makeMove(col, (i % 2 == 0) ? Constants.P1 : Constants.P2);
 		}
+		return board;
 	}
 
 
 	// Makes a move based on the given column.
 	// It finds automatically in which row the checker should be inserted.
 	public void makeMove(int col, int player) {
-		try {
-			// The variable "lastMove" must be changed before the variable
-			// "gameBoard[][]" because of the function "getRowPosition(col)".
-			this.lastMove = new Move(getEmptyRowPosition(col), col);
-			this.lastPlayer = player;
-			this.gameBoard[getEmptyRowPosition(col)][col] = player;
-			this.turn++;
-		} catch (ArrayIndexOutOfBoundsException e) {
+		if (col < 0 || col >= numOfColumns || heights[col] >= numOfRows) {
 			System.err.println("Column " + (col+1) + " is full!");
 			setOverflow(true);
+			return;
+		}
+		int row = getEmptyRowPosition(col);
+		this.lastMove = new Move(row, col);
+		this.lastPlayer = player;
+		setBit(player, geometry.bitIndex(row, col));
+		hashKey ^= geometry.getZobristKey(player, geometry.bitIndex(row, col));
+		if (accumulator != null) {
+			accumulator.update(geometry.bitIndex(row, col), player, true);
+		}
+		updateHeight(col);
+		this.turn++;
+
+		// Only the lines through the new checker need to be checked.
+		// Player 1 is reported as the winner, if both players have a line.
+		if (winnerKnown && (winner == Constants.EMPTY || player == Constants.P1) && isLineThrough(row, col, player)) {
+			winner = player;
 		}
 	}
 
 
+	// It takes back the top checker of the column, e.g. to undo the last move.
+	// The board does not keep the earlier moves, so the last move becomes unknown
+	// and the last player becomes the opponent of the player of the removed checker.
+	public void undoMove(int col) {
+		if (col < 0 || col >= numOfColumns || heights[col] == 0) {
+			throw new IllegalArgumentException("Column " + (col+1) + " is empty.");
+		}
+		int row = numOfRows - heights[col];
+		int player = getCell(row, col);
+		int index = geometry.bitIndex(row, col);
+		player1Bits[index >>> 6] &= ~(1L << index);
+		player2Bits[index >>> 6] &= ~(1L << index);
+		hashKey ^= geometry.getZobristKey(player, index);
+		if (accumulator != null) {
+			accumulator.update(index, player, false);
+		}
+		heights[col]--;
+		this.turn--;
+		this.lastMove = new Move();
+		this.lastPlayer = (player == Constants.P1) ? Constants.P2 : Constants.P1;
+		this.overflow = false;
+		this.gameOver = false;
+		// The line of the winner may have been made by the removed checker.
+		if (winner != Constants.EMPTY) {
+			winnerKnown = false;
+		}
+	}
+
 
 	// This function is used when we want to search the whole board,
 	// without getting out of borders.
@@ -96,7 +181,7 @@ public class Board {
 
 
 	public boolean checkFullColumn(int col) {
-		if (gameBoard[0][col] == Constants.EMPTY)
+		if (getCell(0, col) == Constants.EMPTY)
 			return false;
 		return true;
 	}
@@ -104,13 +189,285 @@ public class Board {
 
 	// It returns the position of the first empty row in a column.
 	public int getEmptyRowPosition(int col) {
-		int rowPosition = -1;
-		for (int row=0; row<numOfRows; row++) {
-			if (gameBoard[row][col] == Constants.EMPTY) {
-				rowPosition = row;
+		return numOfRows - 1 - heights[col];
+	}
+
+
+	// It returns the checker at the given cell: Constants.P1, Constants.P2 or Constants.EMPTY.
+	public int getCell(int row, int col) {
+		int index = geometry.bitIndex(row, col);
+		long mask = 1L << index;
+		if ((player1Bits[index >>> 6] & mask) != 0) {
+			return Constants.P1;
+		}
+		if ((player2Bits[index >>> 6] & mask) != 0) {
+			return Constants.P2;
+		}
+		return Constants.EMPTY;
+	}
+
+
+	// It changes a cell directly, e.g. to set up a novel position.
+	// Unlike "makeMove()", it changes neither the last move nor the turn.
+	public void setCell(int row, int col, int player) {
+		int index = geometry.bitIndex(row, col);
+		int previous = getCell(row, col);
+		if (previous != Constants.EMPTY) {
+			hashKey ^= geometry.getZobristKey(previous, index);
+			if (accumulator != null) {
+				accumulator.update(index, previous, false);
 			}
 		}
-		return rowPosition;
+		player1Bits[index >>> 6] &= ~(1L << index);
+		player2Bits[index >>> 6] &= ~(1L << index);
+		if (player != Constants.EMPTY) {
+			setBit(player, index);
+			hashKey ^= geometry.getZobristKey(player, index);
+			if (accumulator != null) {
+				accumulator.update(index, player, true);
+			}
+		}
+		heights[col] = 0;
+		updateHeight(col);
+		winnerKnown = false;
+	}
+
+
+	private void setBit(int player, int index) {
+		if (player == Constants.P1) {
+			player1Bits[index >>> 6] |= 1L << index;
+		} else {
+			player2Bits[index >>> 6] |= 1L << index;
+		}
+	}
+
+
+	// It moves the height of a column up to its first empty cell.
+	private void updateHeight(int col) {
+		while (heights[col] < numOfRows && getCell(numOfRows - 1 - heights[col], col) != Constants.EMPTY) {
+			heights[col]++;
+		}
+	}
+
+
+	// It checks whether the player would win by playing in the column.
+	public boolean isWinningMove(int col, int player) {
+		if (heights[col] >= numOfRows) {
+			return false;
+		}
+		return isLineThrough(getEmptyRowPosition(col), col, player);
+	}
+
+
+	// The number of columns where the player would win with the next move.
+	public int countWinningMoves(int player) {
+		if (player1Bits.length == 1) {
+			return Long.bitCount(winningCells(getBits(player)[0], ~(player1Bits[0] | player2Bits[0])) & playableCells());
+		}
+		int count = 0;
+		for (int col=0; col<numOfColumns; col++) {
+			if (isWinningMove(col, player)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+
+	// A column where the player would win with the next move, or -1 if there is none.
+	public int findWinningMove(int player) {
+		if (player1Bits.length == 1) {
+			long cells = winningCells(getBits(player)[0], ~(player1Bits[0] | player2Bits[0])) & playableCells();
+			return (cells == 0) ? -1 : Long.numberOfTrailingZeros(cells) / geometry.getColumnHeight();
+		}
+		for (int col=0; col<numOfColumns; col++) {
+			if (isWinningMove(col, player)) {
+				return col;
+			}
+		}
+		return -1;
+	}
+
+
+	/*
+	 * The columns where a move of the player would leave it at least two columns to win with, as bits,
+	 * e.g. bit 3 for the fourth column. The opponent can only block one of them.
+	 */
+	public long findDoubleThreatMoves(int player) {
+		long columns = 0;
+		if (player1Bits.length == 1) {
+			// Unless the player can already win, only the moves that make a threat,
+			// in a line through them or on top of them, are tried.
+			long bits = getBits(player)[0];
+			long empty = ~(player1Bits[0] | player2Bits[0]);
+			long playable = playableCells();
+			long board = geometry.getBoardCells();
+			long winning = winningCells(bits, empty);
+			long candidates = ((winning & playable) != 0) ? playable : playable & ((winning >>> 1) | threatCells(bits, empty));
+			while (candidates != 0) {
+				long cell = Long.lowestOneBit(candidates);
+				candidates ^= cell;
+				long next = (playable & ~cell) | ((cell << 1) & board);
+				if (Long.bitCount(winningCells(bits | cell, empty & ~cell) & next) >= 2) {
+					columns |= 1L << (Long.numberOfTrailingZeros(cell) / geometry.getColumnHeight());
+				}
+			}
+			return columns;
+		}
+		for (int col=0; col<numOfColumns; col++) {
+			if (heights[col] < numOfRows) {
+				Board board = new Board(this);
+				board.setAccumulator(null);
+				board.makeMove(col, player);
+				if (board.countWinningMoves(player) >= 2) {
+					columns |= 1L << col;
+				}
+			}
+		}
+		return columns;
+	}
+
+
+	// The first empty cell of every column that is not full, when the bitsets fit in a word.
+	// Adding the bottom cells carries every column up to its first empty cell, or to its extra bit if it is full.
+	private long playableCells() {
+		return ((player1Bits[0] | player2Bits[0]) + geometry.getBottomCells()) & geometry.getBoardCells();
+	}
+
+
+	/*
+	 * The empty cells where a checker of the player would make "inARow" in a row, when the bitsets fit in a word:
+	 * for every direction and every place of the cell in the line, the other cells of the line must be the player's.
+	 * The bits outside of the board are set in "empty", so the caller masks them off.
+	 */
+	private long winningCells(long bits, long empty) {
+		long cells = 0;
+		for (int shift : geometry.getLineShifts()) {
+			for (int i=0; i<inARow; i++) {
+				long m = empty;
+				for (int j=0; j<inARow && m!=0; j++) {
+					if (j != i) {
+						m &= shifted(bits, (j - i) * shift);
+					}
+				}
+				cells |= m;
+			}
+		}
+		return cells;
+	}
+
+
+	// The empty cells where a checker of the player would make a threat: a line through it
+	// whose other cells are the player's, but one more that is empty.
+	private long threatCells(long bits, long empty) {
+		long cells = 0;
+		for (int shift : geometry.getLineShifts()) {
+			for (int i=0; i<inARow; i++) {
+				for (int j=0; j<inARow; j++) {
+					if (j == i) {
+						continue;
+					}
+					long m = empty & shifted(empty, (j - i) * shift);
+					for (int k=0; k<inARow && m!=0; k++) {
+						if (k != i && k != j) {
+							m &= shifted(bits, (k - i) * shift);
+						}
+					}
+					cells |= m;
+				}
+			}
+		}
+		return cells;
+	}
+
+
+	// The bit x of the result is the bit "x + d" of the word, or 0 outside of the word.
+	private static long shifted(long word, int d) {
+		if (d >= 64 || d <= -64) {
+			return 0;
+		}
+		return (d >= 0) ? word >>> d : word << -d;
+	}
+
+
+	// It checks whether the checker of the player at [row][col] is part of "inARow" checkers in a row.
+	// It only looks at the cells around [row][col], so it costs O(inARow), whatever the size of the board.
+	private boolean isLineThrough(int row, int col, int player) {
+		return countLine(row, col, 0, 1, player) >= inARow
+				|| countLine(row, col, 1, 0, player) >= inARow
+				|| countLine(row, col, 1, 1, player) >= inARow
+				|| countLine(row, col, 1, -1, player) >= inARow;
+	}
+
+
+	// The number of consecutive checkers of the player through [row][col], in the direction (dRow, dCol).
+	// The cell [row][col] itself counts as the player's.
+	private int countLine(int row, int col, int dRow, int dCol, int player) {
+		int count = 1;
+		for (int i=row+dRow, j=col+dCol; canMove(i, j) && getCell(i, j) == player; i+=dRow, j+=dCol) {
+			count++;
+		}
+		for (int i=row-dRow, j=col-dCol; canMove(i, j) && getCell(i, j) == player; i-=dRow, j-=dCol) {
+			count++;
+		}
+		return count;
+	}
+
+
+	// It checks whether the bitset contains "inARow" set bits in a row, in any direction.
+	// Every shift tests all the cells of the board at once, 64 cells per word.
+	private boolean hasLine(long[] bits) {
+		int columnHeight = geometry.getColumnHeight();
+		// Vertical, horizontal, and the two diagonals.
+		int[] shifts = {1, columnHeight, columnHeight + 1, columnHeight - 1};
+
+		if (bits.length == 1) {
+			long b = bits[0];
+			for (int shift : shifts) {
+				long m = b;
+				for (int k=1; k<inARow && m!=0; k++) {
+					m &= b >>> (k * shift);
+				}
+				if (m != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		long[] m = new long[bits.length];
+		for (int shift : shifts) {
+			System.arraycopy(bits, 0, m, 0, bits.length);
+			boolean any = true;
+			for (int k=1; k<inARow && any; k++) {
+				any = andShiftedRight(m, bits, k * shift);
+			}
+			if (any) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	// m &= (bits >>> shift), across the words of the bitsets. It returns whether any bit of m is still set.
+	private static boolean andShiftedRight(long[] m, long[] bits, int shift) {
+		int wordShift = shift >>> 6;
+		int bitShift = shift & 63;
+		boolean any = false;
+		for (int w=0; w<m.length; w++) {
+			int src = w + wordShift;
+			long shifted = 0;
+			if (src < bits.length) {
+				shifted = bits[src] >>> bitShift;
+				if (bitShift != 0 && src + 1 < bits.length) {
+					shifted |= bits[src + 1] << (64 - bitShift);
+				}
+			}
+			m[w] &= shifted;
+			any |= (m[w] != 0);
+		}
+		return any;
 	}
 
 
@@ -162,20 +519,19 @@ public class Board {
 	 */
 	public boolean checkWinState() {
 
-		int times4InARowPlayer1 = countNInARow(inARow, Constants.P1);
-		if (times4InARowPlayer1 > 0) {
-			setWinner(Constants.P1);
-			return true;
-		}
-
-		int times4InARowPlayer2 = countNInARow(inARow, Constants.P2);
-		if (times4InARowPlayer2 > 0) {
-			setWinner(Constants.P2);
-			return true;
+		// The winner is kept up to date by "makeMove()", unless cells were changed directly.
+		if (!winnerKnown) {
+			if (hasLine(player1Bits)) {
+				setWinner(Constants.P1);
+			} else if (hasLine(player2Bits)) {
+				setWinner(Constants.P2);
+			} else {
+				setWinner(Constants.EMPTY);  // set nobody as the winner
+			}
+			winnerKnown = true;
 		}
 
-		setWinner(Constants.EMPTY);  // set nobody as the winner
-		return false;
+		return winner != Constants.EMPTY;
 	}
 
 
@@ -197,11 +553,9 @@ public class Board {
 		//if (gameOver)
 		//return false;
 
-		for(int row=0; row<numOfRows; row++) {
-			for(int col=0; col<numOfColumns; col++) {
-				if(gameBoard[row][col] == Constants.EMPTY) {
-					return false;
-				}
+		for(int col=0; col<numOfColumns; col++) {
+			if(heights[col] < numOfRows) {
+				return false;
 			}
 		}
 
@@ -225,12 +579,12 @@ public class Board {
 
 					// Check for "N" consecutive checkers of the same player in a row, horizontally.
 					int k = 0;
-					while (k < N && gameBoard[i][j+k] == player) {
+					while (k < N && getCell(i, j+k) == player) {
 						k++;
 					}
 					// Check for "inARow - N" consecutive checkers of the same player or empty tiles in a row, horizontally.
 					if (k==N) {
-						while (k < inARow && (gameBoard[i][j+k] == player || gameBoard[i][j+k] == Constants.EMPTY)) {
+						while (k < inARow && (getCell(i, j+k) == player || getCell(i, j+k) == Constants.EMPTY)) {
 							k++;
 						}
 						if (k==inARow) times++;
@@ -248,12 +602,12 @@ public class Board {
 
 					// Check for "N" consecutive checkers of the same player in a row, vertically.
 					int k = 0;
-					while (k < N && gameBoard[i-k][j] == player) {
+					while (k < N && getCell(i-k, j) == player) {
 						k++;
 					}
 					// Check for "inARow - N" consecutive checkers of the same player or empty tiles in a row, vertically.
-					if (k==inARow) {
-						while (k < inARow && (gameBoard[i-k][j] == player || gameBoard[i-k][j] == Constants.EMPTY)) {
+					if (k==N) {
+						while (k < inARow && (getCell(i-k, j) == player || getCell(i-k, j) == Constants.EMPTY)) {
 							k++;
 						}
 						if (k==inARow) times++;
@@ -271,12 +625,12 @@ public class Board {
 
 					// Check for "N" consecutive checkers of the same player in a row, in descending diagonal.
 					int k = 0;
-					while (k < N && gameBoard[i+k][j+k] == player) {
+					while (k < N && getCell(i+k, j+k) == player) {
 						k++;
 					}
 					// Check for "inARow - N" consecutive checkers of the same player or empty tiles in a row, in descending diagonal.
-					if (k==inARow) {
-						while (k < inARow && (gameBoard[i+k][j+k] == player || gameBoard[i+k][j+k] == Constants.EMPTY)) {
+					if (k==N) {
+						while (k < inARow && (getCell(i+k, j+k) == player || getCell(i+k, j+k) == Constants.EMPTY)) {
 							k++;
 						}
 						if (k==inARow) times++;
@@ -294,12 +648,12 @@ public class Board {
 
 					// Check for "N" consecutive checkers of the same player in a row, in ascending diagonal.
 					int k = 0;
-					while (k < N && gameBoard[i-k][j+k] == player) {
+					while (k < N && getCell(i-k, j+k) == player) {
 						k++;
 					}
 					// Check for "inARow - N" consecutive checkers of the same player or empty tiles in a row, in ascending diagonal.
-					if (k==inARow) {
-						while (k < inARow && (gameBoard[i-k][j+k] == player || gameBoard[i-k][j+k] == Constants.EMPTY)) {
+					if (k==N) {
+						while (k < inARow && (getCell(i-k, j+k) == player || getCell(i-k, j+k) == Constants.EMPTY)) {
 							k++;
 						}
 						if (k==inARow) times++;
@@ -316,8 +670,16 @@ public class Board {
 
 	// It prints the board on the console.
 	public static void printBoard(int[][] gameBoard) {
-
-		System.out.println("| 1 | 2 | 3 | 4 | 5 | 6 | 7 |");
+		int numOfRows = gameBoard.length;
+		int numOfColumns = gameBoard[0].length;
+
+		StringBuilder header = new StringBuilder("|");
+		StringBuilder separator = new StringBuilder("*");
+		for (int j=0; j<numOfColumns; j++) {
+			header.append(" ").append(Character.forDigit(j+1, Character.MAX_RADIX)).append(" |");
+			separator.append("****");
+		}
+		System.out.println(header);
 		System.out.println();
 		for (int i=0; i<numOfRows; i++) {
 			for (int j=0; j<numOfColumns; j++) {
@@ -336,7 +698,7 @@ public class Board {
 				}
 			}
 		}
-		System.out.println("\n*****************************");
+		System.out.println("\n" + separator);
 
 	}
 
@@ -363,7 +725,43 @@ public class Board {
 	}
 
 
+	public Accumulator getAccumulator() {
+		return accumulator;
+	}
+
+
+	// The accumulator must match the checkers of the board, e.g. be computed from them.
+	public void setAccumulator(Accumulator accumulator) {
+		this.accumulator = accumulator;
+	}
+
+
+	// The bitset of the checkers of the player, laid out by the class "Geometry". It must not be changed.
+	long[] getBits(int player) {
+		return (player == Constants.P1) ? player1Bits : player2Bits;
+	}
+
+
+	public Geometry getGeometry() {
+		return geometry;
+	}
+
+
+	// A 64-bit hash of the position: the checkers and the player to move.
+	public long getHashKey() {
+		return (lastPlayer == Constants.P1) ? hashKey ^ geometry.getSideKey() : hashKey;
+	}
+
+
+	// It returns a copy of the cells of the board. Row 0 is the top row.
+	// Changing the copy does not change the board; use "setCell()" for that.
 	public int[][] getGameBoard() {
+		int[][] gameBoard = new int[numOfRows][numOfColumns];
+		for(int i=0; i<numOfRows; i++) {
+			for(int j=0; j<numOfColumns; j++) {
+				gameBoard[i][j] = getCell(i, j);
+			}
+		}
 		return gameBoard;
 	}
 
@@ -371,7 +769,7 @@ public class Board {
 	public void setGameBoard(int[][] gameBoard) {
 		for(int i=0; i<numOfRows; i++) {
 			for(int j=0; j<numOfColumns; j++) {
-				this.gameBoard[i][j] = gameBoard[i][j];
+				setCell(i, j, gameBoard[i][j]);
 			}
 		}
 	}
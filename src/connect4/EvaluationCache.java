@@ -0,0 +1,57 @@
+package connect4;
+
+
+/*
+ * A cache of the values of the evaluator, keyed by the hash key of the position.
+ * The search reaches the same leaves by many move orders, and the evaluation is a large part of the cost of a leaf.
+ *
+ * It is much smaller than a transposition table: an entry is a single long, the value and a check of the key.
+ * Every position has one slot, given by the low bits of its key, and a new value always replaces the old one.
+ * Several searches may share a cache without locks: the check is made of the key and the value,
+ * so an entry that mixes two writes does not match.
+ * The values of a cache are those of one evaluator.
+ */
+public class EvaluationCache {
+
+	// The size of an entry, in bytes.
+	static final int ENTRY_SIZE = 8;
+
+	// The result of a probe of a position that is not in the cache. No value is so large.
+	public static final long MISS = Long.MIN_VALUE;
+
+	private final long[] entries;
+	private final int mask;
+
+
+	public EvaluationCache(int kilobytes) {
+		int size = (int) Math.min(Long.highestOneBit(Math.max(1L, (long) kilobytes * 1024 / ENTRY_SIZE)), 1L << 30);
+		this.entries = new long[size];
+		this.mask = size - 1;
+	}
+
+
+	// The value of the position, or MISS.
+	public long probe(long key) {
+		long entry = entries[(int) key & mask];
+		int value = (int) entry;
+		return ((int) (entry >>> 32) == check(key, value)) ? value : MISS;
+	}
+
+
+	public void store(long key, int value) {
+		entries[(int) key & mask] = ((long) check(key, value) << 32) | (value & 0xFFFFFFFFL);
+	}
+
+
+	// Both halves of the key, since the slot only tells its low bits.
+	// It is inverted, so that an empty slot matches no key but a rare one.
+	private static int check(long key, int value) {
+		return ~((int) (key >>> 32) ^ (int) key ^ value);
+	}
+
+
+	public int getNumOfEntries() {
+		return entries.length;
+	}
+
+}
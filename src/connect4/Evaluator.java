@@ -0,0 +1,17 @@
+package connect4;
+
+
+/*
+ * The heuristic value of a position, from the point of view of Player 1,
+ * i.e. positive values are good for Player 1, like the values of "Move".
+ * The search calls it at every leaf, so it must be fast, and it may be shared by searches on several threads.
+ */
+public interface Evaluator {
+
+	int evaluate(Board board);
+
+	// It gets called on the root of every search, e.g. to give it an accumulator, which its children inherit.
+	default void prepare(Board root) {
+	}
+
+}
@@ -0,0 +1,149 @@
+package connect4;
+
+
+import java.util.Arrays;
+
+import utility.Constants;
+
+
+/*
+ * The moves of a game, with a cursor for undo and redo.
+ * Only the applied moves are stored (column, row and player), not copies of the board,
+ * so the memory stays small, whatever the length of the game and the size of the board.
+ * Undo and redo change the board of the history in place, one checker at a time.
+ */
+public class GameHistory {
+
+	private final Board board;
+
+	// The moves, in the order they were played. The moves after the cursor can be redone.
+	// A game has at most one move per cell.
+	private final int[] columns;
+	private final int[] rows;
+	private final int[] players;
+	private int numOfMoves;
+	private int cursor;
+
+
+	public GameHistory(Geometry geometry) {
+		this.board = new Board(geometry);
+		this.columns = new int[geometry.getNumOfCells()];
+		this.rows = new int[geometry.getNumOfCells()];
+		this.players = new int[geometry.getNumOfCells()];
+	}
+
+
+	// The board of the current position. It is changed by the methods of the history.
+	public Board getBoard() {
+		return board;
+	}
+
+
+	/*
+	 * It plays a move and forgets the moves that could be redone.
+	 * It returns false, and changes nothing, if the column is full.
+	 */
+	public boolean play(int col, int player) {
+		if (board.checkFullColumn(col)) {
+			return false;
+		}
+		board.makeMove(col, player);
+		columns[cursor] = col;
+		rows[cursor] = board.getLastMove().getRow();
+		players[cursor] = player;
+		cursor++;
+		numOfMoves = cursor;
+		return true;
+	}
+
+
+	public boolean canUndo() {
+		return cursor > 0;
+	}
+
+
+	public boolean canRedo() {
+		return cursor < numOfMoves;
+	}
+
+
+	public void undo() {
+		if (!canUndo()) {
+			throw new IllegalStateException("There is no move to undo.");
+		}
+		cursor--;
+		board.undoMove(columns[cursor]);
+		if (cursor > 0) {
+			board.setLastMove(new Move(rows[cursor - 1], columns[cursor - 1]));
+			board.setLastPlayer(players[cursor - 1]);
+		}
+	}
+
+
+	public void redo() {
+		if (!canRedo()) {
+			throw new IllegalStateException("There is no move to redo.");
+		}
+		board.makeMove(columns[cursor], players[cursor]);
+		cursor++;
+	}
+
+
+	// It undoes or redoes moves, until "ply" moves are applied.
+	public void jumpTo(int ply) {
+		if (ply < 0 || ply > numOfMoves) {
+			throw new IllegalArgumentException("Invalid ply: " + ply + ".");
+		}
+		while (cursor > ply) {
+			undo();
+		}
+		while (cursor < ply) {
+			redo();
+		}
+	}
+
+
+	/*
+	 * It forgets all the moves. The current position becomes the start of the history.
+	 * It is used when the board is changed without moves, e.g. by loading a novel position.
+	 */
+	public void resetToCurrentPosition() {
+		numOfMoves = 0;
+		cursor = 0;
+	}
+
+
+	// The number of applied moves.
+	public int getPly() {
+		return cursor;
+	}
+
+
+	// The number of moves, including the ones that can be redone.
+	public int getNumOfMoves() {
+		return numOfMoves;
+	}
+
+
+	public int getColumn(int ply) {
+		return columns[ply];
+	}
+
+
+	public int getPlayer(int ply) {
+		return players[ply];
+	}
+
+
+	// The columns of the applied moves.
+	public int[] getMoves() {
+		return Arrays.copyOf(columns, cursor);
+	}
+
+
+	// The player who plays the next move.
+	public int getNextPlayer() {
+		return (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+	}
+
+}
@@ -0,0 +1,156 @@
+package connect4;
+
+
+import java.util.Arrays;
+
+import utility.Constants;
+
+
+/*
+ * A recorded game: the board geometry, the names of the players, the result and the move sequence.
+ * Player 1 plays the first move. It is written to and read from files
+ * by the classes "GameRecordWriter" and "GameRecordReader".
+ */
+public class GameRecord {
+
+	// The result of a game that has not ended.
+	public static final int UNFINISHED = -1;
+
+	private final Geometry geometry;
+	private final String player1;
+	private final String player2;
+
+	// Constants.P1, Constants.P2, Constants.EMPTY for a draw, or UNFINISHED.
+	private final int result;
+
+	// The columns of the moves, counting from 0.
+	private final int[] moves;
+
+
+	public GameRecord(Geometry geometry, String player1, String player2, int result, int[] moves) {
+		if (result != Constants.P1 && result != Constants.P2 && result != Constants.EMPTY && result != UNFINISHED) {
+			throw new IllegalArgumentException("Invalid result: " + result + ".");
+		}
+		for (int col : moves) {
+			if (col < 0 || col >= geometry.getNumOfColumns()) {
+				throw new IllegalArgumentException("Invalid column: " + (col+1) + ".");
+			}
+		}
+		this.geometry = geometry;
+		this.player1 = player1;
+		this.player2 = player2;
+		this.result = result;
+		this.moves = moves.clone();
+	}
+
+
+	// It records a game from its move sequence. The result is taken from the final position.
+	public static GameRecord of(Geometry geometry, String player1, String player2, int[] moves) {
+		Board board = replay(geometry, moves, moves.length);
+		int result = board.checkForGameOver() ? board.getWinner() : UNFINISHED;
+		return new GameRecord(geometry, player1, player2, result, moves);
+	}
+
+
+	// The position after the first "plies" moves.
+	public Board getBoard(int plies) {
+		return replay(geometry, moves, plies);
+	}
+
+
+	// The final position.
+	public Board getBoard() {
+		return replay(geometry, moves, moves.length);
+	}
+
+
+	private static Board replay(Geometry geometry, int[] moves, int plies) {
+		Board board = new Board(geometry);
+		for (int i=0; i<plies; i++) {
+			if (board.checkFullColumn(moves[i])) {
+				throw new IllegalArgumentException("Invalid move " + (moves[i]+1) + " at ply " + (i+1) + ": the column is full.");
+			}
+			board.makeMove(moves[i], (i % 2 == 0) ? Constants.P1 : Constants.P2);
+		}
+		return board;
+	}
+
+
+	public Geometry getGeometry() {
+		return geometry;
+	}
+
+
+	public String getPlayer1() {
+		return player1;
+	}
+
+
+	public String getPlayer2() {
+		return player2;
+	}
+
+
+	public int getResult() {
+		return result;
+	}
+
+
+	public int[] getMoves() {
+		return moves.clone();
+	}
+
+
+	public int getNumOfMoves() {
+		return moves.length;
+	}
+
+
+	public int getMove(int ply) {
+		return moves[ply];
+	}
+
+
+	// The moves as a move string, e.g. "4453", like in "Board.fromMoveString()".
+	public String getMoveString() {
+		StringBuilder moveString = new StringBuilder();
+		for (int col : moves) {
+			moveString.append(Character.forDigit(col + 1, Character.MAX_RADIX));
+		}
+		return moveString.toString();
+	}
+
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof GameRecord)) {
+			return false;
+		}
+		GameRecord other = (GameRecord) o;
+		return geometry.equals(other.geometry) && player1.equals(other.player1) && player2.equals(other.player2)
+				&& result == other.result && Arrays.equals(moves, other.moves);
+	}
+
+
+	@Override
+	public int hashCode() {
+		return geometry.hashCode() * 31 + Arrays.hashCode(moves);
+	}
+
+
+	@Override
+	public String toString() {
+		String resultString;
+		if (result == Constants.P1) {
+			resultString = "1-0";
+		} else if (result == Constants.P2) {
+			resultString = "0-1";
+		} else if (result == Constants.EMPTY) {
+			resultString = "1/2-1/2";
+		} else {
+			resultString = "*";
+		}
+		return geometry + " " + player1 + " vs " + player2 + " " + resultString + " " + getMoveString();
+	}
+
+}
@@ -0,0 +1,117 @@
+package connect4;
+
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/*
+ * It reads the games of a file written by the class "GameRecordWriter", one at a time,
+ * so files of any size can be read without loading them in memory:
+ *
+ *   try (GameRecordReader reader = new GameRecordReader(file)) {
+ *       for (GameRecord record : reader) {
+ *           ...
+ *       }
+ *   }
+ */
+public class GameRecordReader implements Closeable, Iterable<GameRecord> {
+
+	private final DataInputStream in;
+
+
+	public GameRecordReader(File file) throws IOException {
+		this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			GameRecordWriter.readHeader(in);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+
+	// It returns the next game, or null at the end of the file.
+	public GameRecord read() throws IOException {
+		int numOfColumns = in.read();
+		if (numOfColumns < 0) {
+			return null;
+		}
+		try {
+			int numOfRows = in.readUnsignedByte();
+			int inARow = in.readUnsignedByte();
+			int result = GameRecordWriter.decodeResult(in.readUnsignedByte());
+			String player1 = in.readUTF();
+			String player2 = in.readUTF();
+			Geometry geometry = new Geometry(numOfRows, numOfColumns, inARow);
+
+			int[] moves = new int[in.readUnsignedShort()];
+			if (numOfColumns <= GameRecordWriter.MAX_COLUMNS_OF_PACKED_MOVES) {
+				for (int i=0; i<moves.length; i+=2) {
+					int packed = in.readUnsignedByte();
+					moves[i] = packed >>> 4;
+					if (i + 1 < moves.length) {
+						moves[i + 1] = packed & 0x0F;
+					}
+				}
+			} else {
+				for (int i=0; i<moves.length; i++) {
+					moves[i] = in.readUnsignedByte();
+				}
+			}
+			return new GameRecord(geometry, player1, player2, result, moves);
+		} catch (EOFException e) {
+			throw new IOException("The last game record is truncated.", e);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid game record: " + e.getMessage(), e);
+		}
+	}
+
+
+	// An iterator over the remaining games. Read errors are thrown as "UncheckedIOException".
+	@Override
+	public Iterator<GameRecord> iterator() {
+		return new Iterator<GameRecord>() {
+			private GameRecord next = readNext();
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public GameRecord next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				GameRecord record = next;
+				next = readNext();
+				return record;
+			}
+		};
+	}
+
+
+	private GameRecord readNext() {
+		try {
+			return read();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
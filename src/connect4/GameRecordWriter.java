@@ -0,0 +1,139 @@
+package connect4;
+
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import utility.Constants;
+
+
+/*
+ * It writes game records to a binary file, one after the other.
+ * Games can be appended to an existing file, so thousands of games can be collected in one file.
+ *
+ * The file starts with the 4 bytes "C4GR" and a version byte. Every game is then written as:
+ *   1 byte      the number of columns
+ *   1 byte      the number of rows
+ *   1 byte      the number of checkers in a row
+ *   1 byte      the result: 1 or 2 for the winner, 0 for a draw, 255 if unfinished
+ *   2 strings   the names of Player 1 and Player 2, in modified UTF-8 ("DataOutput.writeUTF()")
+ *   2 bytes     the number of moves
+ *   the moves   4 bits per move (two moves per byte, the first one in the high bits)
+ *               when the board has at most 16 columns, else 1 byte per move
+ * A game of the standard board takes at most 27 bytes, plus the names of the players.
+ */
+public class GameRecordWriter implements Closeable {
+
+	static final byte[] MAGIC = { 'C', '4', 'G', 'R' };
+	static final int VERSION = 1;
+
+	static final int UNFINISHED_CODE = 255;
+
+	// The number of moves is written in 2 bytes.
+	static final int MAX_NUM_OF_MOVES = 65535;
+
+	// Boards up to this many columns use 4 bits per move.
+	static final int MAX_COLUMNS_OF_PACKED_MOVES = 16;
+
+	private final DataOutputStream out;
+
+
+	// It creates the file, or appends to it if "append" is true and the file exists.
+	public GameRecordWriter(File file, boolean append) throws IOException {
+		boolean writeHeader = true;
+		if (append && file.exists() && file.length() > 0) {
+			try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+				readHeader(in);
+			}
+			writeHeader = false;
+		}
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, append)));
+		if (writeHeader) {
+			out.write(MAGIC);
+			out.writeByte(VERSION);
+		}
+	}
+
+
+	/*
+	 * A record that does not fit in the format is rejected with an IllegalArgumentException.
+	 * The game is encoded in memory first, so that a game that fails is not partly written.
+	 */
+	public void write(GameRecord record) throws IOException {
+		Geometry geometry = record.getGeometry();
+		geometry.checkStoredDimensions();
+		if (record.getNumOfMoves() > MAX_NUM_OF_MOVES) {
+			throw new IllegalArgumentException("A game record holds at most " + MAX_NUM_OF_MOVES + " moves.");
+		}
+		ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+		DataOutputStream game = new DataOutputStream(encoded);
+		game.writeByte(geometry.getNumOfColumns());
+		game.writeByte(geometry.getNumOfRows());
+		game.writeByte(geometry.getInARow());
+		game.writeByte((record.getResult() == GameRecord.UNFINISHED) ? UNFINISHED_CODE : record.getResult());
+		game.writeUTF(record.getPlayer1());
+		game.writeUTF(record.getPlayer2());
+
+		int numOfMoves = record.getNumOfMoves();
+		game.writeShort(numOfMoves);
+		if (geometry.getNumOfColumns() <= MAX_COLUMNS_OF_PACKED_MOVES) {
+			for (int i=0; i<numOfMoves; i+=2) {
+				int high = record.getMove(i);
+				int low = (i + 1 < numOfMoves) ? record.getMove(i + 1) : 0;
+				game.writeByte((high << 4) | low);
+			}
+		} else {
+			for (int i=0; i<numOfMoves; i++) {
+				game.writeByte(record.getMove(i));
+			}
+		}
+		encoded.writeTo(out);
+	}
+
+
+	// It writes the buffered games to the file.
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+
+	// It checks the file header.
+	static void readHeader(DataInputStream in) throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		in.readFully(magic);
+		for (int i=0; i<MAGIC.length; i++) {
+			if (magic[i] != MAGIC[i]) {
+				throw new IOException("Not a game record file.");
+			}
+		}
+		int version = in.readUnsignedByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported game record version: " + version + ".");
+		}
+	}
+
+
+	static int decodeResult(int code) throws IOException {
+		if (code == UNFINISHED_CODE) {
+			return GameRecord.UNFINISHED;
+		}
+		if (code != Constants.EMPTY && code != Constants.P1 && code != Constants.P2) {
+			throw new IOException("Invalid game result: " + code + ".");
+		}
+		return code;
+	}
+
+}
@@ -0,0 +1,201 @@
+package connect4;
+
+
+import java.util.SplittableRandom;
+
+import utility.Constants;
+
+
+/*
+ * The dimensions of a board and the number of checkers in a row needed to win.
+ * It also defines the layout of the bitsets of the class "Board":
+ * the cells are stored column by column, from the bottom row up,
+ * and every column takes "numOfRows + 1" bits. The extra bit on top of every column
+ * is always 0, so that lines of checkers never wrap around from one column to the next.
+ */
+public final class Geometry {
+
+	public static final Geometry STANDARD = new Geometry(Constants.NUM_OF_ROWS, Constants.NUM_OF_COLUMNS, Constants.IN_A_ROW);
+
+	// The columns are written as single characters in move strings: 1-9, then a-z.
+	public static final int MAX_NUM_OF_COLUMNS = Character.MAX_RADIX - 1;
+
+	// The files of boards, the game records and the n-tuple networks, store the dimensions in a byte each.
+	static final int MAX_STORED_DIMENSION = 255;
+
+	private final int numOfRows;
+	private final int numOfColumns;
+	private final int inARow;
+
+	// The number of bits of every column.
+	private final int columnHeight;
+
+	// The number of 64-bit words of the bitset of a player.
+	private final int numOfWords;
+
+	// Random keys of the Zobrist hashing, for every bit of each player, and for the player to move.
+	// They only depend on the geometry, so the hash keys are the same in every run of the program.
+	private final long[][] zobristKeys;
+	private final long sideKey;
+
+	// The shifts of the bitsets from a cell to the next one in a line: vertical, horizontal, and the two diagonals.
+	private final int[] lineShifts;
+
+	// The bottom cell of every column, and all the cells, when the bitsets fit in a word.
+	private final long bottomCells;
+	private final long boardCells;
+
+
+	public Geometry(int numOfRows, int numOfColumns, int inARow) {
+		if (numOfRows < 1 || numOfColumns < 1 || numOfColumns > MAX_NUM_OF_COLUMNS) {
+			throw new IllegalArgumentException("Invalid board size: " + numOfColumns + "x" + numOfRows + ".");
+		}
+		if (inARow < 2 || inARow > Math.max(numOfRows, numOfColumns)) {
+			throw new IllegalArgumentException("Invalid number of checkers in a row: " + inARow + ".");
+		}
+		this.numOfRows = numOfRows;
+		this.numOfColumns = numOfColumns;
+		this.inARow = inARow;
+		this.columnHeight = numOfRows + 1;
+		this.numOfWords = (numOfColumns * columnHeight + 63) / 64;
+
+		SplittableRandom random = new SplittableRandom(hashCode());
+		this.zobristKeys = new long[2][numOfColumns * columnHeight];
+		for (int player=0; player<2; player++) {
+			for (int i=0; i<zobristKeys[player].length; i++) {
+				zobristKeys[player][i] = random.nextLong();
+			}
+		}
+		this.sideKey = random.nextLong();
+
+		this.lineShifts = new int[] {1, columnHeight, columnHeight + 1, columnHeight - 1};
+		long bottom = 0;
+		long cells = 0;
+		if (numOfWords == 1) {
+			for (int col=0; col<numOfColumns; col++) {
+				bottom |= 1L << (col * columnHeight);
+				cells |= ((1L << numOfRows) - 1) << (col * columnHeight);
+			}
+		}
+		this.bottomCells = bottom;
+		this.boardCells = cells;
+	}
+
+
+	/*
+	 * It parses a geometry written as "columns x rows x inARow", e.g. "7x6x4" for the standard board,
+	 * or "9x7x5" for a 9 columns, 7 rows Connect-5. The number of checkers in a row defaults to 4.
+	 */
+	public static Geometry parse(String text) {
+		String[] parts = text.trim().toLowerCase().split("x");
+		try {
+			if (parts.length == 2) {
+				return new Geometry(Integer.parseInt(parts[1]), Integer.parseInt(parts[0]), Constants.IN_A_ROW);
+			} else if (parts.length == 3) {
+				return new Geometry(Integer.parseInt(parts[1]), Integer.parseInt(parts[0]), Integer.parseInt(parts[2]));
+			}
+		} catch (NumberFormatException e) {
+			// It falls through to the exception below.
+		}
+		throw new IllegalArgumentException("Invalid geometry \"" + text + "\". Expected columns x rows [x inARow], e.g. 7x6x4.");
+	}
+
+
+	public int getNumOfRows() {
+		return numOfRows;
+	}
+
+
+	public int getNumOfColumns() {
+		return numOfColumns;
+	}
+
+
+	public int getInARow() {
+		return inARow;
+	}
+
+
+	public int getNumOfCells() {
+		return numOfRows * numOfColumns;
+	}
+
+
+	// It throws if the dimensions do not fit in the bytes of the files of boards.
+	public void checkStoredDimensions() {
+		if (numOfRows > MAX_STORED_DIMENSION || numOfColumns > MAX_STORED_DIMENSION || inARow > MAX_STORED_DIMENSION) {
+			throw new IllegalArgumentException("The board " + this + " is too large to be stored: at most "
+					+ MAX_STORED_DIMENSION + " rows, columns and checkers in a row.");
+		}
+	}
+
+
+	public int getColumnHeight() {
+		return columnHeight;
+	}
+
+
+	public int getNumOfWords() {
+		return numOfWords;
+	}
+
+
+	// The index of a cell in the bitsets. Row 0 is the top row, like in "Board.getGameBoard()".
+	public int bitIndex(int row, int col) {
+		return col * columnHeight + (numOfRows - 1 - row);
+	}
+
+
+	public long getZobristKey(int player, int bitIndex) {
+		return zobristKeys[player - 1][bitIndex];
+	}
+
+
+	public long getSideKey() {
+		return sideKey;
+	}
+
+
+	// The callers must not change the array.
+	int[] getLineShifts() {
+		return lineShifts;
+	}
+
+
+	long getBottomCells() {
+		return bottomCells;
+	}
+
+
+	long getBoardCells() {
+		return boardCells;
+	}
+
+
+	public boolean isStandard() {
+		return equals(STANDARD);
+	}
+
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Geometry)) {
+			return false;
+		}
+		Geometry other = (Geometry) o;
+		return numOfRows == other.numOfRows && numOfColumns == other.numOfColumns && inARow == other.inARow;
+	}
+
+
+	@Override
+	public int hashCode() {
+		return (numOfRows * 64 + numOfColumns) * 64 + inARow;
+	}
+
+
+	@Override
+	public String toString() {
+		return numOfColumns + "x" + numOfRows + "x" + inARow;
+	}
+
+}
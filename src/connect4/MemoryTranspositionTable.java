@@ -0,0 +1,58 @@
+package connect4;
+
+
+/*
+ * A transposition table in memory, of fixed size.
+ * An entry is only replaced by an entry of another position, or by a deeper entry of the same position.
+ */
+public class MemoryTranspositionTable implements TranspositionTable {
+
+	// The size of an entry, in bytes.
+	static final int ENTRY_SIZE = 16;
+
+	private final long[] keys;
+	private final long[] entries;
+	private final int mask;
+
+
+	public MemoryTranspositionTable(int megabytes) {
+		int size = numOfEntries(megabytes);
+		this.keys = new long[size];
+		this.entries = new long[size];
+		this.mask = size - 1;
+	}
+
+
+	// The largest power of 2 number of entries that fits in the given size.
+	static int numOfEntries(int megabytes) {
+		long entries = Long.highestOneBit(Math.max(1L, (long) megabytes * 1024 * 1024 / ENTRY_SIZE));
+		return (int) Math.min(entries, 1L << 30);
+	}
+
+
+	@Override
+	public long probe(long key) {
+		int index = (int) key & mask;
+		long entry = entries[index];
+		return ((keys[index] ^ entry) == key) ? entry : 0;
+	}
+
+
+	@Override
+	public void store(long key, int draft, int bound, int score, int column) {
+		int index = (int) key & mask;
+		long old = entries[index];
+		if ((keys[index] ^ old) == key && old != 0 && TranspositionTable.getDraft(old) > draft) {
+			return;
+		}
+		long entry = TranspositionTable.pack(draft, bound, score, column);
+		entries[index] = entry;
+		keys[index] = key ^ entry;
+	}
+
+
+	public int getNumOfEntries() {
+		return entries.length;
+	}
+
+}
@@ -2,8 +2,13 @@ package connect4;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
+import enumeration.SearchDriver;
+import monitoring.IterationEvent;
+import monitoring.SearchEvent;
 import utility.Constants;
 
 
@@ -15,6 +20,64 @@ public class MiniMaxAi {
 	    // Variable that holds which letter this player controls
 		private int aiPlayer;
 
+		// The System.nanoTime() at which a time-limited search must stop, or 0 for no limit.
+		private long deadline;
+
+		// It becomes true when the deadline passes, the node limit is reached
+		// or the search is stopped, in the middle of an iteration.
+		private boolean aborted;
+
+		// An iterative search can only be aborted after its first iteration, so that there is a move to return.
+		private boolean abortable;
+
+		// It is set by "stop()", from another thread.
+		private volatile boolean stopRequested;
+
+		// An iterative search stops after this many nodes, or 0 for no limit.
+		private long nodeLimit;
+
+		// The statistics of the current, or the last, search.
+		private SearchStatistics statistics = new SearchStatistics();
+
+		// If not null, it looks for a forced win before the alpha-beta search.
+		private ThreatSpaceSearch threatSpaceSearch;
+
+		private ThreatSpaceSearch.Result lastThreatSpaceResult;
+
+		// If not null, the searched positions are stored in it and looked up before they are searched again.
+		private TranspositionTable transpositionTable;
+
+		// The size of the table of a multi-PV search, when the AI has none.
+		private static final int MULTI_PV_MEGABYTES = 4;
+
+		// The size of the evaluation cache of the default evaluator.
+		static final int EVALUATION_CACHE_KILOBYTES = 1024;
+
+		// The evaluator of the AIs that are not given one. Its tables and its cache are shared by all of them.
+		// The cache outlives the searches, but its values are exact evaluations, so it only changes their speed.
+		private static volatile Evaluator defaultEvaluator = new WindowEvaluator();
+		private static volatile EvaluationCache defaultEvaluationCache = new EvaluationCache(EVALUATION_CACHE_KILOBYTES);
+
+		// The heuristic value of the leaves of the search.
+		private Evaluator evaluator = defaultEvaluator;
+
+		// If not null, the values of the evaluator are looked up in it before the leaves are evaluated.
+		private EvaluationCache evaluationCache = defaultEvaluationCache;
+
+		// The bounds of a full window. No value reaches them, and they can be negated.
+		public static final int INFINITY = Integer.MAX_VALUE;
+
+		// How the alpha-beta search sets the window of its root.
+		private SearchDriver searchDriver = SearchDriver.FULL_WINDOW;
+
+		// The first aspiration window is the value of the previous iteration, plus or minus this.
+		// It grows 4 times with every failed search.
+		static final int ASPIRATION_WINDOW = 16;
+
+		// The most plies that the alpha-beta search goes past the maximum depth, on the forcing moves.
+		static final int THREAT_EXTENSION_PLIES = 6;
+		private int threatExtensionPlies = THREAT_EXTENSION_PLIES;
+
 		public MiniMaxAi() {
 			maxDepth = 4;
 			aiPlayer = Constants.P2;
@@ -41,29 +104,127 @@ public class MiniMaxAi {
 			this.aiPlayer = aiPlayer;
 		}
 
+		public long getNodeLimit() {
+			return nodeLimit;
+		}
+
+		// The iterative alpha-beta search stops after this many nodes, and returns the move of the last completed iteration.
+		public void setNodeLimit(long nodeLimit) {
+			this.nodeLimit = nodeLimit;
+		}
+
+		/*
+		 * It stops the iterative alpha-beta or multi-PV search that is running, from another thread.
+		 * The search returns the move of the last completed iteration, as soon as its first iteration is complete.
+		 */
+		public void stop() {
+			stopRequested = true;
+		}
+
+		public SearchStatistics getLastSearchStatistics() {
+			return statistics;
+		}
+
+		// The evaluator of the AIs created from now on, e.g. the tuned weights loaded at startup.
+		// It gets a new cache, since the values of the old one are those of the old evaluator.
+		public static void setDefaultEvaluator(Evaluator evaluator) {
+			defaultEvaluationCache = new EvaluationCache(EVALUATION_CACHE_KILOBYTES);
+			defaultEvaluator = evaluator;
+		}
+
+		public Evaluator getEvaluator() {
+			return evaluator;
+		}
+
+		// The cache of the old evaluator is dropped: a cache can be given for the new one.
+		public void setEvaluator(Evaluator evaluator) {
+			this.evaluator = evaluator;
+			this.evaluationCache = null;
+		}
+
+		public EvaluationCache getEvaluationCache() {
+			return evaluationCache;
+		}
+
+		// The cache must only hold values of the evaluator of this AI.
+		public void setEvaluationCache(EvaluationCache evaluationCache) {
+			this.evaluationCache = evaluationCache;
+		}
+
+		public SearchDriver getSearchDriver() {
+			return searchDriver;
+		}
+
+		// The driver of the alpha-beta searches, e.g. to compare their nodes (see "tools.DriverBenchmark").
+		public void setSearchDriver(SearchDriver searchDriver) {
+			this.searchDriver = searchDriver;
+		}
+
+		public int getThreatExtensionPlies() {
+			return threatExtensionPlies;
+		}
+
+		// 0 turns the threat extensions off, so that the alpha-beta search stops at the maximum depth.
+		public void setThreatExtensionPlies(int threatExtensionPlies) {
+			this.threatExtensionPlies = threatExtensionPlies;
+		}
+
+		public void setThreatSpaceSearch(ThreatSpaceSearch threatSpaceSearch) {
+			this.threatSpaceSearch = threatSpaceSearch;
+		}
+
+		public void setTranspositionTable(TranspositionTable transpositionTable) {
+			this.transpositionTable = transpositionTable;
+		}
+
+		public TranspositionTable getTranspositionTable() {
+			return transpositionTable;
+		}
+
+		// The result of the threat-space search of the last alpha-beta search, or null if it did not run.
+		public ThreatSpaceSearch.Result getLastThreatSpaceResult() {
+			return lastThreatSpaceResult;
+		}
+
 	    // Initiates the MiniMax algorithm
 		public Move miniMax(Board board) {
+			SearchEvent event = new SearchEvent();
+			event.begin();
+			statistics = new SearchStatistics();
+			Move move = findForcedWin(board);
+			if (move != null) {
+				// A proven forced win needs no search.
+			}
 	        // If P1 plays then it wants to MAXimize the heuristics value.
-	        if (aiPlayer == Constants.P1) {
-	            return max(new Board(board), 0);
+	        else if (aiPlayer == Constants.P1) {
+	            move = max(rootOf(board), 0);
 	        }
 	        // If P2 plays then it wants to MINimize the heuristics value.
 	        else {
-	            return min(new Board(board), 0);
+	            move = min(rootOf(board), 0);
 	        }
+			statistics.finish(maxDepth);
+			commitSearchEvent(event, "MiniMax", board, move);
+			return move;
 		}
 
 	    // The max and min functions are called interchangeably, one after another until a max depth is reached
 		public Move max(Board board, int depth) {
 	        Random r = new Random();
+			statistics.visitNode(depth);
 
 	        /* If MAX is called on a state that is terminal or after a maximum depth is reached,
 	         * then a heuristic is calculated on the state and the move returned.
 	         */
 			if((board.checkForGameOver()) || (depth == maxDepth)) {
-				Move lastMove = new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), board.evaluate());
+				statistics.visitLeaf();
+				Move lastMove = new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), evaluateLeaf(board));
 				return lastMove;
 			}
+			Move stored = probeExact(board, depth);
+			if (stored != null) {
+				return stored;
+			}
 	        // The children-moves of the state are calculated
 			ArrayList<Board> children = new ArrayList<Board>(board.getChildren(Constants.P1));
 			Move maxMove = new Move(Integer.MIN_VALUE);
@@ -87,17 +248,24 @@ public class MiniMaxAi {
 	                }
 				}
 			}
+			storeTransposition(board, depth, TranspositionTable.EXACT, maxMove);
 			return maxMove;
 		}
 
 	    // Min works similarly to max.
 		public Move min(Board board, int depth) {
 	        Random r = new Random();
+			statistics.visitNode(depth);
 
 			if((board.checkForGameOver()) || (depth == maxDepth)) {
-				Move lastMove = new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), board.evaluate());
+				statistics.visitLeaf();
+				Move lastMove = new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), evaluateLeaf(board));
 				return lastMove;
 			}
+			Move stored = probeExact(board, depth);
+			if (stored != null) {
+				return stored;
+			}
 			ArrayList<Board> children = new ArrayList<Board>(board.getChildren(Constants.P2));
 			Move minMove = new Move(Integer.MAX_VALUE);
 			for (Board child : children) {
@@ -117,106 +285,653 @@ public class MiniMaxAi {
 	                }
 	            }
 	        }
+			storeTransposition(board, depth, TranspositionTable.EXACT, minMove);
 	        return minMove;
 		}
 		
 		
 		// Initiates the MiniMax algorithm
 		public Move miniMaxAlphaBeta(Board board) {
+			return searchAlphaBeta(board).getMove();
+		}
+
+
+		// Like "miniMaxAlphaBeta(board)", but it also returns the statistics of the search.
+		public SearchResult searchAlphaBeta(Board board) {
+			SearchEvent event = new SearchEvent();
+			event.begin();
+			statistics = new SearchStatistics();
+			TranspositionTable table = transpositionTable;
+			Move move = findForcedWin(board);
+			try {
+				if (move == null) {
+					useTableOfDriver();
+					// Without a previous iteration, the value of the position is guessed by the evaluator.
+					move = searchRoot(board, evaluateLeaf(rootOf(board)));
+				}
+			} finally {
+				transpositionTable = table;
+			}
+			statistics.finish(maxDepth);
+			commitSearchEvent(event, "Alpha-beta" + driverName(), board, move);
+			return new SearchResult(move, new SearchStatistics(statistics));
+		}
+
+
+		// The search of the root, with the window of the driver. The guess is the value that it expects.
+		private Move searchRoot(Board board, int guess) {
+			switch (searchDriver) {
+				case ASPIRATION:
+					return aspirationRoot(board, guess);
+				case MTDF:
+					return mtdfRoot(board, guess);
+				default:
+					return alphaBetaRoot(board, -INFINITY, INFINITY);
+			}
+		}
+
+
+		private Move alphaBetaRoot(Board board, int a, int b) {
+			statistics.searchRoot();
 	        // If P1 plays then it wants to MAXimize the heuristics value.
 	        if (aiPlayer == Constants.P1) {
-	            return maxAlphaBeta(new Board(board), 0, Double.MAX_VALUE, Double.MIN_VALUE);
+	            return maxAlphaBeta(rootOf(board), 0, a, b);
 	        }
 	        // If P2 plays then it wants to MINimize the heuristics value.
 	        else {
-	            return minAlphaBeta(new Board(board), 0, Double.MIN_VALUE, Double.MAX_VALUE);
+	            return minAlphaBeta(rootOf(board), 0, a, b);
 	        }
 		}
 
+
+		/*
+		 * It searches with a narrow window around the guess, since most of the time the value changes little
+		 * from an iteration to the next, and a narrow window cuts off more. If the value falls outside of it,
+		 * the value is only a bound, so the window is widened on that side and the root is searched again.
+		 */
+		private Move aspirationRoot(Board board, int guess) {
+			long delta = ASPIRATION_WINDOW;
+			int a = clampBound(guess - delta);
+			int b = clampBound(guess + delta);
+			while (true) {
+				Move move = alphaBetaRoot(board, a, b);
+				if (aborted) {
+					return move;
+				}
+				if (move.getValue() <= a && a > -INFINITY) {
+					delta *= 4;
+					a = clampBound(move.getValue() - delta);
+				} else if (move.getValue() >= b && b < INFINITY) {
+					delta *= 4;
+					b = clampBound(move.getValue() + delta);
+				} else {
+					return move;
+				}
+			}
+		}
+
+
+		/*
+		 * MTD(f): zero-window searches, each of which tells whether the value is below or above a test value,
+		 * until the bounds meet. Every search starts from the value of the previous one, and the searches
+		 * share the work through the transposition table. The move is that of the last search that proved
+		 * the value for the player, since the moves of the others only have bounds.
+		 */
+		private Move mtdfRoot(Board board, int guess) {
+			int lower = -INFINITY;
+			int upper = INFINITY;
+			int value = clampBound(guess);
+			Move move = null;
+			Move provenMove = null;
+			while (lower < upper) {
+				int beta = (value == lower) ? value + 1 : value;
+				move = alphaBetaRoot(board, beta - 1, beta);
+				if (aborted) {
+					return move;
+				}
+				value = move.getValue();
+				if (value < beta) {
+					upper = value;
+				} else {
+					lower = value;
+				}
+				if ((value >= beta) == (aiPlayer == Constants.P1)) {
+					provenMove = move;
+				}
+			}
+			if (provenMove != null) {
+				provenMove.setValue(value);
+				return provenMove;
+			}
+			return move;
+		}
+
+
+		// A bound of a window, strictly inside the full window.
+		private static int clampBound(long bound) {
+			return (int) Math.max(-INFINITY + 1, Math.min(INFINITY - 1, bound));
+		}
+
+
+		// MTD(f) needs a transposition table: without one, a small one is used for the search.
+		private void useTableOfDriver() {
+			if (searchDriver == SearchDriver.MTDF && transpositionTable == null) {
+				transpositionTable = new MemoryTranspositionTable(MULTI_PV_MEGABYTES);
+			}
+		}
+
+
+		private String driverName() {
+			switch (searchDriver) {
+				case ASPIRATION:
+					return " (aspiration windows)";
+				case MTDF:
+					return " (MTD(f))";
+				default:
+					return "";
+			}
+		}
+
 		
+		// Initiates the MiniMax algorithm with alpha-beta pruning and a time limit.
+		// It searches iteratively with depth 1, 2, ... up to "maxDepth" and returns
+		// the move of the deepest iteration that completed within "timeLimitMillis".
+		public Move miniMaxAlphaBeta(Board board, long timeLimitMillis) {
+			return searchAlphaBeta(board, timeLimitMillis, null).getMove();
+		}
+
+
+		// Like "miniMaxAlphaBeta(board, timeLimitMillis)", but it also returns the statistics of the search.
+		// A non-positive time limit means no limit. The listener, if not null, receives every completed iteration.
+		public SearchResult searchAlphaBeta(Board board, long timeLimitMillis, SearchListener listener) {
+			SearchEvent event = new SearchEvent();
+			event.begin();
+			int depthLimit = maxDepth;
+			int emptyCells = board.getGeometry().getNumOfCells() - board.getTurn();
+			long end = System.nanoTime() + timeLimitMillis * 1000000L;
+
+			statistics = new SearchStatistics();
+			TranspositionTable table = transpositionTable;
+			// A proven forced win makes the alpha-beta search unnecessary.
+			Move bestMove = findForcedWin(board);
+			boolean forcedWin = (bestMove != null);
+			try {
+				useTableOfDriver();
+				// The first iteration guesses the value of the position by the evaluator.
+				int guess = forcedWin ? 0 : evaluateLeaf(rootOf(board));
+				for (int depth=1; !forcedWin && depth<=Math.min(depthLimit, Math.max(emptyCells, 1)); depth++) {
+					maxDepth = depth;
+					// The first iteration always completes, so that there is a move to return.
+					deadline = (depth == 1 || timeLimitMillis <= 0) ? 0 : end;
+					abortable = (depth > 1);
+					aborted = false;
+					IterationEvent iterationEvent = new IterationEvent();
+					iterationEvent.begin();
+					Move move = searchRoot(board, guess);
+					if (aborted) {
+						break;
+					}
+					bestMove = move;
+					guess = move.getValue();
+					statistics.finish(depth);
+					if (iterationEvent.shouldCommit()) {
+						iterationEvent.depth = depth;
+						iterationEvent.nodes = statistics.getNodes();
+						iterationEvent.bestColumn = move.getColumn() + 1;
+						iterationEvent.score = move.getValue();
+						iterationEvent.commit();
+					}
+					if (listener != null) {
+						listener.iterationCompleted(move, new SearchStatistics(statistics));
+					}
+					if ((timeLimitMillis > 0 && System.nanoTime() >= end) || stopRequested
+							|| (nodeLimit > 0 && statistics.getNodes() >= nodeLimit)) {
+						break;
+					}
+				}
+			} finally {
+				transpositionTable = table;
+				maxDepth = depthLimit;
+				deadline = 0;
+				abortable = false;
+				aborted = false;
+				stopRequested = false;
+			}
+			statistics.finish(statistics.getDepth());
+			commitSearchEvent(event, "Iterative alpha-beta" + driverName(), board, bestMove);
+			return new SearchResult(bestMove, new SearchStatistics(statistics));
+		}
+
+
+		/*
+		 * It scores the root moves in a single search: all of them, or at least the best "numOfMoves" exactly.
+		 * It returns the moves best first, each with its principal variation, taken from the transposition table.
+		 * The search deepens iteratively up to "maxDepth", so the moves are ordered by the previous iteration
+		 * and the table is shared by the moves and by the iterations. Once "numOfMoves" moves are scored,
+		 * the next moves are only searched to find whether they are better than the worst of them,
+		 * so they get a bound instead of an exact score.
+		 * Without a transposition table, a small one is used for the search.
+		 */
+		public List<PrincipalVariation> searchMultiPv(Board board, int numOfMoves) {
+			return searchMultiPv(board, numOfMoves, null);
+		}
+
+
+		/*
+		 * The multi-PV search, which reports every completed iteration to the listener, if not null.
+		 * Like the iterative alpha-beta search, it can be stopped, or limited by the node limit,
+		 * after its first iteration, and then it returns the moves of the last completed iteration.
+		 */
+		public List<PrincipalVariation> searchMultiPv(Board board, int numOfMoves, MultiPvListener listener) {
+			statistics = new SearchStatistics();
+			if (board.checkForGameOver()) {
+				return new ArrayList<>();
+			}
+			TranspositionTable table = transpositionTable;
+			if (transpositionTable == null) {
+				transpositionTable = new MemoryTranspositionTable(MULTI_PV_MEGABYTES);
+			}
+			int depthLimit = maxDepth;
+			int emptyCells = board.getGeometry().getNumOfCells() - board.getTurn();
+			List<Board> children = rootOf(board).getChildren(aiPlayer);
+			int[] scores = new int[children.size()];
+			boolean[] exact = new boolean[children.size()];
+			// The sign makes the best moves of both players have the greatest keys.
+			int sign = (aiPlayer == Constants.P1) ? 1 : -1;
+			List<PrincipalVariation> variations = new ArrayList<>();
+			try {
+				for (int depth=1; depth<=Math.min(depthLimit, Math.max(emptyCells, 1)); depth++) {
+					maxDepth = depth;
+					abortable = (depth > 1);
+					aborted = false;
+					// The best moves of the previous iteration are searched first.
+					Integer[] order = sortedIndices(scores, exact, sign);
+					List<Integer> best = new ArrayList<>();
+					for (int i : order) {
+						Board child = children.get(i);
+						// Until there are enough best moves, every move is scored exactly.
+						boolean full = (best.size() < numOfMoves);
+						// The score that a move must beat to be one of the best moves.
+						int threshold = full ? 0 : kthBest(scores, best, numOfMoves, sign);
+						Move move;
+						if (aiPlayer == Constants.P1) {
+							move = minAlphaBeta(new Board(child), 1, full ? -INFINITY : threshold - 1, INFINITY);
+						} else {
+							move = maxAlphaBeta(new Board(child), 1, -INFINITY, full ? INFINITY : -threshold + 1);
+						}
+						if (aborted) {
+							break;
+						}
+						scores[i] = move.getValue();
+						exact[i] = full || (sign * move.getValue() > threshold - 1);
+						if (exact[i]) {
+							best.add(i);
+						}
+					}
+					// The scores of an aborted iteration are incomplete, so the previous iteration is returned.
+					if (aborted) {
+						break;
+					}
+					statistics.finish(depth);
+
+					variations = new ArrayList<>();
+					for (int i : sortedIndices(scores, exact, sign)) {
+						variations.add(new PrincipalVariation(principalVariation(children.get(i)), scores[i], exact[i]));
+					}
+					if (listener != null) {
+						listener.iterationCompleted(variations, new SearchStatistics(statistics));
+					}
+					if (stopRequested || (nodeLimit > 0 && statistics.getNodes() >= nodeLimit)) {
+						break;
+					}
+				}
+				return variations;
+			} finally {
+				maxDepth = depthLimit;
+				transpositionTable = table;
+				abortable = false;
+				aborted = false;
+				stopRequested = false;
+			}
+		}
+
+
+		// The value of a leaf, from the evaluation cache if it is there.
+		private int evaluateLeaf(Board board) {
+			if (evaluationCache == null) {
+				return evaluator.evaluate(board);
+			}
+			long cached = evaluationCache.probe(board.getHashKey());
+			statistics.evaluationProbe(cached != EvaluationCache.MISS);
+			if (cached != EvaluationCache.MISS) {
+				return (int) cached;
+			}
+			int value = evaluator.evaluate(board);
+			evaluationCache.store(board.getHashKey(), value);
+			return value;
+		}
+
+
+		// The copy of the board that the search starts from, prepared for the evaluator.
+		private Board rootOf(Board board) {
+			Board root = new Board(board);
+			evaluator.prepare(root);
+			return root;
+		}
+
+
+		// The indices of the moves: the exact scores first, then the best scores of the player first.
+		private static Integer[] sortedIndices(int[] scores, boolean[] exact, int sign) {
+			Integer[] indices = new Integer[scores.length];
+			for (int i=0; i<indices.length; i++) {
+				indices[i] = i;
+			}
+			Arrays.sort(indices, (i, j) -> (exact[i] != exact[j]) ? (exact[i] ? -1 : 1) : Integer.compare(sign * scores[j], sign * scores[i]));
+			return indices;
+		}
+
+
+		// The score of the k-th best of the given moves, multiplied by the sign.
+		private static int kthBest(int[] scores, List<Integer> moves, int k, int sign) {
+			int[] keys = new int[moves.size()];
+			for (int i=0; i<keys.length; i++) {
+				keys[i] = sign * scores[moves.get(i)];
+			}
+			Arrays.sort(keys);
+			return keys[keys.length - k];
+		}
+
+
+		// The root move, then the stored best moves of the positions that follow it.
+		private int[] principalVariation(Board child) {
+			Board board = new Board(child);
+			int[] columns = new int[maxDepth];
+			columns[0] = child.getLastMove().getColumn();
+			int length = 1;
+			while (length < maxDepth && !board.checkForGameOver()) {
+				long entry = transpositionTable.probe(board.getHashKey());
+				if (entry == 0 || board.checkFullColumn(TranspositionTable.getColumn(entry))) {
+					break;
+				}
+				int player = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+				columns[length++] = TranspositionTable.getColumn(entry);
+				board.makeMove(TranspositionTable.getColumn(entry), player);
+			}
+			return Arrays.copyOf(columns, length);
+		}
+
+
+		// It records the search in the Flight Recorder, if the event is enabled.
+		private void commitSearchEvent(SearchEvent event, String algorithm, Board board, Move move) {
+			if (event.shouldCommit()) {
+				event.algorithm = algorithm;
+				event.aiPlayer = aiPlayer;
+				event.turn = board.getTurn();
+				event.depth = statistics.getDepth();
+				event.nodes = statistics.getNodes();
+				event.bestColumn = move.getColumn() + 1;
+				event.score = move.getValue();
+				event.commit();
+			}
+		}
+
+
+		// It runs the threat-space search, if enabled, and returns the first move of a forced win, or null.
+		private Move findForcedWin(Board board) {
+			lastThreatSpaceResult = null;
+			if (threatSpaceSearch == null) {
+				return null;
+			}
+			lastThreatSpaceResult = threatSpaceSearch.search(board, aiPlayer);
+			if (!lastThreatSpaceResult.isWin()) {
+				return null;
+			}
+			int col = lastThreatSpaceResult.getSequence().get(0);
+			// A proven win is worth more than any heuristic value.
+			int value = (aiPlayer == Constants.P1) ? INFINITY - 1 : -(INFINITY - 1);
+			return new Move(board.getEmptyRowPosition(col), col, value);
+		}
+
+
+		// The stored entry of the position, or 0.
+		private long probeTransposition(Board board) {
+			return (transpositionTable == null) ? 0 : transpositionTable.probe(board.getHashKey());
+		}
+
+
+		/*
+		 * It returns the stored value of the position, if the stored search was at least as deep
+		 * and its value decides the node for the window (a, b). Otherwise it returns null.
+		 * The root is always searched, to choose randomly among the moves of equal value.
+		 */
+		private Move storedValue(Board board, int depth, long entry, int a, int b) {
+			if (transpositionTable == null) {
+				return null;
+			}
+			boolean usable = false;
+			int score = TranspositionTable.getScore(entry);
+			if (entry != 0 && depth > 0 && TranspositionTable.getDraft(entry) >= maxDepth - depth) {
+				switch (TranspositionTable.getBound(entry)) {
+					case TranspositionTable.EXACT:
+						usable = true;
+						break;
+					case TranspositionTable.LOWER_BOUND:
+						usable = (score >= b);
+						break;
+					default:
+						usable = (score <= a);
+				}
+			}
+			statistics.transpositionProbe(usable);
+			return usable ? new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), score) : null;
+		}
+
+
+		// The plain MiniMax can only use exact values.
+		private Move probeExact(Board board, int depth) {
+			return storedValue(board, depth, probeTransposition(board), -INFINITY, INFINITY);
+		}
+
+
+		private void storeTransposition(Board board, int depth, int bound, Move move) {
+			// The values of an aborted iteration are wrong.
+			if (transpositionTable != null && !aborted) {
+				transpositionTable.store(board.getHashKey(), maxDepth - depth, bound, move.getValue(), move.getColumn());
+			}
+		}
+
+
+		// The stored best move is searched first, since it is likely to cause a cutoff again.
+		private static void orderStoredMoveFirst(ArrayList<Board> children, long entry) {
+			if (entry == 0) {
+				return;
+			}
+			int col = TranspositionTable.getColumn(entry);
+			for (int i=1; i<children.size(); i++) {
+				if (children.get(i).getLastMove().getColumn() == col) {
+					children.add(0, children.remove(i));
+					return;
+				}
+			}
+		}
+
+
+		// It checks whether the iteration must be aborted: the deadline has passed,
+		// the node limit is reached or the search was stopped.
+		private boolean isTimeUp() {
+			if (!aborted && abortable && (stopRequested
+					|| (deadline != 0 && System.nanoTime() - deadline > 0)
+					|| (nodeLimit > 0 && statistics.getNodes() >= nodeLimit))) {
+				aborted = true;
+			}
+			return aborted;
+		}
+
+
 	    // The max and min functions are called interchangeably, one after another until a max depth is reached.
-		public Move maxAlphaBeta(Board board, int depth, double a, double b) {
-	        Random r = new Random();
+		public Move maxAlphaBeta(Board board, int depth, int a, int b) {
+			// The result of an aborted iteration is discarded, so any value will do.
+			if (isTimeUp()) {
+				return new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), 0);
+			}
+			statistics.visitNode(depth);
 
-	        /* If MAX is called on a state that is terminal or after a maximum depth is reached,
-	         * then a heuristic is calculated on the state and the move returned.
+	        /* If MAX is called on a state that is terminal, then a heuristic is calculated on the state and the move returned.
+	         * After the maximum depth is reached, only the forcing moves are searched.
 	         */
-			if((board.checkForGameOver()) || (depth == maxDepth)) {
-				Move lastMove = new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), board.evaluate());
+			if (board.checkForGameOver()) {
+				statistics.visitLeaf();
+				Move lastMove = new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), evaluateLeaf(board));
 				return lastMove;
 			}
+			if (depth >= maxDepth) {
+				return forcingSearch(board, depth, a, b, Constants.P1);
+			}
+			long entry = probeTransposition(board);
+			Move stored = storedValue(board, depth, entry, a, b);
+			if (stored != null) {
+				return stored;
+			}
+			int alpha = a;
 	        // The children-moves of the state are calculated
 			ArrayList<Board> children = new ArrayList<Board>(board.getChildren(Constants.P1));
+			orderStoredMoveFirst(children, entry);
 			Move maxMove = new Move(Integer.MIN_VALUE);
+			int searched = 0;
 			for (Board child : children) {
+				searched++;
 	            // And for each child min is called, on a lower depth.
 				Move move = minAlphaBeta(child, depth + 1, a, b);
 	            // The child-move with the greatest value is selected and returned by max.
-				if (move.getValue() >= maxMove.getValue()) {
-	                if ((move.getValue() == maxMove.getValue())) {
-	                    // If the heuristic has the same value, then we randomly choose one of the two moves.
-	                    if (r.nextInt(2) == 0) {
-	                        maxMove.setRow(child.getLastMove().getRow());
-	                        maxMove.setColumn(child.getLastMove().getColumn());
-	                        maxMove.setValue(move.getValue());
-	                    }
-	                }
-	                else {
-	                    maxMove.setRow(child.getLastMove().getRow());
-	                    maxMove.setColumn(child.getLastMove().getColumn());
-	                    maxMove.setValue(move.getValue());
-	                }
+	            // Unlike the plain MiniMax, the ties are not broken at random: the window of a later child
+	            // is narrowed by the earlier ones, so its equal value is only a bound, and it may be worse.
+				if (move.getValue() > maxMove.getValue()) {
+					maxMove.setRow(child.getLastMove().getRow());
+					maxMove.setColumn(child.getLastMove().getColumn());
+					maxMove.setValue(move.getValue());
 				}
 				
 				// Beta pruning.
 				if (maxMove.getValue() >= b) {
 					// System.out.println("Beta pruning: " + b);
+					statistics.betaCutoff(searched == 1);
+					storeTransposition(board, depth, TranspositionTable.LOWER_BOUND, maxMove);
 					return maxMove;
 				}
 				
 				// Update the a of the current max node.
 				a = (a > maxMove.getValue()) ? a : maxMove.getValue();
 			}
+			storeTransposition(board, depth, (maxMove.getValue() <= alpha) ? TranspositionTable.UPPER_BOUND : TranspositionTable.EXACT, maxMove);
 			return maxMove;
 		}
 
 	    // Min works similarly to max.
-		public Move minAlphaBeta(Board board, int depth, double a, double b) {
-	        Random r = new Random();
+		public Move minAlphaBeta(Board board, int depth, int a, int b) {
+			if (isTimeUp()) {
+				return new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), 0);
+			}
+			statistics.visitNode(depth);
 
-			if((board.checkForGameOver()) || (depth == maxDepth)) {
-				Move lastMove = new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), board.evaluate());
+			if (board.checkForGameOver()) {
+				statistics.visitLeaf();
+				Move lastMove = new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), evaluateLeaf(board));
 				return lastMove;
 			}
+			if (depth >= maxDepth) {
+				return forcingSearch(board, depth, a, b, Constants.P2);
+			}
+			long entry = probeTransposition(board);
+			Move stored = storedValue(board, depth, entry, a, b);
+			if (stored != null) {
+				return stored;
+			}
+			int beta = b;
 			ArrayList<Board> children = new ArrayList<Board>(board.getChildren(Constants.P2));
+			orderStoredMoveFirst(children, entry);
 			Move minMove = new Move(Integer.MAX_VALUE);
+			int searched = 0;
 			for (Board child : children) {
+				searched++;
 				Move move = maxAlphaBeta(child, depth + 1, a, b);
-				if(move.getValue() <= minMove.getValue()) {
-	                if ((move.getValue() == minMove.getValue())) {
-	                    if (r.nextInt(2) == 0) {
-	                        minMove.setRow(child.getLastMove().getRow());
-	                        minMove.setColumn(child.getLastMove().getColumn());
-	                        minMove.setValue(move.getValue());
-	                    }
-	                }
-	                else {
-	                        minMove.setRow(child.getLastMove().getRow());
-	                        minMove.setColumn(child.getLastMove().getColumn());
-	                        minMove.setValue(move.getValue());
-	                }
-	            }
+				if (move.getValue() < minMove.getValue()) {
+					minMove.setRow(child.getLastMove().getRow());
+					minMove.setColumn(child.getLastMove().getColumn());
+					minMove.setValue(move.getValue());
+				}
 				
 				// Alpha pruning
 				if (minMove.getValue() <= a) {
 					// System.out.println("Alpha pruning: " + a);
+					statistics.alphaCutoff(searched == 1);
+					storeTransposition(board, depth, TranspositionTable.UPPER_BOUND, minMove);
 					return minMove;
 				}
 				
 	            // Update the b of the current min node.
 				b = (b < minMove.getValue()) ? b : minMove.getValue();
 	        }
+			storeTransposition(board, depth, (minMove.getValue() >= beta) ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT, minMove);
 	        return minMove;
 		}
-		
+
+
+		/*
+		 * Past the maximum depth, it searches on only the forcing moves of the player to move, so that the tactics
+		 * at the horizon are not missed: an immediate win, the block of an immediate win of the opponent,
+		 * which is the only move that does not lose, and the moves that make two threats at once,
+		 * of which the opponent can only block one. Unless it must block, the player may also stop,
+		 * with the value of the evaluator. No path goes more than "threatExtensionPlies" past the maximum depth.
+		 */
+		private Move forcingSearch(Board board, int depth, int a, int b, int player) {
+			int opponent = (player == Constants.P1) ? Constants.P2 : Constants.P1;
+			if (depth - maxDepth < threatExtensionPlies) {
+				int win = board.findWinningMove(player);
+				if (win >= 0) {
+					return searchForcingMove(board, win, depth, a, b, player);
+				}
+				// If the opponent has two threats, blocking one of them loses all the same.
+				int block = board.findWinningMove(opponent);
+				if (block >= 0) {
+					return searchForcingMove(board, block, depth, a, b, player);
+				}
+			}
+
+			statistics.visitLeaf();
+			Move bestMove = new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), evaluateLeaf(board));
+			if (depth - maxDepth >= threatExtensionPlies || isCutoff(bestMove, a, b, player)) {
+				return bestMove;
+			}
+			long doubleThreats = board.findDoubleThreatMoves(player);
+			for (int col=0; col<board.getGeometry().getNumOfColumns() && !isCutoff(bestMove, a, b, player); col++) {
+				if ((doubleThreats & (1L << col)) == 0) {
+					continue;
+				}
+				int value = searchForcingMove(board, col, depth, a, b, player).getValue();
+				if (player == Constants.P1 && value > bestMove.getValue()) {
+					bestMove.setValue(value);
+					a = Math.max(a, value);
+				} else if (player == Constants.P2 && value < bestMove.getValue()) {
+					bestMove.setValue(value);
+					b = Math.min(b, value);
+				}
+			}
+			return bestMove;
+		}
+
+
+		// It checks whether the value is good enough for the player to stop searching the node.
+		private static boolean isCutoff(Move move, int a, int b, int player) {
+			return (player == Constants.P1) ? move.getValue() >= b : move.getValue() <= a;
+		}
+
+
+		// The value of the forcing move, as the value of the position before it, like the leaves.
+		private Move searchForcingMove(Board board, int col, int depth, int a, int b, int player) {
+			Board child = new Board(board);
+			child.makeMove(col, player);
+			Move move = (player == Constants.P1) ? minAlphaBeta(child, depth + 1, a, b) : maxAlphaBeta(child, depth + 1, a, b);
+			return new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), move.getValue());
+		}
+
 }
@@ -0,0 +1,13 @@
+package connect4;
+
+
+import java.util.List;
+
+
+// It receives the progress of an iterative multi-PV search.
+public interface MultiPvListener {
+
+	// It gets called after every completed iteration, with the moves best first and a snapshot of the statistics so far.
+	void iterationCompleted(List<PrincipalVariation> variations, SearchStatistics statistics);
+
+}
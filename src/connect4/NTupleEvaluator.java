@@ -0,0 +1,446 @@
+package connect4;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.CRC32;
+
+import utility.Constants;
+
+
+/*
+ * A learned evaluator: an n-tuple network. A tuple is a set of cells, e.g. 6 connected cells of a random walk,
+ * and every tuple has a table with a weight for every pattern of its cells, indexed in base 3:
+ * 0 for empty, 1 for Player 1, 2 for Player 2. The value of a position is the sum of the weights
+ * of the patterns of all the tuples, and of their mirror images, which share the tables of the tuples.
+ * The weights are learned by temporal-difference learning (see "tools.NTupleTrainer"),
+ * so that tanh(sum) predicts the result of the game: 1 if Player 1 wins, -1 if Player 2 wins.
+ *
+ * The boards of a search carry an accumulator with the index of every tuple, which is updated with every move,
+ * so a leaf is evaluated with a lookup per tuple.
+ * The boards of other geometries are evaluated by the fallback evaluator.
+ *
+ * The weights are kept in a binary file, which is memory-mapped, so the engine starts at once and
+ * the processes that use the same file share its pages. File layout, big-endian:
+ *   "C4NT" and the version (an int each),
+ *   the number of columns, of rows, of checkers in a row and of cells of a tuple (a byte each),
+ *   the number of tuples (an int), the bit index of every cell of every tuple (a short each),
+ *   then the weights, a float for every pattern of every tuple, from the first multiple of 4 bytes.
+ */
+public class NTupleEvaluator implements Evaluator {
+
+	static final int MAGIC = 0x43344E54;  // "C4NT"
+	static final int VERSION = 1;
+
+	// A won position is worth more than any sum of weights.
+	public static final int WIN_SCORE = 1000000;
+
+	// The sum of the weights is multiplied by this, to make an integer value.
+	static final int SCALE = 10000;
+
+	private final Geometry geometry;
+	private final int tupleLength;
+	// The bit indices of the cells of every tuple.
+	private final int[][] tuples;
+	// The entries of the table of every tuple: 3^tupleLength.
+	private final int tableSize;
+	private final FloatBuffer weights;
+	private final Evaluator fallback;
+
+	// For every bit index, the tuple instances that contain it (2 per tuple: the tuple and its mirror image),
+	// and the power of 3 of the cell in each of them.
+	private final int[][] instancesOfCell;
+	private final int[][] powersOfCell;
+
+
+	// The indices of the tuple instances of a board, kept up to date with its checkers.
+	private final class Indices implements Accumulator {
+		final int[] indices;
+
+		Indices(int[] indices) {
+			this.indices = indices;
+		}
+
+		NTupleEvaluator owner() {
+			return NTupleEvaluator.this;
+		}
+
+		@Override
+		public void update(int bitIndex, int player, boolean added) {
+			int[] instances = instancesOfCell[bitIndex];
+			int[] powers = powersOfCell[bitIndex];
+			// The digit of a player is its number: 1 or 2.
+			int sign = added ? player : -player;
+			for (int i=0; i<instances.length; i++) {
+				indices[instances[i]] += sign * powers[i];
+			}
+		}
+
+		@Override
+		public Accumulator copy() {
+			return new Indices(indices.clone());
+		}
+	}
+
+
+	// A network of random tuples, with all the weights 0, e.g. to be trained.
+	public NTupleEvaluator(Geometry geometry, int numOfTuples, int tupleLength, long seed) {
+		this(geometry, randomTuples(geometry, numOfTuples, tupleLength, seed), tupleLength, null, new WindowEvaluator());
+	}
+
+
+	private NTupleEvaluator(Geometry geometry, int[][] tuples, int tupleLength, FloatBuffer weights, Evaluator fallback) {
+		if (Math.pow(3, tupleLength) > WindowEvaluator.MAX_TABLE_SIZE) {
+			throw new IllegalArgumentException("The tuples are too long: " + tupleLength + " cells.");
+		}
+		this.geometry = geometry;
+		this.tupleLength = tupleLength;
+		this.tuples = tuples;
+		this.tableSize = (int) Math.pow(3, tupleLength);
+		this.weights = (weights != null) ? weights : FloatBuffer.allocate(tuples.length * tableSize);
+		this.fallback = fallback;
+
+		// The instance "2 * t" is the tuple t, and "2 * t + 1" is its mirror image.
+		int numOfBits = geometry.getNumOfColumns() * geometry.getColumnHeight();
+		List<List<int[]>> occurrences = new ArrayList<>();
+		for (int i=0; i<numOfBits; i++) {
+			occurrences.add(new ArrayList<>());
+		}
+		for (int t=0; t<tuples.length; t++) {
+			int power = 1;
+			for (int m=0; m<tupleLength; m++) {
+				occurrences.get(tuples[t][m]).add(new int[] { 2 * t, power });
+				occurrences.get(mirror(tuples[t][m])).add(new int[] { 2 * t + 1, power });
+				power *= 3;
+			}
+		}
+		instancesOfCell = new int[numOfBits][];
+		powersOfCell = new int[numOfBits][];
+		for (int i=0; i<numOfBits; i++) {
+			instancesOfCell[i] = new int[occurrences.get(i).size()];
+			powersOfCell[i] = new int[occurrences.get(i).size()];
+			for (int j=0; j<instancesOfCell[i].length; j++) {
+				instancesOfCell[i][j] = occurrences.get(i).get(j)[0];
+				powersOfCell[i][j] = occurrences.get(i).get(j)[1];
+			}
+		}
+	}
+
+
+	// Random walks of connected cells, horizontally, vertically or diagonally, without repeated cells.
+	static int[][] randomTuples(Geometry geometry, int numOfTuples, int tupleLength, long seed) {
+		if (tupleLength < 1 || tupleLength > geometry.getNumOfCells()) {
+			throw new IllegalArgumentException("Invalid length of the tuples: " + tupleLength + ".");
+		}
+		SplittableRandom random = new SplittableRandom(seed);
+		int[][] tuples = new int[numOfTuples][];
+		int t = 0;
+		while (t < numOfTuples) {
+			int[] rows = new int[tupleLength];
+			int[] columns = new int[tupleLength];
+			rows[0] = random.nextInt(geometry.getNumOfRows());
+			columns[0] = random.nextInt(geometry.getNumOfColumns());
+			int length = 1;
+			// A walk that gets stuck starts again.
+			for (int attempts=0; length<tupleLength && attempts<100; attempts++) {
+				int row = rows[length - 1] + random.nextInt(3) - 1;
+				int col = columns[length - 1] + random.nextInt(3) - 1;
+				if (row < 0 || row >= geometry.getNumOfRows() || col < 0 || col >= geometry.getNumOfColumns()) {
+					continue;
+				}
+				boolean repeated = false;
+				for (int m=0; m<length; m++) {
+					repeated |= (rows[m] == row && columns[m] == col);
+				}
+				if (!repeated) {
+					rows[length] = row;
+					columns[length] = col;
+					length++;
+				}
+			}
+			if (length == tupleLength) {
+				tuples[t] = new int[tupleLength];
+				for (int m=0; m<tupleLength; m++) {
+					tuples[t][m] = geometry.bitIndex(rows[m], columns[m]);
+				}
+				t++;
+			}
+		}
+		return tuples;
+	}
+
+
+	// The bit index of the cell in the mirrored column.
+	private int mirror(int bitIndex) {
+		int col = bitIndex / geometry.getColumnHeight();
+		return bitIndex + (geometry.getNumOfColumns() - 1 - 2 * col) * geometry.getColumnHeight();
+	}
+
+
+	/*
+	 * It maps a weights file, written by "save()", for reading.
+	 * The boards of other geometries are evaluated by the fallback evaluator.
+	 */
+	public static NTupleEvaluator load(File file, Evaluator fallback) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+				throw new IOException("Not an n-tuple weights file: " + file + ".");
+			}
+			if (buffer.getInt() != VERSION) {
+				throw new IOException("Unsupported version of the n-tuple weights file " + file + ".");
+			}
+			int numOfColumns = buffer.get() & 0xFF;
+			int numOfRows = buffer.get() & 0xFF;
+			int inARow = buffer.get() & 0xFF;
+			int tupleLength = buffer.get() & 0xFF;
+			int numOfTuples = buffer.getInt();
+			Geometry geometry = new Geometry(numOfRows, numOfColumns, inARow);
+			long tableSize = (long) Math.pow(3, tupleLength);
+			long weightsOffset = alignedWeightsOffset(numOfTuples, tupleLength);
+			if (numOfTuples < 1 || tupleLength < 1 || tableSize > WindowEvaluator.MAX_TABLE_SIZE
+					|| buffer.capacity() != weightsOffset + 4 * numOfTuples * tableSize) {
+				throw new IOException("The n-tuple weights file " + file + " is corrupted.");
+			}
+			int numOfBits = numOfColumns * geometry.getColumnHeight();
+			int[][] tuples = new int[numOfTuples][tupleLength];
+			for (int t=0; t<numOfTuples; t++) {
+				for (int m=0; m<tupleLength; m++) {
+					tuples[t][m] = buffer.getShort();
+					if (tuples[t][m] < 0 || tuples[t][m] >= numOfBits) {
+						throw new IOException("The n-tuple weights file " + file + " is corrupted.");
+					}
+				}
+			}
+			buffer.position((int) weightsOffset);
+			return new NTupleEvaluator(geometry, tuples, tupleLength, buffer.slice().asFloatBuffer(), fallback);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("The n-tuple weights file " + file + " is corrupted: " + e.getMessage(), e);
+		}
+	}
+
+
+	/*
+	 * It returns the evaluator of the given weights file, or the fallback evaluator
+	 * if there is no such file or it cannot be read.
+	 */
+	public static Evaluator open(String fileName, Evaluator fallback) {
+		File file = new File(fileName);
+		if (!file.exists()) {
+			return fallback;
+		}
+		try {
+			return load(file, fallback);
+		} catch (IOException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			return fallback;
+		}
+	}
+
+
+	private static long alignedWeightsOffset(int numOfTuples, int tupleLength) {
+		long offset = 16 + 2L * numOfTuples * tupleLength;
+		return (offset + 3) & ~3L;
+	}
+
+
+	// A copy with its own weights in memory, e.g. to train further the weights of a file.
+	public NTupleEvaluator copy() {
+		FloatBuffer copy = FloatBuffer.allocate(weights.capacity());
+		for (int i=0; i<weights.capacity(); i++) {
+			copy.put(i, weights.get(i));
+		}
+		return new NTupleEvaluator(geometry, tuples, tupleLength, copy, fallback);
+	}
+
+
+	// It writes the tuples and the weights, e.g. after training.
+	// The geometry must fit in the bytes of the header, and the cells in the shorts of the tuples.
+	public void save(File file) throws IOException {
+		geometry.checkStoredDimensions();
+		for (int[] tuple : tuples) {
+			for (int cell : tuple) {
+				if (cell > Short.MAX_VALUE) {
+					throw new IllegalArgumentException("The board " + geometry + " is too large to be stored.");
+				}
+			}
+		}
+		long weightsOffset = alignedWeightsOffset(tuples.length, tupleLength);
+		ByteBuffer buffer = ByteBuffer.allocate((int) (weightsOffset + 4L * weights.capacity()));
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.put((byte) geometry.getNumOfColumns());
+		buffer.put((byte) geometry.getNumOfRows());
+		buffer.put((byte) geometry.getInARow());
+		buffer.put((byte) tupleLength);
+		buffer.putInt(tuples.length);
+		for (int[] tuple : tuples) {
+			for (int cell : tuple) {
+				buffer.putShort((short) cell);
+			}
+		}
+		buffer.position((int) weightsOffset);
+		for (int i=0; i<weights.capacity(); i++) {
+			buffer.putFloat(weights.get(i));
+		}
+		buffer.flip();
+		// The processes that map the old file keep their pages, since the new file replaces it instead of overwriting it.
+		File temporary = new File(file.getPath() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+
+	@Override
+	public void prepare(Board root) {
+		if (root.getGeometry().equals(geometry) && !isOwnAccumulator(root.getAccumulator())) {
+			root.setAccumulator(new Indices(computeIndices(root)));
+		}
+	}
+
+
+	@Override
+	public int evaluate(Board board) {
+		if (!board.getGeometry().equals(geometry)) {
+			return fallback.evaluate(board);
+		}
+		if (board.checkWinState()) {
+			return (board.getWinner() == Constants.P1) ? WIN_SCORE : -WIN_SCORE;
+		}
+		if (board.checkForDraw()) {
+			return 0;
+		}
+		long value = Math.round(sum(indicesOf(board)) * SCALE);
+		return (int) Math.max(-WIN_SCORE + 1, Math.min(WIN_SCORE - 1, value));
+	}
+
+
+	// The prediction of the result of the game, from -1 (Player 2 wins) to 1 (Player 1 wins).
+	public double predict(Board board) {
+		if (board.checkWinState()) {
+			return (board.getWinner() == Constants.P1) ? 1 : -1;
+		}
+		if (board.checkForDraw()) {
+			return 0;
+		}
+		return Math.tanh(sum(indicesOf(board)));
+	}
+
+
+	/*
+	 * A step of temporal-difference learning: it moves the prediction of the position towards the target,
+	 * e.g. the prediction of the next position, or the result at the end of the game.
+	 * Several threads may learn at once: their updates of the same weight may be lost, which the learning tolerates.
+	 */
+	public void learn(Board board, double target, double learningRate) {
+		int[] indices = indicesOf(board);
+		double prediction = Math.tanh(sum(indices));
+		// The gradient of tanh.
+		float delta = (float) (learningRate * (target - prediction) * (1 - prediction * prediction));
+		for (int i=0; i<indices.length; i++) {
+			int offset = (i >> 1) * tableSize + indices[i];
+			weights.put(offset, weights.get(offset) + delta);
+		}
+	}
+
+
+	private float sum(int[] indices) {
+		float sum = 0;
+		for (int i=0; i<indices.length; i++) {
+			sum += weights.get((i >> 1) * tableSize + indices[i]);
+		}
+		return sum;
+	}
+
+
+	private boolean isOwnAccumulator(Accumulator accumulator) {
+		return accumulator instanceof NTupleEvaluator.Indices && ((Indices) accumulator).owner() == this;
+	}
+
+
+	private int[] indicesOf(Board board) {
+		Accumulator accumulator = board.getAccumulator();
+		return isOwnAccumulator(accumulator) ? ((Indices) accumulator).indices : computeIndices(board);
+	}
+
+
+	private int[] computeIndices(Board board) {
+		long[] player1Bits = board.getBits(Constants.P1);
+		long[] player2Bits = board.getBits(Constants.P2);
+		int[] indices = new int[2 * tuples.length];
+		for (int t=0; t<tuples.length; t++) {
+			int power = 1;
+			for (int m=0; m<tupleLength; m++) {
+				indices[2 * t] += power * cellOf(player1Bits, player2Bits, tuples[t][m]);
+				indices[2 * t + 1] += power * cellOf(player1Bits, player2Bits, mirror(tuples[t][m]));
+				power *= 3;
+			}
+		}
+		return indices;
+	}
+
+
+	private static int cellOf(long[] player1Bits, long[] player2Bits, int index) {
+		if ((player1Bits[index >>> 6] & (1L << index)) != 0) {
+			return Constants.P1;
+		}
+		return ((player2Bits[index >>> 6] & (1L << index)) != 0) ? Constants.P2 : Constants.EMPTY;
+	}
+
+
+	public Geometry getGeometry() {
+		return geometry;
+	}
+
+
+	public int getNumOfTuples() {
+		return tuples.length;
+	}
+
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof NTupleEvaluator)) {
+			return false;
+		}
+		NTupleEvaluator other = (NTupleEvaluator) o;
+		return geometry.equals(other.geometry) && Arrays.deepEquals(tuples, other.tuples) && weights.equals(other.weights);
+	}
+
+
+	// A checksum of the tuples and the weights, e.g. the evaluation id of a transposition table.
+	@Override
+	public int hashCode() {
+		CRC32 crc = new CRC32();
+		for (int[] tuple : tuples) {
+			for (int cell : tuple) {
+				crc.update(cell);
+			}
+		}
+		for (int i=0; i<weights.capacity(); i++) {
+			int bits = Float.floatToIntBits(weights.get(i));
+			crc.update(bits);
+			crc.update(bits >>> 8);
+			crc.update(bits >>> 16);
+			crc.update(bits >>> 24);
+		}
+		return (int) crc.getValue() ^ geometry.hashCode();
+	}
+
+}
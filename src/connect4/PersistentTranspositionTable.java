@@ -0,0 +1,317 @@
+package connect4;
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+
+/*
+ * A transposition table stored in a memory-mapped file, so that the searched positions
+ * are kept from one run of the program to the next.
+ * The entries are read and written like the ones of "MemoryTranspositionTable", without locks,
+ * so several processes can share the same file: a torn entry does not match its key and is ignored.
+ * Only the opening and the creation of the file are done under a lock, taken on the file with the ".lock" suffix.
+ * A new file is written aside and then renamed over the old one, so the processes that map the old file
+ * keep their pages, and a crash leaves the old file.
+ * On Windows, a mapped file cannot be replaced: while another process maps the old file,
+ * the new table is kept in a temporary file, which is deleted on "close()" (see "isTemporary()").
+ *
+ * The operating system writes the changed pages to the disk in the background.
+ * They are also forced to the disk every "FORCE_INTERVAL_MILLIS" and on "close()".
+ * The size of an existing file is kept. To change it, the file must be deleted.
+ *
+ * The stored scores depend on the evaluation, so the table is cleared when it is opened with another evaluation id.
+ *
+ * File layout: a header of 64 bytes ("C4TT", the version, the number of entries, the evaluation id),
+ * then the entries, 16 bytes each: the key xored with the entry, and the entry.
+ */
+public class PersistentTranspositionTable implements TranspositionTable, Closeable {
+
+	static final int MAGIC = 0x43345454;  // "C4TT"
+	// The version changes with the scores of the evaluation, since the stored scores are then wrong.
+	static final int VERSION = 2;
+	static final int HEADER_SIZE = 64;
+
+	// The largest table that fits in a single mapping.
+	static final int MAX_MEGABYTES = 1024;
+
+	static final long FORCE_INTERVAL_MILLIS = 10000;
+
+	static final String LOCK_SUFFIX = ".lock";
+
+	// The file key of a path that names no file.
+	private static final Object MISSING_FILE = new Object();
+
+	private final FileChannel channel;
+	// The file of a table that could not replace the old one, or null.
+	private final Path temporaryFile;
+	private final MappedByteBuffer buffer;
+	private final int mask;
+	private final int evaluationId;
+
+	private int storesSinceForce;
+	private long lastForceTime;
+
+
+	public PersistentTranspositionTable(File file, int megabytes) throws IOException {
+		this(file, megabytes, 0);
+	}
+
+
+	// The evaluation id tells the evaluations apart, e.g. the hash code of the weights of the evaluator.
+	public PersistentTranspositionTable(File file, int megabytes, int evaluationId) throws IOException {
+		this.evaluationId = evaluationId;
+		if (megabytes < 1 || megabytes > MAX_MEGABYTES) {
+			throw new IllegalArgumentException("The size must be from 1 to " + MAX_MEGABYTES + " MB.");
+		}
+		Path path = file.getAbsoluteFile().toPath();
+		Path temporary = null;
+		FileChannel opened;
+		long numOfEntries;
+		// The table itself may be replaced, so its lock is taken on another file, which never is.
+		try (FileChannel lockChannel = FileChannel.open(Paths.get(path + LOCK_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			FileLock lock = lockChannel.lock();
+			try {
+				opened = openCurrent(path);
+				try {
+					numOfEntries = readHeader(opened);
+					if (numOfEntries == 0) {
+						numOfEntries = MemoryTranspositionTable.numOfEntries(megabytes);
+						Path created = create(path, numOfEntries);
+						opened.close();
+						if (replace(created, path)) {
+							opened = openCurrent(path);
+						} else {
+							temporary = created;
+							opened = FileChannel.open(created, StandardOpenOption.READ, StandardOpenOption.WRITE);
+						}
+					}
+				} catch (IOException | RuntimeException e) {
+					opened.close();
+					throw e;
+				}
+			} finally {
+				lock.release();
+			}
+		}
+		try {
+			buffer = opened.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + numOfEntries * MemoryTranspositionTable.ENTRY_SIZE);
+		} catch (IOException | RuntimeException e) {
+			opened.close();
+			if (temporary != null) {
+				Files.deleteIfExists(temporary);
+			}
+			throw e;
+		}
+		channel = opened;
+		temporaryFile = temporary;
+		mask = (int) numOfEntries - 1;
+		lastForceTime = System.currentTimeMillis();
+	}
+
+
+	/*
+	 * The channel of the file that the path names now. A process that does not take the lock file
+	 * could rename a new table over it meanwhile, so it is opened again until the path names the same file
+	 * before and after. Where the file system has no file keys (Windows), the first channel is kept.
+	 */
+	private static FileChannel openCurrent(Path path) throws IOException {
+		for (int attempt=0; attempt<10; attempt++) {
+			Object before = fileKey(path);
+			FileChannel opened = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			if (before != MISSING_FILE && Objects.equals(before, fileKey(path))) {
+				return opened;
+			}
+			opened.close();
+		}
+		throw new IOException("The file keeps being replaced.");
+	}
+
+
+	private static Object fileKey(Path path) throws IOException {
+		try {
+			return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+		} catch (NoSuchFileException e) {
+			return MISSING_FILE;
+		}
+	}
+
+
+	// It writes a new table beside the file, with the header first and the entries filled with zeros.
+	private Path create(Path path, long numOfEntries) throws IOException {
+		Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+		try (FileChannel created = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+			writeHeader(created, numOfEntries);
+			created.write(ByteBuffer.allocate(1), HEADER_SIZE + numOfEntries * MemoryTranspositionTable.ENTRY_SIZE - 1);
+			created.force(true);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+		return temporary;
+	}
+
+
+	/*
+	 * It renames the new table over the file. On Windows, a file that another process maps cannot be replaced,
+	 * so it returns false and the new table stays in its temporary file.
+	 */
+	private static boolean replace(Path created, Path path) throws IOException {
+		try {
+			Files.move(created, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (FileSystemException e) {
+			System.err.println("The transposition table \"" + path + "\" is used by another process, "
+					+ "so the positions of this run are not kept.");
+			return false;
+		}
+	}
+
+
+	/*
+	 * It opens the table of the given file, which is closed when the program exits.
+	 * If the file cannot be used, e.g. it is read-only, it returns a table in memory instead.
+	 */
+	public static TranspositionTable open(String fileName, int megabytes) {
+		return open(fileName, megabytes, 0);
+	}
+
+
+	public static TranspositionTable open(String fileName, int megabytes, int evaluationId) {
+		try {
+			PersistentTranspositionTable table = new PersistentTranspositionTable(new File(fileName), megabytes, evaluationId);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					table.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}));
+			return table;
+		} catch (IOException | RuntimeException e) {
+			System.err.println("ERROR : the transposition table \"" + fileName + "\" cannot be used: " + e.getMessage());
+			return new MemoryTranspositionTable(Math.min(megabytes, MAX_MEGABYTES));
+		}
+	}
+
+
+	// It returns the number of entries of the file, or 0 if the file is empty,
+	// or written by another version or evaluation, so that it is created again.
+	private long readHeader(FileChannel channel) throws IOException {
+		if (channel.size() == 0) {
+			return 0;
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		channel.read(header, 0);
+		header.flip();
+		if (header.remaining() < 20 || header.getInt(0) != MAGIC) {
+			throw new IOException("Not a transposition table file.");
+		}
+		if (header.getInt(4) != VERSION) {
+			System.err.println("The transposition table of version " + header.getInt(4) + " is cleared.");
+			return 0;
+		}
+		if (header.getInt(16) != evaluationId) {
+			System.err.println("The transposition table of another evaluation is cleared.");
+			return 0;
+		}
+		long numOfEntries = header.getLong(8);
+		if (Long.bitCount(numOfEntries) != 1 || numOfEntries > MemoryTranspositionTable.numOfEntries(MAX_MEGABYTES)
+				|| channel.size() < HEADER_SIZE + numOfEntries * MemoryTranspositionTable.ENTRY_SIZE) {
+			throw new IOException("The transposition table file is corrupted.");
+		}
+		return numOfEntries;
+	}
+
+
+	private void writeHeader(FileChannel channel, long numOfEntries) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(0, MAGIC);
+		header.putInt(4, VERSION);
+		header.putLong(8, numOfEntries);
+		header.putInt(16, evaluationId);
+		channel.write(header, 0);
+	}
+
+
+	@Override
+	public long probe(long key) {
+		int offset = offset(key);
+		long entry = buffer.getLong(offset + 8);
+		return ((buffer.getLong(offset) ^ entry) == key) ? entry : 0;
+	}
+
+
+	@Override
+	public void store(long key, int draft, int bound, int score, int column) {
+		int offset = offset(key);
+		long old = buffer.getLong(offset + 8);
+		if ((buffer.getLong(offset) ^ old) == key && old != 0 && TranspositionTable.getDraft(old) > draft) {
+			return;
+		}
+		long entry = TranspositionTable.pack(draft, bound, score, column);
+		buffer.putLong(offset + 8, entry);
+		buffer.putLong(offset, key ^ entry);
+
+		// The clock is only read every few thousand stores.
+		if (++storesSinceForce >= 4096) {
+			storesSinceForce = 0;
+			if (System.currentTimeMillis() - lastForceTime >= FORCE_INTERVAL_MILLIS) {
+				flush();
+			}
+		}
+	}
+
+
+	private int offset(long key) {
+		return HEADER_SIZE + ((int) key & mask) * MemoryTranspositionTable.ENTRY_SIZE;
+	}
+
+
+	// It writes the changed entries to the disk.
+	public void flush() {
+		buffer.force();
+		lastForceTime = System.currentTimeMillis();
+	}
+
+
+	public int getNumOfEntries() {
+		return mask + 1;
+	}
+
+
+	// True if the table is not kept after "close()", since the old file could not be replaced.
+	public boolean isTemporary() {
+		return temporaryFile != null;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		flush();
+		channel.close();
+		if (temporaryFile != null) {
+			try {
+				Files.deleteIfExists(temporaryFile);
+			} catch (IOException e) {
+				// Windows keeps a mapped file until the mapping is collected.
+				temporaryFile.toFile().deleteOnExit();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package connect4;
+
+
+import java.util.Arrays;
+
+
+/*
+ * A root move of a multi-PV search, with its score and the line of best play that follows it.
+ * The score is from the point of view of Player 1, like the values of "Move".
+ * A move outside of the best moves may only have a bound: its real score is at most as good as the given one.
+ */
+public class PrincipalVariation {
+
+	private final int[] columns;
+	private final int score;
+	private final boolean exact;
+
+
+	public PrincipalVariation(int[] columns, int score, boolean exact) {
+		this.columns = columns.clone();
+		this.score = score;
+		this.exact = exact;
+	}
+
+
+	// The root move.
+	public int getColumn() {
+		return columns[0];
+	}
+
+
+	public int getScore() {
+		return score;
+	}
+
+
+	public boolean isExact() {
+		return exact;
+	}
+
+
+	// The columns of the line, starting with the root move.
+	public int[] getColumns() {
+		return columns.clone();
+	}
+
+
+	// e.g. "4 5 4 3: 12"
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		for (int col : columns) {
+			text.append(col + 1).append(' ');
+		}
+		return text.toString().trim() + ": " + (exact ? "" : "bound ") + score;
+	}
+
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof PrincipalVariation)) {
+			return false;
+		}
+		PrincipalVariation other = (PrincipalVariation) o;
+		return score == other.score && exact == other.exact && Arrays.equals(columns, other.columns);
+	}
+
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * Arrays.hashCode(columns) + score) + (exact ? 1 : 0);
+	}
+
+}
@@ -0,0 +1,297 @@
+package connect4;
+
+
+import java.util.List;
+
+import utility.Constants;
+
+
+/*
+ * Depth-first proof-number search (df-pn).
+ * It proves the game-theoretic value of a position, without any heuristic evaluation:
+ * a win or a loss for the player to move, or a draw.
+ * Two proofs are made: first if the player to move can force a win, and if not,
+ * if the opponent can force a win. If neither can, the position is a draw.
+ *
+ * Every node has a proof number (how many leaves must still be proven to prove it)
+ * and a disproof number. The search always expands the most proving node,
+ * so in lopsided trees it proves the result after a small part of the nodes alpha-beta would need.
+ * The numbers are kept in a transposition table of fixed size, so the memory use is capped:
+ * when the table is full, older entries are overwritten and recomputed if needed.
+ */
+public class ProofNumberSolver {
+
+	// The value of a position for the player to move.
+	public enum Outcome {
+		WIN, LOSS, DRAW, UNKNOWN
+	}
+
+	// The result of a solve.
+	public static class Result {
+		private final Outcome outcome;
+		private final int proofColumn;
+		private final long nodes;
+		private final long elapsedMillis;
+
+		Result(Outcome outcome, int proofColumn, long nodes, long elapsedMillis) {
+			this.outcome = outcome;
+			this.proofColumn = proofColumn;
+			this.nodes = nodes;
+			this.elapsedMillis = elapsedMillis;
+		}
+
+		public Outcome getOutcome() {
+			return outcome;
+		}
+
+		/*
+		 * The column that achieves the outcome: the winning move for a win,
+		 * a move that holds the draw for a draw. For a loss every move loses, and it is any of them.
+		 * It is -1 when the position is over or unknown.
+		 */
+		public int getProofColumn() {
+			return proofColumn;
+		}
+
+		public long getNodes() {
+			return nodes;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+
+		@Override
+		public String toString() {
+			String text = outcome.toString();
+			if (proofColumn >= 0) {
+				text += ", proof move " + (proofColumn + 1);
+			}
+			return text + " (" + nodes + " nodes, " + elapsedMillis + " ms)";
+		}
+	}
+
+	// Proof and disproof numbers at or above this value are infinite.
+	private static final int INFINITY = 100000000;
+
+	// The size of an entry of the transposition table, in bytes.
+	private static final int ENTRY_SIZE = 16;
+
+	// It is xored into the hash keys when Player 2 is the attacker, so the two proofs do not share entries.
+	private static final long ATTACKER_KEY = 0x9E3779B97F4A7C15L;
+
+	// The transposition table. The numbers are stored from the point of view of the player to move:
+	// "phi" is the proof number if the attacker is to move, else the disproof number, and "delta" the other one.
+	private final long[] keys;
+	private final int[] phis;
+	private final int[] deltas;
+	private final int mask;
+
+	// The search gives up after this many nodes.
+	private final long maxNodes;
+
+	private long nodes;
+
+	// The player who tries to win in the current proof.
+	private int attacker;
+
+
+	public ProofNumberSolver() {
+		this(64, 100000000L);
+	}
+
+
+	// The transposition table takes at most "memoryMegabytes" MB.
+	public ProofNumberSolver(int memoryMegabytes, long maxNodes) {
+		long entries = Long.highestOneBit(Math.max(1L, (long) memoryMegabytes * 1024 * 1024 / ENTRY_SIZE));
+		entries = Math.min(entries, 1L << 30);
+		this.keys = new long[(int) entries];
+		this.phis = new int[(int) entries];
+		this.deltas = new int[(int) entries];
+		this.mask = (int) entries - 1;
+		this.maxNodes = maxNodes;
+	}
+
+
+	public Result solve(Board board) {
+		long start = System.currentTimeMillis();
+		nodes = 0;
+
+		if (board.checkForGameOver()) {
+			Outcome outcome = (board.getWinner() == Constants.EMPTY) ? Outcome.DRAW : Outcome.LOSS;
+			return new Result(outcome, -1, 0, System.currentTimeMillis() - start);
+		}
+
+		int mover = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+		int opponent = (mover == Constants.P1) ? Constants.P2 : Constants.P1;
+
+		Outcome outcome;
+		int proofColumn;
+		if (prove(board, mover)) {
+			outcome = Outcome.WIN;
+			// The proof move leads to a child where the opponent cannot stop the win.
+			proofColumn = findSolvedChild(board);
+		} else if (nodes >= maxNodes) {
+			outcome = Outcome.UNKNOWN;
+			proofColumn = -1;
+		} else if (prove(board, opponent)) {
+			outcome = Outcome.LOSS;
+			proofColumn = board.getChildren(mover).get(0).getLastMove().getColumn();
+		} else if (nodes >= maxNodes) {
+			outcome = Outcome.UNKNOWN;
+			proofColumn = -1;
+		} else {
+			outcome = Outcome.DRAW;
+			// The drawing move leads to a child where the opponent's win is disproven.
+			proofColumn = findSolvedChild(board);
+		}
+		return new Result(outcome, proofColumn, nodes, System.currentTimeMillis() - start);
+	}
+
+
+	// It returns true if the attacker can force a win, false if it cannot or if the node limit is reached.
+	private boolean prove(Board board, int attacker) {
+		this.attacker = attacker;
+		int[] numbers = new int[2];
+		mid(board, INFINITY, INFINITY, numbers);
+		return numbers[0] == 0 && isAttackerToMove(board) || numbers[1] == 0 && !isAttackerToMove(board);
+	}
+
+
+	/*
+	 * After a solve, the column of the first child whose "delta" is 0, i.e. where the player to move
+	 * cannot achieve its goal. The child's "delta" is 0 exactly when the root's "phi" is.
+	 */
+	private int findSolvedChild(Board board) {
+		int[] numbers = new int[2];
+		for (Board child : board.getChildren(nextPlayer(board))) {
+			if (!evaluateTerminal(child, numbers) && !lookup(child, numbers)) {
+				// The entry has been overwritten: the child is searched again.
+				mid(child, INFINITY, INFINITY, numbers);
+			}
+			if (numbers[1] == 0) {
+				return child.getLastMove().getColumn();
+			}
+		}
+		return -1;
+	}
+
+
+	/*
+	 * The recursive search of df-pn. It expands the node until its "phi" or "delta"
+	 * reaches the threshold, and returns both numbers in "numbers".
+	 */
+	private void mid(Board board, int thresholdPhi, int thresholdDelta, int[] numbers) {
+		nodes++;
+		if (evaluateTerminal(board, numbers)) {
+			return;
+		}
+
+		List<Board> children = board.getChildren(nextPlayer(board));
+		// The numbers of the children. They are kept here too, since the table may lose their entries.
+		int[][] childNumbers = new int[children.size()][2];
+		for (int i=0; i<children.size(); i++) {
+			if (!evaluateTerminal(children.get(i), childNumbers[i]) && !lookup(children.get(i), childNumbers[i])) {
+				childNumbers[i][0] = 1;
+				childNumbers[i][1] = 1;
+			}
+		}
+
+		while (true) {
+			// phi is the minimum "delta" of the children, delta is the sum of their "phi".
+			int phi = INFINITY;
+			int delta = 0;
+			int deltaBest = INFINITY;
+			int deltaSecond = INFINITY;
+			int best = 0;
+			for (int i=0; i<children.size(); i++) {
+				// Transpositions may have changed the numbers since the last iteration.
+				lookup(children.get(i), childNumbers[i]);
+				phi = Math.min(phi, childNumbers[i][1]);
+				delta = Math.min(INFINITY, delta + childNumbers[i][0]);
+				if (childNumbers[i][1] < deltaBest) {
+					deltaSecond = deltaBest;
+					deltaBest = childNumbers[i][1];
+					best = i;
+				} else if (childNumbers[i][1] < deltaSecond) {
+					deltaSecond = childNumbers[i][1];
+				}
+			}
+
+			if (phi >= thresholdPhi || delta >= thresholdDelta || nodes >= maxNodes) {
+				store(board, phi, delta);
+				numbers[0] = phi;
+				numbers[1] = delta;
+				return;
+			}
+
+			int childThresholdPhi = thresholdDelta + childNumbers[best][0] - delta;
+			int childThresholdDelta = Math.min(thresholdPhi, (int) Math.min(INFINITY, deltaSecond + deltaSecond / 4L + 1));
+			mid(children.get(best), childThresholdPhi, childThresholdDelta, childNumbers[best]);
+		}
+	}
+
+
+	/*
+	 * If the game is over, it sets the numbers of the node and returns true.
+	 * The player to move has achieved its goal when "phi" is 0: the attacker has won,
+	 * or the defender has stopped the attacker with a win or a draw.
+	 */
+	private boolean evaluateTerminal(Board board, int[] numbers) {
+		if (!board.checkForGameOver()) {
+			return false;
+		}
+		boolean attackerWon = (board.getWinner() == attacker);
+		if (attackerWon == isAttackerToMove(board)) {
+			numbers[0] = 0;
+			numbers[1] = INFINITY;
+		} else {
+			numbers[0] = INFINITY;
+			numbers[1] = 0;
+		}
+		return true;
+	}
+
+
+	private boolean lookup(Board board, int[] numbers) {
+		long key = hashKey(board);
+		int index = (int) key & mask;
+		if (keys[index] != key || (phis[index] == 0 && deltas[index] == 0)) {
+			return false;
+		}
+		numbers[0] = phis[index];
+		numbers[1] = deltas[index];
+		return true;
+	}
+
+
+	// It always replaces the old entry, except that proofs and disproofs are only replaced by other ones.
+	private void store(Board board, int phi, int delta) {
+		long key = hashKey(board);
+		int index = (int) key & mask;
+		boolean oldSolved = (phis[index] == 0 || deltas[index] == 0) && keys[index] != 0;
+		boolean newSolved = (phi == 0 || delta == 0);
+		if (oldSolved && !newSolved && keys[index] != key) {
+			return;
+		}
+		keys[index] = key;
+		phis[index] = phi;
+		deltas[index] = delta;
+	}
+
+
+	private long hashKey(Board board) {
+		return (attacker == Constants.P2) ? board.getHashKey() ^ ATTACKER_KEY : board.getHashKey();
+	}
+
+
+	private boolean isAttackerToMove(Board board) {
+		return nextPlayer(board) == attacker;
+	}
+
+
+	private static int nextPlayer(Board board) {
+		return (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+	}
+
+}
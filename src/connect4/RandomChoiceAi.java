@@ -21,9 +21,10 @@ public class RandomChoiceAi {
             Move lastMove = new Move(board.getLastMove().getRow(), board.getLastMove().getColumn(), board.evaluate());
             return lastMove;
         }
-        int col = r.nextInt(7);
+        int numOfColumns = board.getGeometry().getNumOfColumns();
+        int col = r.nextInt(numOfColumns);
         while (board.checkFullColumn(col)){
-            col = r.nextInt(7);
+            col = r.nextInt(numOfColumns);
         }
 
         int row = board.getEmptyRowPosition(col);
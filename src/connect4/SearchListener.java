@@ -0,0 +1,10 @@
+package connect4;
+
+
+// It receives the progress of an iterative deepening search.
+public interface SearchListener {
+
+	// It gets called after every completed iteration, with a snapshot of the statistics so far.
+	void iterationCompleted(Move bestMove, SearchStatistics statistics);
+
+}
@@ -0,0 +1,26 @@
+package connect4;
+
+
+// The move chosen by a search, along with the statistics of the search.
+public class SearchResult {
+
+	private final Move move;
+	private final SearchStatistics statistics;
+
+
+	public SearchResult(Move move, SearchStatistics statistics) {
+		this.move = move;
+		this.statistics = statistics;
+	}
+
+
+	public Move getMove() {
+		return move;
+	}
+
+
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+
+}
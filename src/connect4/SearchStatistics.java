@@ -0,0 +1,218 @@
+package connect4;
+
+
+/*
+ * Statistics about the work done by a search.
+ * The counters of an iterative deepening search add up over all the iterations.
+ */
+public class SearchStatistics {
+
+	private long nodes;
+	private long leaves;
+	private long betaCutoffs;
+	private long alphaCutoffs;
+	// Cutoffs caused by the first child that was searched.
+	private long firstMoveCutoffs;
+	private long transpositionProbes;
+	// Probes that made the search of the node unnecessary.
+	private long transpositionHits;
+	// The searches of the root: one per iteration with a full window, more with aspiration windows or MTD(f).
+	private long rootSearches;
+	private long evaluationProbes;
+	// Leaves whose value was in the evaluation cache.
+	private long evaluationHits;
+	// The depth of the last completed iteration.
+	private int depth;
+	private int maxDepthReached;
+	private long startTime;
+	private long elapsedNanos;
+
+
+	public SearchStatistics() {
+		startTime = System.nanoTime();
+	}
+
+
+	// copy constructor
+	public SearchStatistics(SearchStatistics statistics) {
+		this.nodes = statistics.nodes;
+		this.leaves = statistics.leaves;
+		this.betaCutoffs = statistics.betaCutoffs;
+		this.alphaCutoffs = statistics.alphaCutoffs;
+		this.firstMoveCutoffs = statistics.firstMoveCutoffs;
+		this.transpositionProbes = statistics.transpositionProbes;
+		this.transpositionHits = statistics.transpositionHits;
+		this.rootSearches = statistics.rootSearches;
+		this.evaluationProbes = statistics.evaluationProbes;
+		this.evaluationHits = statistics.evaluationHits;
+		this.depth = statistics.depth;
+		this.maxDepthReached = statistics.maxDepthReached;
+		this.startTime = statistics.startTime;
+		this.elapsedNanos = statistics.elapsedNanos;
+	}
+
+
+	void visitNode(int depth) {
+		nodes++;
+		if (depth > maxDepthReached) {
+			maxDepthReached = depth;
+		}
+	}
+
+
+	void visitLeaf() {
+		leaves++;
+	}
+
+
+	void betaCutoff(boolean firstMove) {
+		betaCutoffs++;
+		if (firstMove) {
+			firstMoveCutoffs++;
+		}
+	}
+
+
+	void alphaCutoff(boolean firstMove) {
+		alphaCutoffs++;
+		if (firstMove) {
+			firstMoveCutoffs++;
+		}
+	}
+
+
+	void transpositionProbe(boolean hit) {
+		transpositionProbes++;
+		if (hit) {
+			transpositionHits++;
+		}
+	}
+
+
+	void searchRoot() {
+		rootSearches++;
+	}
+
+
+	void evaluationProbe(boolean hit) {
+		evaluationProbes++;
+		if (hit) {
+			evaluationHits++;
+		}
+	}
+
+
+	// It is called at the end of every iteration and at the end of the search.
+	void finish(int depth) {
+		this.depth = depth;
+		this.elapsedNanos = System.nanoTime() - startTime;
+	}
+
+
+	public long getNodes() {
+		return nodes;
+	}
+
+
+	public long getLeaves() {
+		return leaves;
+	}
+
+
+	public long getBetaCutoffs() {
+		return betaCutoffs;
+	}
+
+
+	public long getAlphaCutoffs() {
+		return alphaCutoffs;
+	}
+
+
+	public long getCutoffs() {
+		return betaCutoffs + alphaCutoffs;
+	}
+
+
+	// The fraction of the cutoffs that happened at the first move. 1 means perfect move ordering.
+	public double getFirstMoveCutoffRate() {
+		long cutoffs = getCutoffs();
+		return (cutoffs == 0) ? 0 : (double) firstMoveCutoffs / cutoffs;
+	}
+
+
+	public long getTranspositionProbes() {
+		return transpositionProbes;
+	}
+
+
+	public long getTranspositionHits() {
+		return transpositionHits;
+	}
+
+
+	public long getRootSearches() {
+		return rootSearches;
+	}
+
+
+	public long getEvaluationProbes() {
+		return evaluationProbes;
+	}
+
+
+	public long getEvaluationHits() {
+		return evaluationHits;
+	}
+
+
+	// The fraction of the evaluated leaves whose value was in the evaluation cache.
+	public double getEvaluationHitRate() {
+		return (evaluationProbes == 0) ? 0 : (double) evaluationHits / evaluationProbes;
+	}
+
+
+	// The branching factor of a uniform tree of the same depth and number of nodes.
+	public double getEffectiveBranchingFactor() {
+		return (depth == 0) ? 0 : Math.pow(nodes, 1.0 / depth);
+	}
+
+
+	public int getDepth() {
+		return depth;
+	}
+
+
+	public int getMaxDepthReached() {
+		return maxDepthReached;
+	}
+
+
+	public long getElapsedMillis() {
+		return elapsedNanos / 1000000;
+	}
+
+
+	public long getNodesPerSecond() {
+		return (elapsedNanos == 0) ? 0 : nodes * 1000000000L / elapsedNanos;
+	}
+
+
+	@Override
+	public String toString() {
+		String text = String.format("depth %d (max %d), nodes %d, leaves %d, cutoffs %d (first move %.0f%%), EBF %.2f, %d ms, %d nodes/s",
+				depth, maxDepthReached, nodes, leaves, getCutoffs(), 100 * getFirstMoveCutoffRate(),
+				getEffectiveBranchingFactor(), getElapsedMillis(), getNodesPerSecond());
+		if (transpositionProbes > 0) {
+			text += String.format(", TT hits %d/%d", transpositionHits, transpositionProbes);
+		}
+		if (rootSearches > 0) {
+			text += ", root searches " + rootSearches;
+		}
+		if (evaluationProbes > 0) {
+			text += String.format(", eval cache hits %.0f%%", 100 * getEvaluationHitRate());
+		}
+		return text;
+	}
+
+}
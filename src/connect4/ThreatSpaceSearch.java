@@ -0,0 +1,181 @@
+package connect4;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import utility.Constants;
+
+
+/*
+ * Threat-space search: it looks for a forced win, expanding only forcing moves.
+ * A forcing move creates a threat, i.e. a cell where the attacker would win with the next move,
+ * that can be played right away. The defender then has a single reply, to block the threat,
+ * so the search tree stays narrow and forced wins of many plies are found in milliseconds.
+ * A move that creates two threats at once (e.g. an open three on a supported row) wins,
+ * since only one of them can be blocked.
+ * Threats that cannot be played yet (they need zugzwang) are not considered.
+ */
+public class ThreatSpaceSearch {
+
+	// The result of a search.
+	public static class Result {
+		private final boolean win;
+		private final List<Integer> sequence;
+		private final long nodes;
+		private final long elapsedMillis;
+
+		Result(boolean win, List<Integer> sequence, long nodes, long elapsedMillis) {
+			this.win = win;
+			this.sequence = sequence;
+			this.nodes = nodes;
+			this.elapsedMillis = elapsedMillis;
+		}
+
+		public boolean isWin() {
+			return win;
+		}
+
+		// The columns of the forced win, starting with the attacker's move and alternating with the forced replies.
+		public List<Integer> getSequence() {
+			return sequence;
+		}
+
+		public long getNodes() {
+			return nodes;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+
+		// The sequence as a move string, e.g. "4351".
+		public String getMoveString() {
+			StringBuilder moves = new StringBuilder();
+			for (int col : sequence) {
+				moves.append(Character.forDigit(col + 1, Character.MAX_RADIX));
+			}
+			return moves.toString();
+		}
+
+		@Override
+		public String toString() {
+			return (win ? "forced win " + getMoveString() : "no forced win")
+					+ " (" + nodes + " nodes, " + elapsedMillis + " ms)";
+		}
+	}
+
+	// The maximum length of a forcing sequence, in plies.
+	private final int maxPlies;
+
+	// The search gives up after this many nodes.
+	private final long maxNodes;
+
+	private long nodes;
+
+
+	public ThreatSpaceSearch() {
+		this(64, 1000000);
+	}
+
+
+	public ThreatSpaceSearch(int maxPlies, long maxNodes) {
+		this.maxPlies = maxPlies;
+		this.maxNodes = maxNodes;
+	}
+
+
+	// It searches for a forced win of the attacker, who must be the player to move.
+	public Result search(Board board, int attacker) {
+		long start = System.nanoTime();
+		nodes = 0;
+		List<Integer> sequence = new ArrayList<>();
+		boolean win = !board.checkForGameOver() && attack(board, attacker, maxPlies, sequence);
+		if (!win) {
+			sequence.clear();
+		}
+		return new Result(win, sequence, nodes, (System.nanoTime() - start) / 1000000);
+	}
+
+
+	private boolean attack(Board board, int attacker, int plies, List<Integer> sequence) {
+		nodes++;
+		int defender = (attacker == Constants.P1) ? Constants.P2 : Constants.P1;
+		int numOfColumns = board.getGeometry().getNumOfColumns();
+
+		// An immediate win ends the sequence.
+		for (int col=0; col<numOfColumns; col++) {
+			if (board.isWinningMove(col, attacker)) {
+				sequence.add(col);
+				return true;
+			}
+		}
+		if (plies < 3 || nodes >= maxNodes) {
+			return false;
+		}
+
+		// If the defender threatens to win, the attacker must block,
+		// and it is still a forcing line only if the block creates a threat too.
+		List<Integer> defenderThreats = getThreats(board, defender);
+		if (defenderThreats.size() >= 2) {
+			return false;
+		}
+
+		for (int col=0; col<numOfColumns; col++) {
+			if (board.checkFullColumn(col) || (defenderThreats.size() == 1 && col != defenderThreats.get(0))) {
+				continue;
+			}
+
+			Board child = new Board(board);
+			child.makeMove(col, attacker);
+			if (child.checkForGameOver()) {
+				continue;
+			}
+
+			List<Integer> threats = getThreats(child, attacker);
+			// The move must be forcing, and it must not let the defender win first,
+			// e.g. with the cell on top of the attacker's checker.
+			if (threats.isEmpty() || !getThreats(child, defender).isEmpty()) {
+				continue;
+			}
+
+			if (threats.size() >= 2) {
+				// Double threat: the defender can only block one of them.
+				sequence.add(col);
+				sequence.add(threats.get(0));
+				sequence.add(threats.get(1));
+				return true;
+			}
+
+			// A single threat: the defender must block it.
+			int block = threats.get(0);
+			Board grandchild = new Board(child);
+			grandchild.makeMove(block, defender);
+			if (grandchild.checkForGameOver()) {
+				continue;
+			}
+
+			sequence.add(col);
+			sequence.add(block);
+			if (attack(grandchild, attacker, plies - 2, sequence)) {
+				return true;
+			}
+			sequence.remove(sequence.size() - 1);
+			sequence.remove(sequence.size() - 1);
+		}
+		return false;
+	}
+
+
+	// The columns where the player would win with the next move.
+	private static List<Integer> getThreats(Board board, int player) {
+		List<Integer> threats = new ArrayList<>();
+		for (int col=0; col<board.getGeometry().getNumOfColumns(); col++) {
+			if (board.isWinningMove(col, player)) {
+				threats.add(col);
+			}
+		}
+		return threats;
+	}
+
+}
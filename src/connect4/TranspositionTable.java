@@ -0,0 +1,55 @@
+package connect4;
+
+
+/*
+ * A hash table of searched positions, indexed by "Board.getHashKey()".
+ * For every position it keeps the remaining depth (draft) of the search, the score,
+ * whether the score is exact or a bound, and the best column.
+ * An entry is packed in a single long, so that it can be read and written without locks:
+ * the key is stored xored with the entry, and an entry whose key does not match is ignored.
+ */
+public interface TranspositionTable {
+
+	// The kinds of scores.
+	int EXACT = 0;
+	// The search failed high: the score is a lower bound of the real value.
+	int LOWER_BOUND = 1;
+	// The search failed low: the score is an upper bound of the real value.
+	int UPPER_BOUND = 2;
+
+	// It returns the entry of the position, or 0 if there is none.
+	long probe(long key);
+
+	void store(long key, int draft, int bound, int score, int column);
+
+
+	static long pack(int draft, int bound, int score, int column) {
+		return (score & 0xFFFFFFFFL)
+				| ((long) Math.min(draft, 255) << 32)
+				| ((long) bound << 40)
+				| ((long) column << 42)
+				// So that no entry is 0.
+				| (1L << 48);
+	}
+
+
+	static int getScore(long entry) {
+		return (int) entry;
+	}
+
+
+	static int getDraft(long entry) {
+		return (int) (entry >>> 32) & 0xFF;
+	}
+
+
+	static int getBound(long entry) {
+		return (int) (entry >>> 40) & 0x3;
+	}
+
+
+	static int getColumn(long entry) {
+		return (int) (entry >>> 42) & 0x3F;
+	}
+
+}
@@ -0,0 +1,380 @@
+package connect4;
+
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import utility.Constants;
+
+
+/*
+ * The heuristic of "Board.evaluate()", computed from tables.
+ * A window is a line of "inARow" cells, horizontally, vertically or diagonally.
+ * The windows of a geometry are found once, and every window is scored by a lookup table,
+ * indexed by the pattern of its cells as a number in base 3: 0 for empty, 1 for Player 1, 2 for Player 2.
+ * So both players are scored in a single pass over the windows, and the empty windows and the windows
+ * of both players, which score 0, are skipped with a mask.
+ *
+ * A window scores for a player if its first "N" cells are checkers of the player and the rest are not
+ * checkers of the opponent. It scores "weights[N]" for every such "N" from 2 to "inARow - 1",
+ * e.g. 10^(N-2) by default. A won position also scores "winScore" for the winner, e.g. 10^(inARow-2).
+ *
+ * Other weights, e.g. tuned by "tools.WeightTuner", are kept in a text file:
+ *   # a comment
+ *   geometry 7x6x4
+ *   weights 137 1210        the weights of 2, 3, ... "inARow - 1" checkers
+ *   win 1000000
+ * They are only used on boards of their geometry. The other boards use the default weights.
+ */
+public class WindowEvaluator implements Evaluator {
+
+	// The largest lookup table, in entries (3^12). The windows of a longer line are scored one by one.
+	static final int MAX_TABLE_SIZE = 531441;
+
+	// The weights, indexed by the number of checkers, or null for the powers of 10 of "Board.evaluate()".
+	private final int[] weights;
+	private final int winScore;
+	// The geometry of the weights, or null for all geometries.
+	private final Geometry geometry;
+
+	private final Map<Geometry, Tables> tablesByGeometry = new ConcurrentHashMap<>();
+
+	// The tables of the last geometry, so that the map is only looked up when the geometry changes.
+	private volatile Tables lastTables;
+
+
+	// The windows of a geometry and their scores.
+	private static final class Tables {
+		final Geometry geometry;
+		final int inARow;
+		final int numOfWindows;
+		// The bit indices of the cells of every window, "inARow" per window, from the first cell.
+		final int[] cells;
+		// The word of the bitsets that holds a window, or -1 if the window spans two words.
+		final int[] words;
+		// The cells of a window, as a mask of its word.
+		final long[] masks;
+		// The score of every pattern, or null if the table would be too large.
+		final int[] scores;
+		final int[] weights;
+		final int winScore;
+
+		Tables(Geometry geometry, int numOfWindows, int[] cells, int[] weights, int winScore) {
+			this.geometry = geometry;
+			this.inARow = geometry.getInARow();
+			this.numOfWindows = numOfWindows;
+			this.cells = cells;
+			this.weights = weights;
+			this.winScore = winScore;
+			this.words = new int[numOfWindows];
+			this.masks = new long[numOfWindows];
+			for (int w=0; w<numOfWindows; w++) {
+				int word = cells[w * inARow] >>> 6;
+				for (int m=0; m<inARow; m++) {
+					int index = cells[w * inARow + m];
+					if ((index >>> 6) != word) {
+						word = -1;
+						break;
+					}
+					masks[w] |= 1L << index;
+				}
+				words[w] = word;
+			}
+			if (Math.pow(3, inARow) <= MAX_TABLE_SIZE) {
+				scores = new int[(int) Math.pow(3, inARow)];
+				int[] pattern = new int[inARow];
+				for (int i=0; i<scores.length; i++) {
+					for (int m=0, rest=i; m<inARow; m++, rest/=3) {
+						pattern[m] = rest % 3;
+					}
+					scores[i] = score(pattern);
+				}
+			} else {
+				scores = null;
+			}
+		}
+
+		// The score of a window of Player 1, minus the score of Player 2.
+		int score(int[] pattern) {
+			return score(pattern, Constants.P1) - score(pattern, Constants.P2);
+		}
+
+		// The number of checkers of the player at the start of the window, or 0 if the window has checkers of the opponent.
+		int prefixOf(int[] pattern, int player) {
+			int opponent = (player == Constants.P1) ? Constants.P2 : Constants.P1;
+			int prefix = 0;
+			while (prefix < inARow && pattern[prefix] == player) {
+				prefix++;
+			}
+			for (int m=prefix; m<inARow; m++) {
+				if (pattern[m] == opponent) {
+					return 0;
+				}
+			}
+			return prefix;
+		}
+
+		private int score(int[] pattern, int player) {
+			int prefix = prefixOf(pattern, player);
+			int score = 0;
+			for (int n=2; n<=Math.min(prefix, inARow - 1); n++) {
+				score += weights[n];
+			}
+			return score;
+		}
+	}
+
+
+	// The evaluator of the heuristic of "Board.evaluate()".
+	public WindowEvaluator() {
+		this(null, null, 0);
+	}
+
+
+	/*
+	 * An evaluator with the given weights, indexed by the number of checkers in a row from 2 to "inARow - 1",
+	 * on the boards of the given geometry, or on all boards if the geometry is null. The missing weights are 0.
+	 */
+	public WindowEvaluator(Geometry geometry, int[] weights, int winScore) {
+		this.geometry = geometry;
+		this.weights = (weights == null) ? null : weights.clone();
+		this.winScore = winScore;
+	}
+
+
+	// It reads the weights of a file written by "save()".
+	public static WindowEvaluator load(File file) throws IOException {
+		Geometry geometry = null;
+		int[] weights = null;
+		Integer winScore = null;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] tokens = line.trim().split("\\s+");
+				if (tokens[0].isEmpty() || tokens[0].startsWith("#")) {
+					continue;
+				}
+				switch (tokens[0]) {
+					case "geometry":
+						geometry = Geometry.parse(tokens[1]);
+						break;
+					case "weights":
+						weights = new int[tokens.length + 1];
+						for (int i=1; i<tokens.length; i++) {
+							weights[i + 1] = Integer.parseInt(tokens[i]);
+						}
+						break;
+					case "win":
+						winScore = Integer.parseInt(tokens[1]);
+						break;
+					default:
+						throw new IOException("Unknown key \"" + tokens[0] + "\" in " + file + ".");
+				}
+			}
+		} catch (RuntimeException e) {
+			throw new IOException("Invalid weights file " + file + ": " + e.getMessage(), e);
+		}
+		if (geometry == null || weights == null || winScore == null) {
+			throw new IOException("The weights file " + file + " needs a geometry, the weights and the win score.");
+		}
+		return new WindowEvaluator(geometry, weights, winScore);
+	}
+
+
+	/*
+	 * It returns the evaluator of the given weights file,
+	 * or the default one if there is no such file or it cannot be read.
+	 */
+	public static WindowEvaluator open(String fileName) {
+		File file = new File(fileName);
+		if (!file.exists()) {
+			return new WindowEvaluator();
+		}
+		try {
+			return load(file);
+		} catch (IOException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			return new WindowEvaluator();
+		}
+	}
+
+
+	public void save(File file, String comment) throws IOException {
+		if (geometry == null || weights == null) {
+			throw new IllegalStateException("Only the weights of a geometry can be saved.");
+		}
+		try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+			if (comment != null) {
+				writer.println("# " + comment);
+			}
+			writer.println("geometry " + geometry);
+			StringBuilder line = new StringBuilder("weights");
+			for (int n=2; n<geometry.getInARow(); n++) {
+				line.append(' ').append((n < weights.length) ? weights[n] : 0);
+			}
+			writer.println(line);
+			writer.println("win " + winScore);
+		}
+	}
+
+
+	/*
+	 * The features of the position, which the weights multiply: for every number of checkers "N",
+	 * from 2 to "inARow - 1", the windows of Player 1 that score "weights[N]" minus the ones of Player 2.
+	 * So the value of a position that is not won is the sum of "weights[N] * features[N]".
+	 */
+	public int[] countWindows(Board board) {
+		Tables tables = tablesOf(board.getGeometry());
+		long[] player1Bits = board.getBits(Constants.P1);
+		long[] player2Bits = board.getBits(Constants.P2);
+		int inARow = tables.inARow;
+		int[] features = new int[inARow];
+		int[] pattern = new int[inARow];
+		for (int w=0; w<tables.numOfWindows; w++) {
+			for (int m=0; m<inARow; m++) {
+				pattern[m] = cellOf(player1Bits, player2Bits, tables.cells[w * inARow + m]);
+			}
+			for (int player : new int[] { Constants.P1, Constants.P2 }) {
+				int prefix = tables.prefixOf(pattern, player);
+				for (int n=2; n<=Math.min(prefix, inARow - 1); n++) {
+					features[n] += (player == Constants.P1) ? 1 : -1;
+				}
+			}
+		}
+		return features;
+	}
+
+
+	private Tables tablesOf(Geometry boardGeometry) {
+		Tables tables = lastTables;
+		if (tables == null || tables.geometry != boardGeometry) {
+			tables = tablesByGeometry.computeIfAbsent(boardGeometry, this::createTables);
+			lastTables = tables;
+		}
+		return tables;
+	}
+
+
+	@Override
+	public int evaluate(Board board) {
+		Tables tables = tablesOf(board.getGeometry());
+
+		int score = 0;
+		if (board.checkWinState()) {
+			score = (board.getWinner() == Constants.P1) ? tables.winScore : -tables.winScore;
+		}
+
+		long[] player1Bits = board.getBits(Constants.P1);
+		long[] player2Bits = board.getBits(Constants.P2);
+		int inARow = tables.inARow;
+		int[] cells = tables.cells;
+		int[] pattern = (tables.scores == null) ? new int[inARow] : null;
+		for (int w=0; w<tables.numOfWindows; w++) {
+			int word = tables.words[w];
+			if (word >= 0) {
+				// The empty windows and the windows of both players score 0.
+				boolean hasPlayer1 = (player1Bits[word] & tables.masks[w]) != 0;
+				boolean hasPlayer2 = (player2Bits[word] & tables.masks[w]) != 0;
+				if (hasPlayer1 == hasPlayer2) {
+					continue;
+				}
+			}
+			if (pattern == null) {
+				int index = 0;
+				for (int m=inARow-1; m>=0; m--) {
+					index = 3 * index + cellOf(player1Bits, player2Bits, cells[w * inARow + m]);
+				}
+				score += tables.scores[index];
+			} else {
+				for (int m=0; m<inARow; m++) {
+					pattern[m] = cellOf(player1Bits, player2Bits, cells[w * inARow + m]);
+				}
+				score += tables.score(pattern);
+			}
+		}
+		return score;
+	}
+
+
+	// 0 for an empty cell, 1 for Player 1, 2 for Player 2.
+	private static int cellOf(long[] player1Bits, long[] player2Bits, int index) {
+		if ((player1Bits[index >>> 6] & (1L << index)) != 0) {
+			return 1;
+		}
+		return ((player2Bits[index >>> 6] & (1L << index)) != 0) ? 2 : 0;
+	}
+
+
+	private Tables createTables(Geometry geometry) {
+		int numOfRows = geometry.getNumOfRows();
+		int numOfColumns = geometry.getNumOfColumns();
+		int inARow = geometry.getInARow();
+
+		boolean defaultWeights = (weights == null || (this.geometry != null && !this.geometry.equals(geometry)));
+		int[] tableWeights = new int[inARow];
+		for (int n=2; n<inARow; n++) {
+			if (defaultWeights) {
+				tableWeights[n] = (int) Math.pow(10, n - 2);
+			} else if (n < weights.length) {
+				tableWeights[n] = weights[n];
+			}
+		}
+		int tableWinScore = defaultWeights ? (int) Math.pow(10, inARow - 2) : winScore;
+
+		// The windows start from the same cells, and go in the same directions, as in "Board.countNInARow()":
+		// right, up, down-right and up-right. Row 0 is the top row.
+		int[][] directions = { {0, 1}, {-1, 0}, {1, 1}, {-1, 1} };
+		int[] cells = new int[4 * numOfRows * numOfColumns * inARow];
+		int numOfWindows = 0;
+		for (int[] direction : directions) {
+			for (int i=0; i<numOfRows; i++) {
+				for (int j=0; j<numOfColumns; j++) {
+					int lastRow = i + direction[0] * (inARow - 1);
+					int lastColumn = j + direction[1] * (inARow - 1);
+					if (lastRow < 0 || lastRow >= numOfRows || lastColumn >= numOfColumns) {
+						continue;
+					}
+					for (int m=0; m<inARow; m++) {
+						cells[numOfWindows * inARow + m] = geometry.bitIndex(i + direction[0] * m, j + direction[1] * m);
+					}
+					numOfWindows++;
+				}
+			}
+		}
+		int[] windowCells = new int[numOfWindows * inARow];
+		System.arraycopy(cells, 0, windowCells, 0, windowCells.length);
+		return new Tables(geometry, numOfWindows, windowCells, tableWeights, tableWinScore);
+	}
+
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof WindowEvaluator)) {
+			return false;
+		}
+		WindowEvaluator other = (WindowEvaluator) o;
+		return winScore == other.winScore && Arrays.equals(weights, other.weights)
+				&& ((geometry == null) ? other.geometry == null : geometry.equals(other.geometry));
+	}
+
+
+	// It is 0 for the default weights.
+	@Override
+	public int hashCode() {
+		if (weights == null) {
+			return 0;
+		}
+		return (31 * Arrays.hashCode(weights) + winScore) * 31 + ((geometry == null) ? 0 : geometry.hashCode());
+	}
+
+}
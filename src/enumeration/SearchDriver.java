@@ -0,0 +1,12 @@
+package enumeration;
+
+/*
+ * How the alpha-beta search sets the window of its root:
+ * a full window, aspiration windows around the value of the previous iteration,
+ * or MTD(f), a sequence of zero-window searches that converges on the value.
+ */
+public enum SearchDriver {
+	FULL_WINDOW,
+	ASPIRATION,
+	MTDF
+}
@@ -0,0 +1,107 @@
+package gui;
+
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Rectangle;
+
+import javax.swing.BorderFactory;
+import javax.swing.JPanel;
+
+import connect4.Board;
+import enumeration.Color;
+import utility.Constants;
+import utility.GameParameters;
+
+
+/*
+ * The Connect-4 board of the main window.
+ * It paints the checkers of the board model on a single double-buffered panel,
+ * with the images of "Sprites", so no component is added when a checker is placed.
+ * After a move, only the cell of the move has to be repainted.
+ */
+public class BoardPanel extends JPanel {
+
+	private static final long serialVersionUID = -4118370954218374406L;
+
+	// The space between the border of the panel and the board.
+	static final int MARGIN = 15;
+
+	private Board board;
+	private final int cellSize;
+
+
+	public BoardPanel(Board board, int cellSize) {
+		super(true);
+		this.board = board;
+		this.cellSize = cellSize;
+		setBorder(BorderFactory.createTitledBorder("Connect-4"));
+	}
+
+
+	public void setBoard(Board board) {
+		this.board = board;
+		repaint();
+	}
+
+
+	@Override
+	public Dimension getPreferredSize() {
+		Insets insets = getInsets();
+		int numOfRows = board.getGeometry().getNumOfRows();
+		int numOfColumns = board.getGeometry().getNumOfColumns();
+		return new Dimension(
+				Sprites.getFrame(numOfRows, numOfColumns, cellSize).getWidth() + 2 * MARGIN + insets.left + insets.right,
+				Sprites.getFrame(numOfRows, numOfColumns, cellSize).getHeight() + 2 * MARGIN + insets.top + insets.bottom);
+	}
+
+
+	// The area of the given cell, in the coordinates of the panel.
+	public Rectangle getCellBounds(int row, int col) {
+		Insets insets = getInsets();
+		return new Rectangle(insets.left + MARGIN + col * cellSize, insets.top + MARGIN + row * cellSize, cellSize, cellSize);
+	}
+
+
+	// It repaints only the given cell, e.g. after a move.
+	public void repaintCell(int row, int col) {
+		repaint(getCellBounds(row, col));
+	}
+
+
+	// It paints the given cell now, even if the event dispatch thread is busy.
+	public void paintCellImmediately(int row, int col) {
+		paintImmediately(getCellBounds(row, col));
+	}
+
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		super.paintComponent(g);
+
+		Insets insets = getInsets();
+		int numOfRows = board.getGeometry().getNumOfRows();
+		int numOfColumns = board.getGeometry().getNumOfColumns();
+		g.drawImage(Sprites.getFrame(numOfRows, numOfColumns, cellSize), insets.left + MARGIN, insets.top + MARGIN, null);
+
+		// Only the checkers of the cells inside the clip are painted.
+		Rectangle clip = g.getClipBounds();
+		int offset = Sprites.getCheckerOffset(cellSize);
+		for (int row=0; row<numOfRows; row++) {
+			for (int col=0; col<numOfColumns; col++) {
+				int player = board.getCell(row, col);
+				if (player == Constants.EMPTY) {
+					continue;
+				}
+				Rectangle cell = getCellBounds(row, col);
+				if (clip != null && !clip.intersects(cell)) {
+					continue;
+				}
+				Color color = (player == Constants.P1) ? GameParameters.player1Color : GameParameters.player2Color;
+				g.drawImage(Sprites.getChecker(color, cellSize), cell.x + offset, cell.y + offset, null);
+			}
+		}
+	}
+
+}
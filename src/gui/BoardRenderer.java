@@ -0,0 +1,119 @@
+package gui;
+
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import connect4.Board;
+import connect4.GameRecord;
+import connect4.Geometry;
+import enumeration.Color;
+import utility.Constants;
+
+
+/*
+ * It draws boards into images, without any window, so it also works headless.
+ * It uses the shared images of "Sprites", like the board panel of the main window.
+ */
+public class BoardRenderer {
+
+	// The color around the board, the one of the main window.
+	private static final int BACKGROUND = 0xEEEEEE;
+
+	private final Geometry geometry;
+	private final int cellSize;
+	private final int margin;
+	private final Color player1Color;
+	private final Color player2Color;
+
+
+	public BoardRenderer(Geometry geometry, int cellSize, Color player1Color, Color player2Color) {
+		this.geometry = geometry;
+		this.cellSize = cellSize;
+		this.margin = Math.max(1, cellSize / 5);
+		this.player1Color = player1Color;
+		this.player2Color = player2Color;
+	}
+
+
+	public int getWidth() {
+		return Sprites.getFrame(geometry.getNumOfRows(), geometry.getNumOfColumns(), cellSize).getWidth() + 2 * margin;
+	}
+
+
+	public int getHeight() {
+		return Sprites.getFrame(geometry.getNumOfRows(), geometry.getNumOfColumns(), cellSize).getHeight() + 2 * margin;
+	}
+
+
+	// An image of the size of the rendered boards, showing the empty board.
+	public BufferedImage createImage() {
+		BufferedImage image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(new java.awt.Color(BACKGROUND));
+		g.fillRect(0, 0, image.getWidth(), image.getHeight());
+		g.drawImage(Sprites.getFrame(geometry.getNumOfRows(), geometry.getNumOfColumns(), cellSize), margin, margin, null);
+		g.dispose();
+		return image;
+	}
+
+
+	// An image of the given board.
+	public BufferedImage render(Board board) {
+		BufferedImage image = createImage();
+		for (int row=0; row<geometry.getNumOfRows(); row++) {
+			for (int col=0; col<geometry.getNumOfColumns(); col++) {
+				if (board.getCell(row, col) != Constants.EMPTY) {
+					drawChecker(image, row, col, board.getCell(row, col));
+				}
+			}
+		}
+		return image;
+	}
+
+
+	// It draws a checker of the given player on an image made by "createImage()".
+	public void drawChecker(BufferedImage image, int row, int col, int player) {
+		Color color = (player == Constants.P1) ? player1Color : player2Color;
+		int offset = Sprites.getCheckerOffset(cellSize);
+		Graphics2D g = image.createGraphics();
+		g.drawImage(Sprites.getChecker(color, cellSize), margin + col * cellSize + offset, margin + row * cellSize + offset, null);
+		g.dispose();
+	}
+
+
+	/*
+	 * It writes the game as an animated GIF, with one frame per ply, starting from the empty board.
+	 * After the first frame, a frame only contains the cell of the new checker,
+	 * so the time and the size of a frame do not depend on the size of the board.
+	 * The final position is shown for "lastDelayMillis".
+	 */
+	public void writeGif(GameRecord record, File file, int delayMillis, int lastDelayMillis) throws IOException {
+		if (!record.getGeometry().equals(geometry)) {
+			throw new IllegalArgumentException("The game is played on a " + record.getGeometry() + " board, not " + geometry + ".");
+		}
+		Board board = new Board(geometry);
+		BufferedImage image = createImage();
+		try (GifSequenceWriter writer = new GifSequenceWriter(file)) {
+			writer.writeFrame(image, (record.getNumOfMoves() == 0) ? lastDelayMillis : delayMillis);
+			for (int i=0; i<record.getNumOfMoves(); i++) {
+				int player = (i % 2 == 0) ? Constants.P1 : Constants.P2;
+				if (board.checkFullColumn(record.getMove(i))) {
+					throw new IllegalArgumentException("Invalid move " + (record.getMove(i)+1) + " at ply " + (i+1) + ": the column is full.");
+				}
+				board.makeMove(record.getMove(i), player);
+				int row = board.getLastMove().getRow();
+				int col = board.getLastMove().getColumn();
+				drawChecker(image, row, col, player);
+
+				int x = margin + col * cellSize;
+				int y = margin + row * cellSize;
+				int delay = (i == record.getNumOfMoves() - 1) ? lastDelayMillis : delayMillis;
+				writer.writeFrame(image.getSubimage(x, y, cellSize, cellSize), x, y, delay);
+			}
+		}
+	}
+
+}
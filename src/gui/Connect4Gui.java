@@ -7,17 +7,14 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.awt.image.BufferedImage;
 import java.io.*;
-import java.util.Stack;
+import java.util.Arrays;
 
-import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
-import javax.swing.JLayeredPane;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
@@ -28,15 +25,26 @@ import javax.swing.UIManager;
 import javax.swing.UIManager.LookAndFeelInfo;
 
 import connect4.Board;
+import connect4.Evaluator;
+import connect4.GameHistory;
+import connect4.GameRecord;
+import connect4.GameRecordReader;
+import connect4.GameRecordWriter;
+import connect4.Geometry;
 import connect4.MiniMaxAi;
 import connect4.Move;
+import connect4.NTupleEvaluator;
+import connect4.PersistentTranspositionTable;
 import connect4.RandomChoiceAi;
-import enumeration.Color;
+import connect4.SearchResult;
+import connect4.TranspositionTable;
+import connect4.WindowEvaluator;
 import enumeration.GameMode;
 import enumeration.GuiStyle;
+import monitoring.GameOverEvent;
+import monitoring.MoveEvent;
 import utility.Constants;
 import utility.GameParameters;
-import utility.ResourceLoader;
 
 
 public class Connect4Gui {
@@ -50,7 +58,7 @@ public class Connect4Gui {
 
 	static JPanel panelMain;
 	static JPanel panelBoardNumbers;
-	static JLayeredPane layeredGameBoard;
+	static BoardPanel boardPanel;
 
 	static int DEFAULT_WIDTH = 570;
 	static int DEFAULT_HEIGHT = 525;
@@ -58,18 +66,26 @@ public class Connect4Gui {
 	static JButton[] buttons;
 
 	static JLabel turnMessage;
+	static JLabel searchMessage;
 
 	static MiniMaxAi ai;
 	static RandomChoiceAi rAi;
 
+	// It is shared by all the AIs, and kept on the disk between runs.
+	static TranspositionTable transpositionTable;
+
+	// The background analysis of the position, shared by all the games.
+	static LiveAnalysis analysis;
+
 	// Player 1 symbol: X. Plays first.
 	// Player 2 symbol: O.
 
-	// These Stack objects are used for the "Undo" and "Redo" functionalities.
-	static Stack<Board> undoBoards = new Stack<>();
-	static Stack<JLabel> undoCheckerLabels = new Stack<>();
-	static Stack<Board> redoBoards = new Stack<>();
-	static Stack<JLabel> redoCheckerLabels = new Stack<>();
+	// The moves of the game, for the "Undo" and "Redo" functionalities.
+	// The board is the board of the history.
+	static GameHistory history;
+
+	// The file of "Save Game" and "Restore Saved Game".
+	static final String SAVED_GAME_FILE = "game.c4g";
 
 	// Menu bars and items
 	static JMenuBar menuBar;
@@ -81,6 +97,7 @@ public class Connect4Gui {
 	static JMenuItem restoreSavedGameItem;
 	static JMenuItem loadNovelPositionItem;
 	static JMenuItem exportToGifItem;
+	static JCheckBoxMenuItem analysisItem;
 	static JMenuItem settingsItem;
 	static JMenuItem exitItem;
 	static JMenu helpMenu;
@@ -110,6 +127,7 @@ public class Connect4Gui {
 		restoreSavedGameItem = new JMenuItem("Restore Saved Game");
 		loadNovelPositionItem = new JMenuItem("Load Novel Position");
 		exportToGifItem = new JMenuItem("Export to .gif");
+		analysisItem = new JCheckBoxMenuItem("Live Analysis", analysis.isEnabled());
 		settingsItem = new JMenuItem("Settings");
 		exitItem = new JMenuItem("Exit");
 
@@ -128,12 +146,10 @@ public class Connect4Gui {
 
 		saveGameItem.addActionListener(e -> {
 			saveGame();
-			System.out.println("Game saved!");
 		});
 
 		restoreSavedGameItem.addActionListener(e -> {
 			restoreSavedGame();
-			System.out.println("Last saved game restored!");
 		});
 
 		loadNovelPositionItem.addActionListener(e -> {
@@ -144,6 +160,12 @@ public class Connect4Gui {
 
 		exportToGifItem.addActionListener(e -> exportToGif());
 
+		analysisItem.addActionListener(e -> {
+			analysis.setEnabled(analysisItem.isSelected(), board);
+			// The scores above the buttons change the size of the window.
+			frameMainWindow.pack();
+		});
+
 		settingsItem.addActionListener(e -> {
 			SettingsWindow settings = new SettingsWindow();
 			settings.setVisible(true);
@@ -169,6 +191,7 @@ public class Connect4Gui {
 		fileMenu.add(restoreSavedGameItem);
 		fileMenu.add(loadNovelPositionItem);
 		fileMenu.add(exportToGifItem);
+		fileMenu.add(analysisItem);
 		fileMenu.add(settingsItem);
 		fileMenu.add(exitItem);
 
@@ -184,75 +207,90 @@ public class Connect4Gui {
 
 	}
 
+	// It saves the moves of the game, so that it can be replayed move by move.
 	public static void saveGame() {
-		BufferedWriter bw = null;
-		try {
-			bw = new BufferedWriter(new FileWriter("grid.txt"));
-			for (int i=0; i<NUM_OF_ROWS; i++) {
-				for (int j=0; j<NUM_OF_COLUMNS; j++) {
-					if (board.getGameBoard()[i][j] != Constants.EMPTY) {
-						bw.write(i + "" +  j + ":" + board.getGameBoard()[i][j] + "\n");
-					}
-				}
-			}
+		int[] moves = history.getMoves();
+		int result = board.checkForGameOver() ? board.getWinner() : GameRecord.UNFINISHED;
+		GameRecord record = new GameRecord(board.getGeometry(), getPlayerName(Constants.P1), getPlayerName(Constants.P2), result, moves);
+
+		// The checkers of a novel position are not placed by moves.
+		if (!Arrays.deepEquals(board.getGameBoard(), record.getBoard().getGameBoard())) {
+			JOptionPane.showMessageDialog(null, "A novel position cannot be saved as a game.", "Notice", JOptionPane.INFORMATION_MESSAGE);
+			return;
+		}
+
+		try (GameRecordWriter writer = new GameRecordWriter(new File(SAVED_GAME_FILE), false)) {
+			writer.write(record);
+			System.out.println("Game saved!");
 		} catch (IOException e) {
 			e.printStackTrace();
-		} finally {
-			try {
-				bw.flush();
-				bw.close();
-			} catch (IOException|NullPointerException e) {
-				e.printStackTrace();
-			}
 		}
 	}
 
 
+	// It starts a new game and replays the moves of the saved game.
 	public static void restoreSavedGame() {
-		BufferedReader br = null;
-		try {
-			br = new BufferedReader(new FileReader("grid.txt"));
-			String line;
-
-			createNewGame();
-
-			while ((line = br.readLine()) != null) {
-				int row = Integer.parseInt(line.charAt(0) + "");
-				int column = Integer.parseInt(line.charAt(1) + "");
-				int player = Integer.parseInt(line.split(":")[1].trim());
-				board.getGameBoard()[row][column] = player;
-				if (player == Constants.P1)
-					placeChecker(GameParameters.player1Color, row, column);
-				else if (player == Constants.P2)
-					placeChecker(GameParameters.player2Color, row, column);
-				board.setTurn(board.getTurn() + 1);
-			}
-			Board.printBoard(board.getGameBoard());
-			turnMessage.setText("Turn: " + board.getTurn());
+		GameRecord record;
+		try (GameRecordReader reader = new GameRecordReader(new File(SAVED_GAME_FILE))) {
+			record = reader.read();
 		} catch (IOException e) {
 			e.printStackTrace();
-		} finally {
-			try {
-				br.close();
-			} catch (IOException|NullPointerException e) {
-				e.printStackTrace();
-			}
+			return;
+		}
+		if (record == null) {
+			System.err.println("There is no saved game!");
+			return;
+		}
+
+		createNewGame();
+		if (!record.getGeometry().equals(board.getGeometry())) {
+			System.err.println("The saved game is played on a " + record.getGeometry() + " board!");
+			return;
+		}
+
+		for (int i=0; i<record.getNumOfMoves(); i++) {
+			history.play(record.getMove(i), (i % 2 == 0) ? Constants.P1 : Constants.P2);
+			game();
+		}
+		System.out.println("Last saved game restored!");
+	}
+
+
+	private static String getPlayerName(int player) {
+		switch (GameParameters.gameMode) {
+			case HUMAN_VS_HUMAN:
+				return "Human";
+			case HUMAN_VS_MINIMAX_AI:
+				return (player == Constants.P1) ? "Human" : "Minimax AI depth " + GameParameters.maxDepth1;
+			case MINIMAX_AI_VS_MINIMAX_AI:
+				return "Minimax AI depth " + ((player == Constants.P1) ? GameParameters.maxDepth1 : GameParameters.maxDepth2);
+			default:
+				return "Random Choice AI";
 		}
 	}
 
 
+	// It exports the moves of the game as an animated GIF, rendered offscreen.
+	// A novel position is exported as a single frame.
 	public static void exportToGif() {
 		String gifName = JOptionPane.showInputDialog("Please type the exported \".gif\" file name:",
 				"simulation.gif");
+		if (gifName == null) {
+			return;
+		}
 
-		BufferedImage bi = new BufferedImage(
-				frameMainWindow.getSize().width, frameMainWindow.getSize().height,
-				BufferedImage.TYPE_INT_ARGB);
-		Graphics g = bi.createGraphics();
-		frameMainWindow.paint(g);
-		g.dispose();
+		BoardRenderer renderer = new BoardRenderer(board.getGeometry(), Sprites.CELL_SIZE,
+				GameParameters.player1Color, GameParameters.player2Color);
 		try {
-			ImageIO.write(bi, "gif", new File(gifName));
+			GameRecord record = GameRecord.of(board.getGeometry(), getPlayerName(Constants.P1), getPlayerName(Constants.P2),
+					history.getMoves());
+			if (Arrays.deepEquals(board.getGameBoard(), record.getBoard().getGameBoard())) {
+				renderer.writeGif(record, new File(gifName), 500, 2000);
+			} else {
+				try (GifSequenceWriter writer = new GifSequenceWriter(new File(gifName))) {
+					writer.writeFrame(renderer.render(board), 0);
+				}
+			}
 			System.out.println("Exported .gif file!");
 		} catch (Exception e) {
 			System.err.println("Error exporting .gif file!");
@@ -262,18 +300,9 @@ public class Connect4Gui {
 
 
 	// This is the main Connect-4 board.
-	public static JLayeredPane createLayeredBoard() {
-		layeredGameBoard = new JLayeredPane();
-		layeredGameBoard.setPreferredSize(new Dimension(DEFAULT_WIDTH, DEFAULT_HEIGHT));
-		layeredGameBoard.setBorder(BorderFactory.createTitledBorder("Connect-4"));
-
-		ImageIcon imageBoard = new ImageIcon(ResourceLoader.load("images/Board.png"));
-		JLabel imageBoardLabel = new JLabel(imageBoard);
-
-		imageBoardLabel.setBounds(20, 20, imageBoard.getIconWidth(), imageBoard.getIconHeight());
-		layeredGameBoard.add(imageBoardLabel, 0, 1);
-
-		return layeredGameBoard;
+	public static BoardPanel createBoardPanel() {
+		boardPanel = new BoardPanel(board, Sprites.CELL_SIZE);
+		return boardPanel;
 	}
 
 
@@ -290,7 +319,6 @@ public class Connect4Gui {
 
 			for (int i=0; i<Constants.NUM_OF_COLUMNS; i++) {
 				if (keyText.equals(i+1+"")) {
-					undoBoards.push(new Board(board));
 					makeMove(i);
 
 					if (!board.isOverflow()) {
@@ -319,152 +347,63 @@ public class Connect4Gui {
 	};
 
 
+	// In "Human Vs AI" mode the moves of both players are taken back, so that the human plays next.
 	private static void undo() {
-		if (!undoBoards.isEmpty()) {
-			// This is the "undo" implementation for "Human Vs Human" mode.
-			if (GameParameters.gameMode == GameMode.HUMAN_VS_HUMAN) {
-				try {
-					board.setGameOver(false);
-
-					setAllButtonsEnabled(true);
-
-					if (frameMainWindow.getKeyListeners().length == 0) {
-						frameMainWindow.addKeyListener(gameKeyListener);
-					}
-
-					JLabel previousCheckerLabel = undoCheckerLabels.pop();
-
-					redoBoards.push(new Board(board));
-					redoCheckerLabels.push(previousCheckerLabel);
-
-					board = undoBoards.pop();
-					layeredGameBoard.remove(previousCheckerLabel);
-
-					turnMessage.setText("Turn: " + board.getTurn());
-					frameMainWindow.paint(frameMainWindow.getGraphics());
-				} catch (ArrayIndexOutOfBoundsException ex) {
-					System.err.println("No move has been made yet!");
-					System.err.flush();
-				}
-			}
-
-			// This is the "undo" implementation for "Human Vs AI" mode.
-			else if (GameParameters.gameMode == GameMode.HUMAN_VS_MINIMAX_AI) {
-				try {
-					board.setGameOver(false);
-					setAllButtonsEnabled(true);
-
-					if (frameMainWindow.getKeyListeners().length == 0) {
-						frameMainWindow.addKeyListener(gameKeyListener);
-					}
-
-					JLabel previousAiCheckerLabel = undoCheckerLabels.pop();
-					JLabel previousHumanCheckerLabel = undoCheckerLabels.pop();
-
-					redoBoards.push(new Board(board));
-					redoCheckerLabels.push(previousAiCheckerLabel);
-					redoCheckerLabels.push(previousHumanCheckerLabel);
-
-					board = undoBoards.pop();
-					layeredGameBoard.remove(previousAiCheckerLabel);
-					layeredGameBoard.remove(previousHumanCheckerLabel);
-
-					turnMessage.setText("Turn: " + board.getTurn());
-					frameMainWindow.paint(frameMainWindow.getGraphics());
-				} catch (NullPointerException|ArrayIndexOutOfBoundsException ex) {
-					System.err.println("No move has been made yet!");
-					System.err.flush();
-				}
-			}
-
-			if (undoBoards.isEmpty()) {
-				undoItem.setEnabled(false);
-			}
-
-			redoItem.setEnabled(true);
-
-			System.out.println("Turn: " + board.getTurn());
-			Board.printBoard(board.getGameBoard());
+		if (!history.canUndo() || !isUndoAllowed()) {
+			return;
+		}
+		history.undo();
+		if (GameParameters.gameMode == GameMode.HUMAN_VS_MINIMAX_AI && history.getNextPlayer() == ai.getAiPlayer()
+				&& history.canUndo()) {
+			history.undo();
 		}
+		resumeGame();
 	}
 
 
 	private static void redo() {
-		if (!redoBoards.isEmpty()) {
-			// This is the "redo" implementation for "Human Vs Human" mode.
-			if (GameParameters.gameMode == GameMode.HUMAN_VS_HUMAN) {
-				try {
-					board.setGameOver(false);
-
-					setAllButtonsEnabled(true);
-
-					if (frameMainWindow.getKeyListeners().length == 0) {
-						frameMainWindow.addKeyListener(gameKeyListener);
-					}
-
-					JLabel redoCheckerLabel = redoCheckerLabels.pop();
-
-					undoBoards.push(new Board(board));
-					undoCheckerLabels.push(redoCheckerLabel);
-
-					board = new Board(redoBoards.pop());
-					layeredGameBoard.add(redoCheckerLabel, 0, 0);
-
-					turnMessage.setText("Turn: " + board.getTurn());
-					frameMainWindow.paint(frameMainWindow.getGraphics());
-
-					boolean isGameOver = board.checkForGameOver();
-					if (isGameOver) {
-						gameOver();
-					}
-				} catch (ArrayIndexOutOfBoundsException ex) {
-					System.err.println("There is no move to redo!");
-					System.err.flush();
-				}
-			}
-
-			// This is the "redo" implementation for "Human Vs AI" mode.
-			else if (GameParameters.gameMode == GameMode.HUMAN_VS_MINIMAX_AI) {
-				try {
-					board.setGameOver(false);
-					setAllButtonsEnabled(true);
-
-					if (frameMainWindow.getKeyListeners().length == 0) {
-						frameMainWindow.addKeyListener(gameKeyListener);
-					}
+		if (!history.canRedo() || !isUndoAllowed()) {
+			return;
+		}
+		history.redo();
+		if (GameParameters.gameMode == GameMode.HUMAN_VS_MINIMAX_AI && history.getNextPlayer() == ai.getAiPlayer()
+				&& history.canRedo()) {
+			history.redo();
+		}
+		resumeGame();
+		if (board.checkForGameOver()) {
+			gameOver();
+		}
+	}
 
-					JLabel redoAiCheckerLabel = redoCheckerLabels.pop();
-					JLabel redoHumanCheckerLabel = redoCheckerLabels.pop();
 
-					undoBoards.push(new Board(board));
-					undoCheckerLabels.push(redoAiCheckerLabel);
-					undoCheckerLabels.push(redoHumanCheckerLabel);
+	// Undo and redo are only available when a human plays.
+	private static boolean isUndoAllowed() {
+		return GameParameters.gameMode == GameMode.HUMAN_VS_HUMAN || GameParameters.gameMode == GameMode.HUMAN_VS_MINIMAX_AI;
+	}
 
-					board = new Board(redoBoards.pop());
-					layeredGameBoard.add(redoAiCheckerLabel, 0, 0);
-					layeredGameBoard.add(redoHumanCheckerLabel, 0, 0);
 
-					turnMessage.setText("Turn: " + board.getTurn());
-					frameMainWindow.paint(frameMainWindow.getGraphics());
+	// It lets the human play again after an undo or a redo, and shows the position of the history.
+	private static void resumeGame() {
+		board.setGameOver(false);
+		setAllButtonsEnabled(true);
+		if (frameMainWindow.getKeyListeners().length == 0) {
+			frameMainWindow.addKeyListener(gameKeyListener);
+		}
 
-					boolean isGameOver = board.checkForGameOver();
-					if (isGameOver) {
-						gameOver();
-					}
-				} catch (NullPointerException|ArrayIndexOutOfBoundsException ex) {
-					System.err.println("There is no move to redo!");
-					System.err.flush();
-				}
-			}
+		redrawCheckers();
+		updateUndoRedoItems();
+		turnMessage.setText("Turn: " + board.getTurn());
+		restartAnalysis();
 
-			if (redoBoards.isEmpty())
-				redoItem.setEnabled(false);
+		System.out.println("Turn: " + board.getTurn());
+		Board.printBoard(board.getGameBoard());
+	}
 
-			undoItem.setEnabled(true);
 
-			System.out.println("Turn: " + board.getTurn());
-			Board.printBoard(board.getGameBoard());
-		}
+	static void updateUndoRedoItems() {
+		undoItem.setEnabled(history.canUndo() && isUndoAllowed());
+		redoItem.setEnabled(history.canRedo() && isUndoAllowed());
 	}
 
 
@@ -478,13 +417,19 @@ public class Connect4Gui {
 			setAllButtonsEnabled(true);
 		}
 
-		board = new Board();
-
-		undoBoards.clear();
-		undoCheckerLabels.clear();
+		history = new GameHistory(Geometry.STANDARD);
+		board = history.getBoard();
 
-		redoBoards.clear();
-		redoCheckerLabels.clear();
+		if (transpositionTable == null) {
+			// The n-tuple network or the tuned weights, if any, are used by all the searches.
+			Evaluator evaluator = NTupleEvaluator.open(GameParameters.nTupleFile, WindowEvaluator.open(GameParameters.weightsFile));
+			MiniMaxAi.setDefaultEvaluator(evaluator);
+			transpositionTable = PersistentTranspositionTable.open(GameParameters.transpositionTableFile,
+					GameParameters.transpositionTableMegabytes, evaluator.hashCode());
+		}
+		if (analysis == null) {
+			analysis = new LiveAnalysis(NUM_OF_COLUMNS, transpositionTable);
+		}
 
 		if (frameMainWindow != null) frameMainWindow.dispose();
 		frameMainWindow = new JFrame("Minimax Connect-4");
@@ -516,14 +461,22 @@ public class Connect4Gui {
 		frameMainWindow.add(tools, BorderLayout.PAGE_END);
 		turnMessage = new JLabel("Turn: " + board.getTurn());
 		tools.add(turnMessage);
+		tools.addSeparator();
+		searchMessage = new JLabel(" ");
+		tools.add(searchMessage);
+		tools.addSeparator();
+		tools.add(analysis.getStatusLabel());
 
 		AddMenus();
 
 		System.out.println("Turn: " + board.getTurn());
 		Board.printBoard(board.getGameBoard());
 
+		restartAnalysis();
+
 		if (GameParameters.gameMode == GameMode.HUMAN_VS_MINIMAX_AI) {
 			ai = new MiniMaxAi(GameParameters.maxDepth1, Constants.P2);
+			ai.setTranspositionTable(transpositionTable);
 		} else if (GameParameters.gameMode == GameMode.MINIMAX_AI_VS_MINIMAX_AI) {
 			setAllButtonsEnabled(false);
 
@@ -531,6 +484,8 @@ public class Connect4Gui {
 			// Initial maxDepth = 4. We can change this value for difficulty adjustment.
 			MiniMaxAi ai1 = new MiniMaxAi(GameParameters.maxDepth1, Constants.P1);
 			MiniMaxAi ai2 = new MiniMaxAi(GameParameters.maxDepth2, Constants.P2);
+			ai1.setTranspositionTable(transpositionTable);
+			ai2.setTranspositionTable(transpositionTable);
 
 			while (!board.isGameOver()) {
 				aiMove(ai1);
@@ -595,55 +550,31 @@ public class Connect4Gui {
 
 
 	// It finds which player plays next and makes a move on the board.
+	// A full column sets the overflow flag of the board, and the move is not made.
 	public static void makeMove(int col) {
 		board.setOverflow(false);
 
-		int previousRow = board.getLastMove().getRow();
-		int previousCol = board.getLastMove().getColumn();
-		int previousLetter = board.getLastPlayer();
-
-		if (board.getLastPlayer() == Constants.P2) {
-			board.makeMove(col, Constants.P1);
-		} else {
-			board.makeMove(col, Constants.P2);
-		}
-
-		if (board.isOverflow()) {
-			board.getLastMove().setRow(previousRow);
-			board.getLastMove().setColumn(previousCol);
-			board.setLastPlayer(previousLetter);
-
-			undoBoards.pop();
+		if (!history.play(col, history.getNextPlayer())) {
+			System.err.println("Column " + (col+1) + " is full!");
+			board.setOverflow(true);
 		}
 
 	}
 
 
-	// It places a checker on the board.
-	public static void placeChecker(Color color, int row, int col) {
-		String colorString = String.valueOf(color).charAt(0) + String.valueOf(color).toLowerCase().substring(1);
-		int xOffset = 75 * col;
-		int yOffset = 75 * row;
-		ImageIcon checkerIcon = new ImageIcon(ResourceLoader.load("images/" + colorString + ".png"));
-
-		JLabel checkerLabel = new JLabel(checkerIcon);
-		checkerLabel.setBounds(27 + xOffset, 27 + yOffset, checkerIcon.getIconWidth(),checkerIcon.getIconHeight());
-		layeredGameBoard.add(checkerLabel, 0, 0);
-
-		undoCheckerLabels.push(checkerLabel);
+	// It shows the checker of the board at the given cell.
+	// The board panel paints the checker with the color of the player of the cell.
+	public static void placeChecker(int row, int col) {
+		boardPanel.repaintCell(row, col);
 
+		// The AI vs AI games are played without returning to the event dispatch thread,
+		// so the cell and the turn are painted at once.
 		try {
-			if (GameParameters.gameMode == GameMode.MINIMAX_AI_VS_MINIMAX_AI) {
-				Thread.sleep(Constants.AI_MOVE_MILLISECONDS);
-				frameMainWindow.paint(frameMainWindow.getGraphics());
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-		try {
-			if (GameParameters.gameMode == GameMode.RANDOM_CHOICE_AI_VS_RANDOM_CHOICE_AI) {
+			if (GameParameters.gameMode == GameMode.MINIMAX_AI_VS_MINIMAX_AI
+					|| GameParameters.gameMode == GameMode.RANDOM_CHOICE_AI_VS_RANDOM_CHOICE_AI) {
 				Thread.sleep(Constants.AI_MOVE_MILLISECONDS);
-				frameMainWindow.paint(frameMainWindow.getGraphics());
+				boardPanel.paintCellImmediately(row, col);
+				turnMessage.paintImmediately(turnMessage.getVisibleRect());
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -651,6 +582,18 @@ public class Connect4Gui {
 	}
 
 
+	// The analysis, if enabled, follows every change of the position: a move, an undo, a redo or a novel position.
+	static void restartAnalysis() {
+		analysis.restart(board);
+	}
+
+
+	// It paints again all the checkers of the board, e.g. after an undo or a novel position.
+	static void redrawCheckers() {
+		boardPanel.repaint();
+	}
+
+
 	// Gets called after makeMove(int, col) is called.
 	public static boolean game() {
 
@@ -659,16 +602,11 @@ public class Connect4Gui {
 		int row = board.getLastMove().getRow();
 		int col = board.getLastMove().getColumn();
 		int currentPlayer = board.getLastPlayer();
+		MoveEvent.emit("GUI", currentPlayer, row, col, board.getTurn());
 
-		if (currentPlayer == Constants.P1) {
-			// It places a checker in the corresponding [row][col] of the GUI.
-			placeChecker(GameParameters.player1Color, row, col);
-		}
-
-		if (currentPlayer == Constants.P2) {
-			// It places a checker in the corresponding [row][col] of the GUI.
-			placeChecker(GameParameters.player2Color, row, col);
-		}
+		// It places a checker in the corresponding [row][col] of the GUI.
+		placeChecker(row, col);
+		restartAnalysis();
 
 		System.out.println("Turn: " + board.getTurn());
 		Board.printBoard(board.getGameBoard());
@@ -678,11 +616,7 @@ public class Connect4Gui {
 			gameOver();
 		}
 
-		undoItem.setEnabled(true);
-
-		redoBoards.clear();
-		redoCheckerLabels.clear();
-		redoItem.setEnabled(false);
+		updateUndoRedoItems();
 
 		return isGameOver;
 	}
@@ -691,15 +625,19 @@ public class Connect4Gui {
 	// Gets called after the human player makes a move. It makes a Minimax AI move.
 	public static void aiMove(MiniMaxAi ai){
 		// Move aiMove = ai.miniMax(board);
-		Move aiMove = ai.miniMaxAlphaBeta(board);
-		board.makeMove(aiMove.getColumn(), ai.getAiPlayer());
+		SearchResult result = ai.searchAlphaBeta(board);
+		Move aiMove = result.getMove();
+		searchMessage.setText(String.format("Depth %d, %d nodes, %d ms, %d nodes/s",
+				result.getStatistics().getDepth(), result.getStatistics().getNodes(),
+				result.getStatistics().getElapsedMillis(), result.getStatistics().getNodesPerSecond()));
+		history.play(aiMove.getColumn(), ai.getAiPlayer());
 		game();
 	}
 
 	// It makes a Random Choice AI move.
 	public static void rAiMove(RandomChoiceAi rAi){
 		Move rAiMove = rAi.randomMove(board);
-		board.makeMove(rAiMove.getColumn(), rAi.getAiPlayer());
+		history.play(rAiMove.getColumn(), rAi.getAiPlayer());
 		game();
 	}
 
@@ -713,7 +651,6 @@ public class Connect4Gui {
 
 				if (button.getActionListeners().length == 0) {
 					button.addActionListener(e -> {
-						undoBoards.push(new Board(board));
 						makeMove(column);
 
 						if (!board.isOverflow()) {
@@ -756,16 +693,21 @@ public class Connect4Gui {
 		}
 
 		// main Connect-4 board creation
-		layeredGameBoard = createLayeredBoard();
+		boardPanel = createBoardPanel();
 
 		// panel creation to store all the elements of the board
 		panelMain = new JPanel();
 		panelMain.setLayout(new BorderLayout());
 		panelMain.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
 
+		// The scores of the analysis are shown above the buttons.
+		JPanel panelNorth = new JPanel(new BorderLayout());
+		panelNorth.add(analysis.getScorePanel(), BorderLayout.NORTH);
+		panelNorth.add(panelBoardNumbers, BorderLayout.CENTER);
+
 		// add button and main board components to panelMain
-		panelMain.add(panelBoardNumbers, BorderLayout.NORTH);
-		panelMain.add(layeredGameBoard, BorderLayout.CENTER);
+		panelMain.add(panelNorth, BorderLayout.NORTH);
+		panelMain.add(boardPanel, BorderLayout.CENTER);
 
 		frameMainWindow.setResizable(false);
 		return panelMain;
@@ -777,6 +719,7 @@ public class Connect4Gui {
 	// of the class "Board".
 	public static void gameOver() {
 		board.setGameOver(true);
+		GameOverEvent.emit("GUI", board.getWinner(), board.getTurn());
 
 		int choice = 0;
 		if (board.getWinner() == Constants.P1) {
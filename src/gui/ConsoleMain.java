@@ -4,10 +4,20 @@ package gui;
 // exception for the class "Scanner"
 
 import connect4.Board;
+import connect4.Evaluator;
+import connect4.Geometry;
 import connect4.MiniMaxAi;
 import connect4.Move;
+import connect4.NTupleEvaluator;
+import connect4.PersistentTranspositionTable;
+import connect4.ThreatSpaceSearch;
+import connect4.WindowEvaluator;
+import monitoring.GameOverEvent;
+import monitoring.MoveEvent;
 import utility.Constants;
+import utility.GameParameters;
 
+import java.io.IOException;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 // import java.util.Random;
@@ -15,10 +25,32 @@ import java.util.Scanner;
 
 public class ConsoleMain {
 	
-	static final int numOfColumns = Constants.NUM_OF_COLUMNS;
-	static final int inARow = Constants.IN_A_ROW;
-	
-	public static void main(String[] args) {
+	// The board can be given as an argument, e.g. "9x7x5" for 9 columns, 7 rows and Connect-5.
+	// With "--engine", it speaks the engine protocol on stdin and stdout instead (see EngineProtocol).
+	public static void main(String[] args) throws IOException {
+		
+		boolean engineMode = false;
+		Geometry geometry = Geometry.STANDARD;
+		for (String arg : args) {
+			if (arg.equals("--engine")) {
+				engineMode = true;
+			} else {
+				geometry = Geometry.parse(arg);
+			}
+		}
+		// The n-tuple network or the tuned weights, if any, are used by all the searches.
+		Evaluator evaluator = NTupleEvaluator.open(GameParameters.nTupleFile, WindowEvaluator.open(GameParameters.weightsFile));
+		MiniMaxAi.setDefaultEvaluator(evaluator);
+		if (engineMode) {
+			EngineProtocol protocol = new EngineProtocol(System.out, geometry,
+					PersistentTranspositionTable.open(GameParameters.transpositionTableFile, GameParameters.transpositionTableMegabytes,
+							evaluator.hashCode()));
+			protocol.run(System.in);
+			return;
+		}
+
+		int numOfColumns = geometry.getNumOfColumns();
+		int inARow = geometry.getInARow();
 		
 		StringBuilder validNumbers = new StringBuilder();
 		for (int i=0; i<numOfColumns; i++) {
@@ -38,7 +70,14 @@ public class ConsoleMain {
 		int XColumnPosition;
 		int maxDepth = 3;
 		MiniMaxAi OPlayer = new MiniMaxAi(maxDepth, Constants.P2);
-		Board connect4Board = new Board();
+		// On large boards the winning combinations are too deep for the MiniMax search alone.
+		if (!geometry.isStandard()) {
+			OPlayer.setThreatSpaceSearch(new ThreatSpaceSearch());
+		}
+		// The positions searched in earlier games are looked up instead of searched again.
+		OPlayer.setTranspositionTable(PersistentTranspositionTable.open(GameParameters.transpositionTableFile,
+				GameParameters.transpositionTableMegabytes, evaluator.hashCode()));
+		Board connect4Board = new Board(geometry);
 
         // Uncomment this, for "O" to play first
 		// board.setLastLetterPlayed(Board.X);
@@ -72,6 +111,8 @@ public class ConsoleMain {
         				break;
         			}
 					connect4Board.makeMove(XColumnPosition-1, Constants.P1);
+					MoveEvent.emit("Console", Constants.P1, connect4Board.getLastMove().getRow(),
+							connect4Board.getLastMove().getColumn(), connect4Board.getTurn());
 					System.out.println();
 					break;
 					
@@ -89,6 +130,12 @@ public class ConsoleMain {
 					// connectNBoard.makeMove(randomNum, Constants.O);
 
 					connect4Board.makeMove(OMove.getColumn(), Constants.P2);
+					MoveEvent.emit("Console", Constants.P2, connect4Board.getLastMove().getRow(),
+							connect4Board.getLastMove().getColumn(), connect4Board.getTurn());
+					if (OPlayer.getLastThreatSpaceResult() != null && OPlayer.getLastThreatSpaceResult().isWin()) {
+						System.out.println("Threat-space search: " + OPlayer.getLastThreatSpaceResult());
+					}
+					System.out.println("Search: " + OPlayer.getLastSearchStatistics());
 					System.out.println();
 					break;
 					
@@ -99,6 +146,7 @@ public class ConsoleMain {
 			Board.printBoard(connect4Board.getGameBoard());
 		}
 		in.close();
+		GameOverEvent.emit("Console", connect4Board.getWinner(), connect4Board.getTurn());
 		
 		System.out.println();
 
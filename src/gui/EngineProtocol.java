@@ -0,0 +1,199 @@
+package gui;
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import connect4.Board;
+import connect4.Geometry;
+import connect4.MiniMaxAi;
+import connect4.Move;
+import connect4.SearchResult;
+import connect4.SearchStatistics;
+import connect4.ThreatSpaceSearch;
+import connect4.TranspositionTable;
+import utility.Constants;
+
+
+/*
+ * A line-based engine protocol, so that other programs can play against the AI through stdin and stdout.
+ * The searches run in the background, so "stop", "isready" and "quit" are answered while searching.
+ * Columns count from 1, and the scores are from the point of view of the player to move.
+ *
+ * Commands:
+ *   newgame [7x6x4]                   a new game, on the given board
+ *   position [moves]                  the position after the moves, e.g. "position 4453"
+ *   go [depth N] [movetime MS] [nodes N]
+ *                                     it searches the position, with the given limits (default: none),
+ *                                     answering "info ..." after every iteration, then "bestmove C"
+ *   stop                              the search returns the move of its last completed iteration
+ *   isready                           it answers "readyok"
+ *   quit
+ */
+public class EngineProtocol {
+
+	private final PrintStream out;
+	private final TranspositionTable transpositionTable;
+
+	private Geometry geometry;
+	private Board board;
+
+	// The running search, if any.
+	private MiniMaxAi ai;
+	private Thread searchThread;
+
+
+	public EngineProtocol(PrintStream out, Geometry geometry, TranspositionTable transpositionTable) {
+		this.out = out;
+		this.transpositionTable = transpositionTable;
+		this.geometry = geometry;
+		this.board = new Board(geometry);
+	}
+
+
+	/*
+	 * It reads and executes the commands, until "quit" or the end of the input.
+	 * "quit" stops the running search, while at the end of the input the search is completed,
+	 * so that a script can pipe "position ..." and "go ..." and read the answer.
+	 */
+	public void run(InputStream in) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (!execute(line.trim())) {
+				stopSearch();
+				return;
+			}
+		}
+		waitForSearch();
+	}
+
+
+	// It returns false after "quit".
+	boolean execute(String line) {
+		String[] tokens = line.split("\\s+");
+		try {
+			switch (tokens[0]) {
+				case "":
+					break;
+				case "isready":
+					send("readyok");
+					break;
+				case "newgame":
+					stopSearch();
+					geometry = (tokens.length > 1) ? Geometry.parse(tokens[1]) : geometry;
+					board = new Board(geometry);
+					break;
+				case "position":
+					stopSearch();
+					board = (tokens.length > 1) ? Board.fromMoveString(geometry, tokens[tokens.length - 1]) : new Board(geometry);
+					break;
+				case "go":
+					stopSearch();
+					go(tokens);
+					break;
+				case "stop":
+					stopSearch();
+					break;
+				case "quit":
+					return false;
+				default:
+					send("info string unknown command: " + tokens[0]);
+			}
+		} catch (RuntimeException e) {
+			send("info string ERROR : " + e.getMessage());
+		}
+		return true;
+	}
+
+
+	private void go(String[] tokens) {
+		int depth = geometry.getNumOfCells();
+		long moveTime = 0;
+		long nodes = 0;
+		for (int i=1; i<tokens.length; i++) {
+			switch (tokens[i]) {
+				case "depth":
+					depth = Integer.parseInt(tokens[++i]);
+					break;
+				case "movetime":
+					moveTime = Long.parseLong(tokens[++i]);
+					break;
+				case "nodes":
+					nodes = Long.parseLong(tokens[++i]);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown limit: " + tokens[i] + ".");
+			}
+		}
+		if (board.checkForGameOver()) {
+			throw new IllegalStateException("The game is over.");
+		}
+
+		int player = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+		MiniMaxAi searcher = new MiniMaxAi(Math.max(1, depth), player);
+		searcher.setTranspositionTable(transpositionTable);
+		searcher.setNodeLimit(nodes);
+		if (!geometry.isStandard()) {
+			searcher.setThreatSpaceSearch(new ThreatSpaceSearch());
+		}
+		Board position = new Board(board);
+		long timeLimit = moveTime;
+		ai = searcher;
+		searchThread = new Thread(() -> {
+			SearchResult result = searcher.searchAlphaBeta(position, timeLimit,
+					(move, statistics) -> send(formatInfo(move, statistics, player)));
+			// A forced win of the threat-space search has no iterations.
+			if (result.getStatistics().getDepth() == 0) {
+				send(formatInfo(result.getMove(), result.getStatistics(), player));
+			}
+			send("bestmove " + (result.getMove().getColumn() + 1));
+		}, "engine-search");
+		searchThread.start();
+	}
+
+
+	// e.g. "info depth 7 score 12 nodes 35512 time 40 nps 887800 pv 4"
+	private static String formatInfo(Move move, SearchStatistics statistics, int player) {
+		int score = (player == Constants.P1) ? move.getValue() : -move.getValue();
+		return "info depth " + statistics.getDepth() + " score " + score + " nodes " + statistics.getNodes()
+				+ " time " + statistics.getElapsedMillis() + " nps " + statistics.getNodesPerSecond()
+				+ " pv " + (move.getColumn() + 1);
+	}
+
+
+	// It stops the running search, if any, and waits for its "bestmove".
+	private void stopSearch() {
+		if (searchThread != null) {
+			ai.stop();
+		}
+		waitForSearch();
+	}
+
+
+	private void waitForSearch() {
+		if (searchThread == null) {
+			return;
+		}
+		try {
+			searchThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		searchThread = null;
+		ai = null;
+	}
+
+
+	private void send(String message) {
+		synchronized (out) {
+			out.println(message);
+			out.flush();
+		}
+	}
+
+}
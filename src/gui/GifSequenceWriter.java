@@ -0,0 +1,121 @@
+package gui;
+
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+
+/*
+ * It writes an animated GIF, one frame at a time.
+ * Each frame is encoded and written to the file as soon as it is given,
+ * so the memory used does not depend on the number of frames.
+ * The animation repeats forever.
+ */
+public class GifSequenceWriter implements Closeable {
+
+	private static final String METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+
+	private final ImageOutputStream output;
+	private final ImageWriter writer;
+	private boolean firstFrame = true;
+
+
+	public GifSequenceWriter(File file) throws IOException {
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersBySuffix("gif");
+		if (!writers.hasNext()) {
+			throw new IOException("No GIF image writer is available.");
+		}
+		file.delete();
+		this.output = new FileImageOutputStream(file);
+		this.writer = writers.next();
+		writer.setOutput(output);
+		writer.prepareWriteSequence(null);
+	}
+
+
+	// It writes a frame, shown for "delayMillis" milliseconds.
+	// The image can be changed and given again for the next frame.
+	public void writeFrame(BufferedImage image, int delayMillis) throws IOException {
+		writeFrame(image, 0, 0, delayMillis);
+	}
+
+
+	/*
+	 * It writes a frame that only covers a part of the animation, at (x, y).
+	 * The rest of the previous frame stays visible, so a frame can contain only the pixels that changed.
+	 * The first frame must cover the whole animation.
+	 */
+	public void writeFrame(BufferedImage image, int x, int y, int delayMillis) throws IOException {
+		IIOMetadata metadata = createMetadata(image, x, y, delayMillis);
+		writer.writeToSequence(new IIOImage(image, null, metadata), null);
+		firstFrame = false;
+	}
+
+
+	private IIOMetadata createMetadata(BufferedImage image, int x, int y, int delayMillis) throws IOException {
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param);
+		IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(METADATA_FORMAT);
+
+		IIOMetadataNode imageDescriptor = getChild(root, "ImageDescriptor");
+		imageDescriptor.setAttribute("imageLeftPosition", Integer.toString(x));
+		imageDescriptor.setAttribute("imageTopPosition", Integer.toString(y));
+
+		// The delay is written in hundredths of a second.
+		IIOMetadataNode graphicControl = getChild(root, "GraphicControlExtension");
+		graphicControl.setAttribute("disposalMethod", "none");
+		graphicControl.setAttribute("userInputFlag", "FALSE");
+		graphicControl.setAttribute("transparentColorFlag", "FALSE");
+		graphicControl.setAttribute("delayTime", Integer.toString(Math.max(0, delayMillis / 10)));
+		graphicControl.setAttribute("transparentColorIndex", "0");
+
+		// The "NETSCAPE2.0" extension of the first frame makes the animation loop, 0 meaning forever.
+		if (firstFrame) {
+			IIOMetadataNode applicationExtension = new IIOMetadataNode("ApplicationExtension");
+			applicationExtension.setAttribute("applicationID", "NETSCAPE");
+			applicationExtension.setAttribute("authenticationCode", "2.0");
+			applicationExtension.setUserObject(new byte[] {1, 0, 0});
+			getChild(root, "ApplicationExtensions").appendChild(applicationExtension);
+		}
+
+		metadata.setFromTree(METADATA_FORMAT, root);
+		return metadata;
+	}
+
+
+	private static IIOMetadataNode getChild(IIOMetadataNode root, String name) {
+		for (int i=0; i<root.getLength(); i++) {
+			if (root.item(i).getNodeName().equalsIgnoreCase(name)) {
+				return (IIOMetadataNode) root.item(i);
+			}
+		}
+		IIOMetadataNode node = new IIOMetadataNode(name);
+		root.appendChild(node);
+		return node;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		try {
+			writer.endWriteSequence();
+		} finally {
+			writer.dispose();
+			output.close();
+		}
+	}
+
+}
@@ -0,0 +1,208 @@
+package gui;
+
+
+import java.awt.GridLayout;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.Timer;
+
+import connect4.Board;
+import connect4.MiniMaxAi;
+import connect4.PrincipalVariation;
+import connect4.SearchStatistics;
+import connect4.TranspositionTable;
+import utility.Constants;
+
+
+/*
+ * The live analysis of the GUI. It searches the current position on a background thread, with iterative deepening,
+ * and shows the score of every column above its button, along with the depth and the nodes per second.
+ * The scores are from the point of view of the player to move.
+ *
+ * Every change of the position restarts the analysis: the running search is stopped without waiting for it,
+ * and the search of the new position starts as soon as the old one returns.
+ * The search never touches the components: it publishes its last completed iteration,
+ * and a Swing timer shows it on the event dispatch thread, a few times per second.
+ */
+public class LiveAnalysis {
+
+	// The labels are updated at most this often.
+	static final int REFRESH_MILLIS = 250;
+
+	private final TranspositionTable transpositionTable;
+	private final JPanel scorePanel;
+	private final JLabel[] scoreLabels;
+	private final JLabel statusLabel;
+	private final Timer timer;
+	private final ExecutorService executor;
+
+	// It changes with every restart, so that the searches of old positions are ignored, or not even started.
+	private final AtomicLong generation = new AtomicLong();
+
+	// The running search, if any.
+	private volatile MiniMaxAi ai;
+
+	// The last completed iteration of the current position, or null.
+	private volatile Analysis latest;
+
+	// The iteration that the labels show, on the event dispatch thread.
+	private Analysis shown;
+
+	private volatile boolean enabled;
+
+	// Whether the current position is analyzed, i.e. the analysis is enabled and the game is not over.
+	private volatile boolean analyzing;
+
+
+	// An iteration of the analysis of a position.
+	private static class Analysis {
+		final long generation;
+		final int player;
+		final List<PrincipalVariation> variations;
+		final SearchStatistics statistics;
+
+		Analysis(long generation, int player, List<PrincipalVariation> variations, SearchStatistics statistics) {
+			this.generation = generation;
+			this.player = player;
+			this.variations = variations;
+			this.statistics = statistics;
+		}
+	}
+
+
+	public LiveAnalysis(int numOfColumns, TranspositionTable transpositionTable) {
+		this.transpositionTable = transpositionTable;
+
+		// The same layout as the column buttons, so that every score is above its button.
+		scorePanel = new JPanel(new GridLayout(1, numOfColumns, Constants.NUM_OF_ROWS, 4));
+		scorePanel.setBorder(BorderFactory.createEmptyBorder(2, 22, 2, 22));
+		scoreLabels = new JLabel[numOfColumns];
+		for (int i=0; i<numOfColumns; i++) {
+			scoreLabels[i] = new JLabel(" ", SwingConstants.CENTER);
+			scorePanel.add(scoreLabels[i]);
+		}
+		scorePanel.setVisible(false);
+		statusLabel = new JLabel(" ");
+
+		timer = new Timer(REFRESH_MILLIS, e -> refresh());
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "live-analysis");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+
+	// The scores of the columns, to be placed above the column buttons.
+	public JPanel getScorePanel() {
+		return scorePanel;
+	}
+
+
+	// The depth and the nodes per second of the analysis.
+	public JLabel getStatusLabel() {
+		return statusLabel;
+	}
+
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+
+	// It turns the analysis on or off, and analyzes the given position if on.
+	public void setEnabled(boolean enabled, Board board) {
+		this.enabled = enabled;
+		scorePanel.setVisible(enabled);
+		if (enabled) {
+			timer.start();
+		} else {
+			timer.stop();
+		}
+		restart(board);
+		refresh();
+	}
+
+
+	/*
+	 * It analyzes the given position, instead of the previous one.
+	 * It returns at once, so it can be called on the event dispatch thread, after every change of the position.
+	 * A finished game is not analyzed.
+	 */
+	public void restart(Board board) {
+		long current = generation.incrementAndGet();
+		latest = null;
+		MiniMaxAi running = ai;
+		if (running != null) {
+			running.stop();
+		}
+		analyzing = enabled && !board.checkForGameOver();
+		if (!analyzing) {
+			return;
+		}
+		Board position = new Board(board);
+		executor.execute(() -> analyze(position, current));
+	}
+
+
+	// It runs on the analysis thread, until the position is solved to its last cell or the analysis is restarted.
+	private void analyze(Board position, long current) {
+		int player = (position.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+		MiniMaxAi searcher = new MiniMaxAi(position.getGeometry().getNumOfCells(), player);
+		searcher.setTranspositionTable(transpositionTable);
+		// The search is published before the generation is checked, so that a restart either stops it or prevents it.
+		ai = searcher;
+		try {
+			if (generation.get() != current) {
+				return;
+			}
+			searcher.searchMultiPv(position, position.getGeometry().getNumOfColumns(), (variations, statistics) -> {
+				if (generation.get() == current) {
+					latest = new Analysis(current, player, variations, statistics);
+				}
+			});
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		} finally {
+			ai = null;
+		}
+	}
+
+
+	// It shows the last iteration, if it has changed, on the event dispatch thread.
+	private void refresh() {
+		Analysis analysis = latest;
+		if (analysis != null && analysis.generation != generation.get()) {
+			analysis = null;
+		}
+		if (analysis == shown && analysis != null) {
+			return;
+		}
+		shown = analysis;
+
+		for (JLabel label : scoreLabels) {
+			label.setText(" ");
+		}
+		if (analysis == null) {
+			statusLabel.setText(analyzing ? "Analysis: searching..." : " ");
+			return;
+		}
+		for (PrincipalVariation variation : analysis.variations) {
+			int score = (analysis.player == Constants.P1) ? variation.getScore() : -variation.getScore();
+			if (variation.getColumn() < scoreLabels.length) {
+				scoreLabels[variation.getColumn()].setText((score > 0 ? "+" : "") + score);
+			}
+		}
+		statusLabel.setText(String.format("Analysis: depth %d, %d nodes/s",
+				analysis.statistics.getDepth(), analysis.statistics.getNodesPerSecond()));
+	}
+
+}
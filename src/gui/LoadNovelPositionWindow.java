@@ -3,7 +3,6 @@ package gui;
 
 import connect4.Board;
 import utility.Constants;
-import utility.GameParameters;
 
 import javax.swing.*;
 import java.awt.event.ActionEvent;
@@ -116,16 +115,17 @@ public class LoadNovelPositionWindow extends JFrame {
 					player = (player == 0) ? Constants.P1 : Constants.P2;
 					
 
-					if (Connect4Gui.board.getGameBoard()[row][column] == Constants.EMPTY) {
+					if (Connect4Gui.board.getCell(row, column) == Constants.EMPTY) {
 						Connect4Gui.board.setTurn(Connect4Gui.board.getTurn() + 1);
 						Connect4Gui.turnMessage.setText("Turn: " + Connect4Gui.board.getTurn());
 					}
 				    
-					Connect4Gui.board.getGameBoard()[row][column] = player;
-					if (player == Constants.P1)
-						Connect4Gui.placeChecker(GameParameters.player1Color, row, column);
-					else if (player == Constants.P2)
-						Connect4Gui.placeChecker(GameParameters.player2Color, row, column);
+					Connect4Gui.board.setCell(row, column, player);
+					// The novel position is not the result of the moves of the history.
+					Connect4Gui.history.resetToCurrentPosition();
+					Connect4Gui.updateUndoRedoItems();
+					Connect4Gui.redrawCheckers();
+					Connect4Gui.restartAnalysis();
 					
 					Board.printBoard(Connect4Gui.board.getGameBoard());
 					
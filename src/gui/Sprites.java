@@ -0,0 +1,136 @@
+package gui;
+
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+import enumeration.Color;
+import utility.ResourceLoader;
+
+
+/*
+ * The images of the board and of the checkers.
+ * Each image file is decoded once, and each scaled image is made once per size,
+ * then they are shared by all the components and renderers, from any thread.
+ *
+ * "Board.png" is the frame of the standard 7x6 board: cells of 75 pixels, plus a border
+ * on the right and at the bottom. Frames of other sizes are made by repeating its cells.
+ */
+public final class Sprites {
+
+	// The size of a cell in the images, in pixels.
+	public static final int CELL_SIZE = 75;
+
+	// The position of a checker inside its cell, in the images.
+	static final int CHECKER_OFFSET = 7;
+
+	private static final Map<String, BufferedImage> decoded = new ConcurrentHashMap<>();
+	private static final Map<String, BufferedImage> scaled = new ConcurrentHashMap<>();
+
+	private Sprites() {
+
+	}
+
+
+	// The image of a checker of the given color, for cells of "cellSize" pixels.
+	public static BufferedImage getChecker(Color color, int cellSize) {
+		return scaled.computeIfAbsent(color + "@" + cellSize, key -> {
+			BufferedImage image = decode(getFileName(color));
+			return scale(image, image.getWidth() * cellSize / CELL_SIZE, image.getHeight() * cellSize / CELL_SIZE);
+		});
+	}
+
+
+	// The image of an empty board, for cells of "cellSize" pixels.
+	public static BufferedImage getFrame(int numOfRows, int numOfColumns, int cellSize) {
+		return scaled.computeIfAbsent(numOfRows + "x" + numOfColumns + "@" + cellSize, key -> {
+			BufferedImage frame = tileFrame(numOfRows, numOfColumns);
+			return scale(frame, frame.getWidth() * cellSize / CELL_SIZE, frame.getHeight() * cellSize / CELL_SIZE);
+		});
+	}
+
+
+	// The position of a checker inside its cell, for cells of "cellSize" pixels.
+	public static int getCheckerOffset(int cellSize) {
+		return CHECKER_OFFSET * cellSize / CELL_SIZE;
+	}
+
+
+	// e.g. RED -> "images/Red.png"
+	private static String getFileName(Color color) {
+		String colorString = String.valueOf(color).charAt(0) + String.valueOf(color).toLowerCase().substring(1);
+		return "images/" + colorString + ".png";
+	}
+
+
+	private static BufferedImage decode(String path) {
+		return decoded.computeIfAbsent(path, key -> {
+			URL url = ResourceLoader.load(path);
+			if (url == null) {
+				throw new IllegalStateException("The image \"" + path + "\" was not found.");
+			}
+			try {
+				BufferedImage image = ImageIO.read(url);
+				BufferedImage argb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+				Graphics2D g = argb.createGraphics();
+				g.drawImage(image, 0, 0, null);
+				g.dispose();
+				return argb;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+
+	// It repeats the cells of "Board.png", then adds its right and bottom borders.
+	private static BufferedImage tileFrame(int numOfRows, int numOfColumns) {
+		BufferedImage standard = decode("images/Board.png");
+		int rightBorder = standard.getWidth() - 7 * CELL_SIZE;
+		int bottomBorder = standard.getHeight() - 6 * CELL_SIZE;
+		BufferedImage cell = standard.getSubimage(0, 0, CELL_SIZE, CELL_SIZE);
+		BufferedImage right = standard.getSubimage(7 * CELL_SIZE, 0, rightBorder, CELL_SIZE);
+		BufferedImage bottom = standard.getSubimage(0, 6 * CELL_SIZE, CELL_SIZE, bottomBorder);
+		BufferedImage corner = standard.getSubimage(7 * CELL_SIZE, 6 * CELL_SIZE, rightBorder, bottomBorder);
+
+		int width = numOfColumns * CELL_SIZE;
+		int height = numOfRows * CELL_SIZE;
+		BufferedImage frame = new BufferedImage(width + rightBorder, height + bottomBorder, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = frame.createGraphics();
+		for (int row=0; row<numOfRows; row++) {
+			for (int col=0; col<numOfColumns; col++) {
+				g.drawImage(cell, col * CELL_SIZE, row * CELL_SIZE, null);
+			}
+			g.drawImage(right, width, row * CELL_SIZE, null);
+		}
+		for (int col=0; col<numOfColumns; col++) {
+			g.drawImage(bottom, col * CELL_SIZE, height, null);
+		}
+		g.drawImage(corner, width, height, null);
+		g.dispose();
+		return frame;
+	}
+
+
+	private static BufferedImage scale(BufferedImage image, int width, int height) {
+		if (width == image.getWidth() && height == image.getHeight()) {
+			return image;
+		}
+		BufferedImage result = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = result.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.drawImage(image, 0, 0, result.getWidth(), result.getHeight(), null);
+		g.dispose();
+		return result;
+	}
+
+}
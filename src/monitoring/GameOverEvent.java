@@ -0,0 +1,42 @@
+package monitoring;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+// The end of a game.
+@Name("connect4.GameOver")
+@Label("Game Over")
+@Category({"Connect-4", "Game"})
+@Enabled(false)
+@StackTrace(false)
+public class GameOverEvent extends Event {
+
+	@Label("Source")
+	public String source;
+
+	@Label("Winner")
+	@Description("The winning player, or 0 for a draw")
+	public int winner;
+
+	@Label("Turns")
+	public int turns;
+
+
+	public static void emit(String source, int winner, int turns) {
+		GameOverEvent event = new GameOverEvent();
+		if (event.shouldCommit()) {
+			event.source = source;
+			event.winner = winner;
+			event.turns = turns;
+			event.commit();
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+package monitoring;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+// A completed iteration of an iterative deepening search.
+@Name("connect4.Iteration")
+@Label("Iteration")
+@Category({"Connect-4", "Engine"})
+@Description("An iteration of an iterative deepening search of the MiniMax AI")
+@Enabled(false)
+@StackTrace(false)
+public class IterationEvent extends Event {
+
+	@Label("Depth")
+	public int depth;
+
+	@Label("Nodes")
+	@Description("The nodes of the search so far")
+	public long nodes;
+
+	@Label("Best Column")
+	@Description("The best column of the iteration, numbered from 1")
+	public int bestColumn;
+
+	@Label("Score")
+	public int score;
+
+}
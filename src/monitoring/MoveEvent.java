@@ -0,0 +1,48 @@
+package monitoring;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+// A move applied to the board of a game, by a human or an AI.
+@Name("connect4.Move")
+@Label("Move")
+@Category({"Connect-4", "Game"})
+@Enabled(false)
+@StackTrace(false)
+public class MoveEvent extends Event {
+
+	@Label("Source")
+	public String source;
+
+	@Label("Player")
+	public int player;
+
+	@Label("Row")
+	public int row;
+
+	@Label("Column")
+	public int column;
+
+	@Label("Turn")
+	public int turn;
+
+
+	public static void emit(String source, int player, int row, int column, int turn) {
+		MoveEvent event = new MoveEvent();
+		if (event.shouldCommit()) {
+			event.source = source;
+			event.player = player;
+			event.row = row + 1;
+			event.column = column + 1;
+			event.turn = turn;
+			event.commit();
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+package monitoring;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+// A whole search of the MiniMax AI. Its duration is the time the AI needed for a move.
+@Name("connect4.Search")
+@Label("Search")
+@Category({"Connect-4", "Engine"})
+@Description("A search of the MiniMax AI, from start to end")
+@Enabled(false)
+@StackTrace(false)
+public class SearchEvent extends Event {
+
+	@Label("Algorithm")
+	public String algorithm;
+
+	@Label("AI Player")
+	public int aiPlayer;
+
+	@Label("Turn")
+	public int turn;
+
+	@Label("Depth")
+	@Description("The depth of the last completed iteration")
+	public int depth;
+
+	@Label("Nodes")
+	public long nodes;
+
+	@Label("Best Column")
+	@Description("The chosen column, numbered from 1")
+	public int bestColumn;
+
+	@Label("Score")
+	public int score;
+
+}
@@ -0,0 +1,425 @@
+package server;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import connect4.Board;
+import connect4.Geometry;
+import connect4.MemoryTranspositionTable;
+import connect4.MiniMaxAi;
+import connect4.Move;
+import connect4.NTupleEvaluator;
+import connect4.RandomChoiceAi;
+import connect4.SearchResult;
+import connect4.TranspositionTable;
+import connect4.WindowEvaluator;
+import utility.Constants;
+import utility.GameParameters;
+
+
+/*
+ * An HTTP server for Connect-4 games, built on the HTTP server of the JDK.
+ * Each request runs on its own virtual thread, when the JDK has them (Java 21 and above),
+ * otherwise on a pool of platform threads. The games are kept in memory and
+ * removed when they are not used for "idleMillis".
+ * The searches of the AI use the CPU, so they run on a fixed pool, one thread per core by default,
+ * and wait in a bounded queue. When the queue is full, an AI move is answered with 503.
+ *
+ * Endpoints (the columns count from 1, the answers are the state of the game as JSON):
+ *   POST   /games[?geometry=7x6x4]                 creates a game
+ *   GET    /games/{id}                             the state of the game
+ *   POST   /games/{id}/moves?column=N              plays a move for the player to move
+ *   POST   /games/{id}/ai?engine=minimax&level=N   the AI plays a move for the player to move,
+ *                                                  "level" is the depth (1-10), or engine=random
+ *   GET    /games/{id}/events                      a stream of server-sent events, one per change
+ *   DELETE /games/{id}                             ends the game
+ *
+ * Usage: java server.GameServer [--port N] [--idle-minutes N] [--memory MB] [--search-threads N] [--search-queue N]
+ */
+public class GameServer {
+
+	static final int MAX_LEVEL = 10;
+
+	// The longest search of an AI move.
+	static final long AI_TIME_LIMIT_MILLIS = 2000;
+
+	static final int MAX_SESSIONS = 100000;
+
+	// The searches that may wait for a thread of the search pool, by default.
+	static final int SEARCH_QUEUE_SIZE = 256;
+
+	// A comment is sent to the idle event streams, so that closed connections are noticed.
+	static final long KEEP_ALIVE_MILLIS = 15000;
+
+	private final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
+	private final HttpServer httpServer;
+	private final ExecutorService executor;
+	private final ExecutorService searchExecutor;
+	private final ScheduledExecutorService evictor;
+	private final long idleMillis;
+
+	// It is shared by the searches of all the games.
+	private final TranspositionTable transpositionTable;
+
+
+	public GameServer(int port, long idleMillis, int memoryMegabytes) throws IOException {
+		this(port, idleMillis, memoryMegabytes, Runtime.getRuntime().availableProcessors(), SEARCH_QUEUE_SIZE);
+	}
+
+
+	// The searches run on "searchThreads" threads, and at most "searchQueueSize" of them wait for a thread.
+	public GameServer(int port, long idleMillis, int memoryMegabytes, int searchThreads, int searchQueueSize) throws IOException {
+		if (searchThreads < 1 || searchQueueSize < 0) {
+			throw new IllegalArgumentException("Invalid number of search threads or size of the search queue.");
+		}
+		this.idleMillis = idleMillis;
+		this.transpositionTable = new MemoryTranspositionTable(memoryMegabytes);
+		this.httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+		this.executor = createExecutor();
+		this.searchExecutor = new ThreadPoolExecutor(searchThreads, searchThreads, 0, TimeUnit.MILLISECONDS,
+				(searchQueueSize == 0) ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(searchQueueSize), r -> {
+					Thread thread = new Thread(r, "search");
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "session-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		httpServer.createContext("/games", this::handle);
+		httpServer.setExecutor(executor);
+	}
+
+
+	/*
+	 * A virtual thread per task, if the JDK has them. It is looked up by reflection,
+	 * so that the server also compiles and runs on older JDKs, with a cached thread pool.
+	 */
+	static ExecutorService createExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+
+	public void start() {
+		long period = Math.max(1000, Math.min(idleMillis / 2, 60000));
+		evictor.scheduleAtFixedRate(this::evictIdleSessions, period, period, TimeUnit.MILLISECONDS);
+		httpServer.start();
+	}
+
+
+	public void stop() {
+		httpServer.stop(0);
+		evictor.shutdownNow();
+		for (GameSession session : sessions.values()) {
+			session.close();
+		}
+		sessions.clear();
+		searchExecutor.shutdownNow();
+		executor.shutdownNow();
+	}
+
+
+	// The port of the server, e.g. when it was created with port 0.
+	public int getPort() {
+		return httpServer.getAddress().getPort();
+	}
+
+
+	public int getNumOfSessions() {
+		return sessions.size();
+	}
+
+
+	// It removes the games that were not used for "idleMillis", and ends their event streams.
+	void evictIdleSessions() {
+		long now = System.currentTimeMillis();
+		sessions.values().removeIf(session -> {
+			if (now - session.getLastAccessMillis() < idleMillis) {
+				return false;
+			}
+			session.close();
+			return true;
+		});
+	}
+
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			// e.g. "/games/{id}/moves" -> ["", "games", "{id}", "moves"]
+			String[] path = exchange.getRequestURI().getPath().split("/");
+			String method = exchange.getRequestMethod();
+			Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+			drainRequestBody(exchange);
+
+			if (path.length < 2 || !path[1].equals("games")) {
+				sendError(exchange, 404, "No such resource.");
+				return;
+			}
+			if (path.length == 2 && method.equals("POST")) {
+				createGame(exchange, query);
+				return;
+			}
+			GameSession session = (path.length >= 3) ? sessions.get(path[2]) : null;
+			if (session == null) {
+				sendError(exchange, 404, "No such game.");
+				return;
+			}
+			session.touch();
+			String action = (path.length == 4) ? path[3] : "";
+
+			if (path.length > 4) {
+				sendError(exchange, 404, "No such resource.");
+			} else if (action.isEmpty() && method.equals("GET")) {
+				sendJson(exchange, 200, session.toJson());
+			} else if (action.isEmpty() && method.equals("DELETE")) {
+				sessions.remove(session.getId());
+				session.close();
+				exchange.sendResponseHeaders(204, -1);
+			} else if (action.equals("moves") && method.equals("POST")) {
+				int col = Integer.parseInt(required(query, "column")) - 1;
+				session.play(col, -1);
+				sendJson(exchange, 200, session.toJson());
+			} else if (action.equals("ai") && method.equals("POST")) {
+				if (playAiMove(session, query)) {
+					sendJson(exchange, 200, session.toJson());
+				} else {
+					sendError(exchange, 503, "Too many AI moves are being searched.");
+				}
+			} else if (action.equals("events") && method.equals("GET")) {
+				streamEvents(exchange, session);
+			} else {
+				sendError(exchange, 405, "Method not allowed.");
+			}
+		} catch (IllegalArgumentException e) {
+			// NumberFormatException included.
+			sendError(exchange, 400, e.getMessage());
+		} catch (IllegalStateException e) {
+			sendError(exchange, 409, e.getMessage());
+		} finally {
+			exchange.close();
+		}
+	}
+
+
+	private void createGame(HttpExchange exchange, Map<String, String> query) throws IOException {
+		Geometry geometry = query.containsKey("geometry") ? Geometry.parse(query.get("geometry")) : Geometry.STANDARD;
+		if (sessions.size() >= MAX_SESSIONS) {
+			sendError(exchange, 503, "Too many games.");
+			return;
+		}
+		GameSession session = new GameSession(UUID.randomUUID().toString(), geometry);
+		sessions.put(session.getId(), session);
+		exchange.getResponseHeaders().set("Location", "/games/" + session.getId());
+		sendJson(exchange, 201, session.toJson());
+	}
+
+
+	/*
+	 * The AI searches a copy of the position, without holding the lock of the game,
+	 * then its move is played only if no other move was played meanwhile.
+	 * It returns false, without a move, if the search pool and its queue are full.
+	 */
+	private boolean playAiMove(GameSession session, Map<String, String> query) {
+		String engine = query.getOrDefault("engine", "minimax");
+		int ply;
+		Board board;
+		synchronized (session) {
+			ply = session.getPly();
+			board = session.copyBoard();
+		}
+		if (board.checkForGameOver()) {
+			throw new IllegalStateException("The game is over.");
+		}
+		int player = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+
+		Move move;
+		if (engine.equals("random")) {
+			move = new RandomChoiceAi(player).randomMove(board);
+		} else if (engine.equals("minimax")) {
+			int level = Integer.parseInt(query.getOrDefault("level", "5"));
+			if (level < 1 || level > MAX_LEVEL) {
+				throw new IllegalArgumentException("The level must be from 1 to " + MAX_LEVEL + ".");
+			}
+			MiniMaxAi ai = new MiniMaxAi(level, player);
+			ai.setTranspositionTable(transpositionTable);
+			Future<SearchResult> search;
+			try {
+				search = searchExecutor.submit(() -> ai.searchAlphaBeta(board, AI_TIME_LIMIT_MILLIS, null));
+			} catch (RejectedExecutionException e) {
+				return false;
+			}
+			try {
+				move = search.get().getMove();
+			} catch (InterruptedException e) {
+				// The server is stopping.
+				search.cancel(true);
+				Thread.currentThread().interrupt();
+				return false;
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("The search failed: " + e.getCause(), e.getCause());
+			}
+		} else {
+			throw new IllegalArgumentException("Unknown engine: " + engine + ".");
+		}
+		session.play(move.getColumn(), ply);
+		return true;
+	}
+
+
+	/*
+	 * It sends the state of the game, then every change, as server-sent events,
+	 * until the client disconnects or the game ends or is evicted.
+	 * The thread of the request waits on the queue of the subscriber.
+	 */
+	private void streamEvents(HttpExchange exchange, GameSession session) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+		exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+		exchange.sendResponseHeaders(200, 0);
+		BlockingQueue<String> queue = session.subscribe();
+		try (OutputStream output = exchange.getResponseBody()) {
+			while (true) {
+				String event = queue.poll(KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS);
+				if (event == null) {
+					output.write(": keep-alive\n\n".getBytes(StandardCharsets.UTF_8));
+				} else if (event.equals(GameSession.CLOSED)) {
+					output.write("event: closed\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8));
+					output.flush();
+					break;
+				} else {
+					output.write(("event: state\ndata: " + event + "\n\n").getBytes(StandardCharsets.UTF_8));
+				}
+				output.flush();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// The client disconnected.
+		} finally {
+			session.unsubscribe(queue);
+		}
+	}
+
+
+	private static void drainRequestBody(HttpExchange exchange) throws IOException {
+		try (InputStream input = exchange.getRequestBody()) {
+			byte[] buffer = new byte[1024];
+			while (input.read(buffer) != -1) {
+				// The requests have no body. It is read, so that the connection can be reused.
+			}
+		}
+	}
+
+
+	private static Map<String, String> parseQuery(String rawQuery) {
+		Map<String, String> query = new HashMap<>();
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return query;
+		}
+		for (String parameter : rawQuery.split("&")) {
+			int equals = parameter.indexOf('=');
+			String name = (equals < 0) ? parameter : parameter.substring(0, equals);
+			String value = (equals < 0) ? "" : parameter.substring(equals + 1);
+			query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+		return query;
+	}
+
+
+	private static String required(Map<String, String> query, String name) {
+		String value = query.get(name);
+		if (value == null) {
+			throw new IllegalArgumentException("The parameter \"" + name + "\" is missing.");
+		}
+		return value;
+	}
+
+
+	private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(body);
+		}
+	}
+
+
+	private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		String escaped = String.valueOf(message).replace("\\", "\\\\").replace("\"", "\\\"");
+		sendJson(exchange, status, "{\"error\":\"" + escaped + "\"}");
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		int port = 8080;
+		int idleMinutes = 30;
+		int memory = 64;
+		int searchThreads = Runtime.getRuntime().availableProcessors();
+		int searchQueueSize = SEARCH_QUEUE_SIZE;
+		try {
+			for (int i=0; i<args.length; i++) {
+				switch (args[i]) {
+					case "--port":
+						port = Integer.parseInt(args[++i]);
+						break;
+					case "--idle-minutes":
+						idleMinutes = Integer.parseInt(args[++i]);
+						break;
+					case "--memory":
+						memory = Integer.parseInt(args[++i]);
+						break;
+					case "--search-threads":
+						searchThreads = Integer.parseInt(args[++i]);
+						break;
+					case "--search-queue":
+						searchQueueSize = Integer.parseInt(args[++i]);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option: " + args[i] + ".");
+				}
+			}
+		} catch (RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			System.err.println("Usage: java server.GameServer [--port N] [--idle-minutes N] [--memory MB] "
+					+ "[--search-threads N] [--search-queue N]");
+			return;
+		}
+
+		// The n-tuple network or the tuned weights, if any, are used by all the searches.
+		MiniMaxAi.setDefaultEvaluator(NTupleEvaluator.open(GameParameters.nTupleFile, WindowEvaluator.open(GameParameters.weightsFile)));
+		GameServer server = new GameServer(port, idleMinutes * 60000L, memory, searchThreads, searchQueueSize);
+		server.start();
+		System.out.println("Connect-4 server listening on port " + server.getPort() + ".");
+	}
+
+}
@@ -0,0 +1,160 @@
+package server;
+
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import connect4.Board;
+import connect4.GameHistory;
+import connect4.Geometry;
+import utility.Constants;
+
+
+/*
+ * A game of the server. The moves are kept in a "GameHistory",
+ * and every change is sent to the subscribers of the game, as JSON.
+ * All the methods that read or change the history are synchronized,
+ * since the requests of a game may run concurrently.
+ */
+public class GameSession {
+
+	// It is given to the subscribers when the session is closed.
+	static final String CLOSED = "";
+
+	private final String id;
+	private final Geometry geometry;
+	private final GameHistory history;
+	private final List<BlockingQueue<String>> subscribers = new CopyOnWriteArrayList<>();
+	private volatile long lastAccessMillis;
+	private volatile boolean closed;
+
+
+	public GameSession(String id, Geometry geometry) {
+		this.id = id;
+		this.geometry = geometry;
+		this.history = new GameHistory(geometry);
+		touch();
+	}
+
+
+	public String getId() {
+		return id;
+	}
+
+
+	public Geometry getGeometry() {
+		return geometry;
+	}
+
+
+	// It marks the session as used now, so that it is not evicted.
+	public void touch() {
+		lastAccessMillis = System.currentTimeMillis();
+	}
+
+
+	public long getLastAccessMillis() {
+		return lastAccessMillis;
+	}
+
+
+	// A copy of the current position, e.g. for a search that runs without the lock.
+	public synchronized Board copyBoard() {
+		return new Board(history.getBoard());
+	}
+
+
+	public synchronized int getPly() {
+		return history.getPly();
+	}
+
+
+	public synchronized boolean isGameOver() {
+		return history.getBoard().checkForGameOver();
+	}
+
+
+	/*
+	 * It plays a move for the player to move, if the game is still at the given ply,
+	 * i.e. no other move was played meanwhile. A negative ply plays the move in any case.
+	 * It throws IllegalArgumentException for an invalid or full column,
+	 * and IllegalStateException if the game is over or has changed.
+	 */
+	public synchronized void play(int col, int expectedPly) {
+		if (closed) {
+			throw new IllegalStateException("The game is closed.");
+		}
+		if (expectedPly >= 0 && expectedPly != history.getPly()) {
+			throw new IllegalStateException("The game has changed.");
+		}
+		if (history.getBoard().checkForGameOver()) {
+			throw new IllegalStateException("The game is over.");
+		}
+		if (col < 0 || col >= geometry.getNumOfColumns()) {
+			throw new IllegalArgumentException("Invalid column: " + (col+1) + ".");
+		}
+		if (!history.play(col, history.getNextPlayer())) {
+			throw new IllegalArgumentException("Column " + (col+1) + " is full.");
+		}
+		touch();
+		publish(toJson());
+	}
+
+
+	// The state of the game, as a JSON object.
+	public synchronized String toJson() {
+		Board board = history.getBoard();
+		boolean gameOver = board.checkForGameOver();
+		StringBuilder moves = new StringBuilder();
+		for (int col : history.getMoves()) {
+			moves.append(Character.forDigit(col + 1, Character.MAX_RADIX));
+		}
+		return "{\"id\":\"" + id + "\""
+				+ ",\"geometry\":\"" + geometry + "\""
+				+ ",\"moves\":\"" + moves + "\""
+				+ ",\"turn\":" + board.getTurn()
+				+ ",\"nextPlayer\":" + (gameOver ? Constants.EMPTY : history.getNextPlayer())
+				+ ",\"gameOver\":" + gameOver
+				+ ",\"winner\":" + (gameOver ? board.getWinner() : Constants.EMPTY)
+				+ "}";
+	}
+
+
+	// A new subscriber, which first receives the current state, then every change.
+	public BlockingQueue<String> subscribe() {
+		BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+		synchronized (this) {
+			queue.add(closed ? CLOSED : toJson());
+			subscribers.add(queue);
+		}
+		return queue;
+	}
+
+
+	public void unsubscribe(BlockingQueue<String> queue) {
+		subscribers.remove(queue);
+	}
+
+
+	public int getNumOfSubscribers() {
+		return subscribers.size();
+	}
+
+
+	private void publish(String event) {
+		for (BlockingQueue<String> queue : subscribers) {
+			queue.add(event);
+		}
+	}
+
+
+	// It ends the streams of the subscribers. No move can be played afterwards.
+	public synchronized void close() {
+		closed = true;
+		publish(CLOSED);
+		subscribers.clear();
+	}
+
+}
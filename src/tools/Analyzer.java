@@ -0,0 +1,348 @@
+package tools;
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import connect4.Board;
+import connect4.Geometry;
+import connect4.MemoryTranspositionTable;
+import connect4.MiniMaxAi;
+import connect4.ProofNumberSolver;
+import connect4.SearchResult;
+import connect4.TranspositionTable;
+import utility.Constants;
+
+
+/*
+ * It analyzes a file of positions, one move string per line, e.g. "4453",
+ * and writes a line per position: the moves, the best column, the score, the depth and the nodes.
+ * The score is from the point of view of the player to move: a heuristic value for the alpha-beta search,
+ * WIN, LOSS, DRAW or UNKNOWN for the solver. Invalid positions give "moves ERROR message".
+ *
+ * The positions flow through a bounded pipeline: the reader parses the lines into a queue,
+ * the workers build the boards and search them, and the writer writes the results.
+ * At most "--queue" positions are read and not yet written, so a slow position or a slow output
+ * makes the reader wait (backpressure), and the memory does not depend on the size of the file.
+ * With "--unordered" the results are written as soon as they are ready, otherwise in the order of the input.
+ * If a worker dies, e.g. out of memory, the writer stops and the analysis fails, instead of waiting for its results.
+ *
+ * Usage: java tools.Analyzer [options] positions.txt [results.txt]
+ *   --depth N       the depth of the alpha-beta search (default: 8)
+ *   --movetime MS   the time limit of a search, with iterative deepening (default: none)
+ *   --nodes N       the node limit of a search, with iterative deepening (default: none)
+ *   --solver        the exact result of the proof-number search solver, instead of the alpha-beta search
+ *   --memory MB     the transposition table shared by the searches, or of each solver (default: 64)
+ *   --geometry CxRxK  the board, e.g. 9x7x5 (default: 7x6x4)
+ *   --threads N     number of workers (default: number of cores)
+ *   --queue N       the positions in flight (default: 4 per worker)
+ *   --unordered     write the results in the order they are ready
+ * The results are written to the standard output if no output file is given.
+ */
+public class Analyzer {
+
+	// A line of the input. A task with a null line marks the end of the input.
+	private static class Task {
+		final long index;
+		final String line;
+		String result;
+
+		Task(long index, String line) {
+			this.index = index;
+			this.line = line;
+		}
+	}
+
+	private static final Task END = new Task(-1, null);
+
+	private final Geometry geometry;
+	private final int depth;
+	private final long moveTime;
+	private final long nodeLimit;
+	private final boolean solver;
+	private final int memory;
+	private final TranspositionTable transpositionTable;
+
+
+	public Analyzer(Geometry geometry, int depth, long moveTime, long nodeLimit, boolean solver, int memory) {
+		this.geometry = geometry;
+		this.depth = depth;
+		this.moveTime = moveTime;
+		this.nodeLimit = nodeLimit;
+		this.solver = solver;
+		this.memory = memory;
+		this.transpositionTable = solver ? null : new MemoryTranspositionTable(memory);
+	}
+
+
+	/*
+	 * It runs the pipeline from "input" to "output", and returns the number of positions.
+	 * The calling thread reads the input.
+	 */
+	public long run(InputStream input, OutputStream output, int threads, int capacity, boolean ordered)
+			throws IOException, InterruptedException {
+		BlockingQueue<Task> tasks = new ArrayBlockingQueue<>(capacity);
+		BlockingQueue<Task> results = new LinkedBlockingQueue<>();
+		Semaphore inFlight = new Semaphore(capacity);
+		AtomicReference<Throwable> workerFailure = new AtomicReference<>();
+
+		List<Thread> workers = new ArrayList<>();
+		for (int i=0; i<threads; i++) {
+			Thread worker = new Thread(() -> work(tasks, results, workerFailure), "analyzer-" + i);
+			workers.add(worker);
+			worker.start();
+		}
+		IOException[] writeError = new IOException[1];
+		Thread writer = new Thread(() -> {
+			try {
+				write(results, output, inFlight, threads, ordered, workerFailure);
+			} catch (IOException e) {
+				writeError[0] = e;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "analyzer-writer");
+		writer.start();
+
+		long count = 0;
+		boolean completed = false;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				// It waits for a free place, unless the writer has failed.
+				while (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+					if (!writer.isAlive()) {
+						throw (writeError[0] != null) ? writeError[0] : new IOException("The writer has stopped.");
+					}
+				}
+				tasks.put(new Task(count++, line));
+			}
+			completed = true;
+		} finally {
+			if (!completed || !endTasks(tasks, threads, writer)) {
+				// The workers may be dead, so the queue may never have room for the ends. They are stopped instead.
+				tasks.clear();
+				for (Thread worker : workers) {
+					worker.interrupt();
+				}
+			}
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			writer.join();
+		}
+		if (writeError[0] != null) {
+			throw writeError[0];
+		}
+		return count;
+	}
+
+
+	// It tells every worker that the input has ended, unless the writer stops meanwhile.
+	private static boolean endTasks(BlockingQueue<Task> tasks, int threads, Thread writer) throws InterruptedException {
+		for (int i=0; i<threads; i++) {
+			while (!tasks.offer(END, 100, TimeUnit.MILLISECONDS)) {
+				if (!writer.isAlive()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+
+	/*
+	 * A bad position gives an ERROR line. Any other failure, e.g. an OutOfMemoryError, ends the worker
+	 * and is kept in "workerFailure". The worker always posts its end, so that the writer does not wait for it.
+	 */
+	private void work(BlockingQueue<Task> tasks, BlockingQueue<Task> results, AtomicReference<Throwable> workerFailure) {
+		try {
+			ProofNumberSolver proofNumberSolver = solver ? new ProofNumberSolver(memory, 100000000L) : null;
+			while (true) {
+				Task task = tasks.take();
+				if (task == END) {
+					return;
+				}
+				try {
+					task.result = task.line + " " + analyze(Board.fromMoveString(geometry, task.line), proofNumberSolver);
+				} catch (RuntimeException e) {
+					task.result = task.line + " ERROR " + e.getMessage();
+				}
+				results.put(task);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Throwable e) {
+			workerFailure.compareAndSet(null, e);
+		} finally {
+			// The results queue is not bounded, so this never waits.
+			results.add(END);
+		}
+	}
+
+
+	// e.g. "4 12 8 35512": the best column, the score, the depth and the nodes.
+	private String analyze(Board board, ProofNumberSolver proofNumberSolver) {
+		if (board.checkForGameOver()) {
+			return "- " + ((board.getWinner() == Constants.EMPTY) ? "DRAW" : "LOSS") + " 0 0";
+		}
+		if (proofNumberSolver != null) {
+			ProofNumberSolver.Result result = proofNumberSolver.solve(board);
+			String column = (result.getProofColumn() >= 0) ? Integer.toString(result.getProofColumn() + 1) : "-";
+			return column + " " + result.getOutcome() + " - " + result.getNodes();
+		}
+		int player = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+		MiniMaxAi ai = new MiniMaxAi(depth, player);
+		ai.setTranspositionTable(transpositionTable);
+		SearchResult result;
+		if (moveTime > 0 || nodeLimit > 0) {
+			ai.setNodeLimit(nodeLimit);
+			result = ai.searchAlphaBeta(board, moveTime, null);
+		} else {
+			result = ai.searchAlphaBeta(board);
+		}
+		int score = (player == Constants.P1) ? result.getMove().getValue() : -result.getMove().getValue();
+		return (result.getMove().getColumn() + 1) + " " + score + " " + result.getStatistics().getDepth()
+				+ " " + result.getStatistics().getNodes();
+	}
+
+
+	// Out of order results wait in "pending" until the results before them are written.
+	// It stops as soon as a worker has failed, since its results would never come.
+	private static void write(BlockingQueue<Task> results, OutputStream output, Semaphore inFlight, int threads, boolean ordered,
+			AtomicReference<Throwable> workerFailure) throws IOException, InterruptedException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+		Map<Long, Task> pending = new HashMap<>();
+		long next = 0;
+		int finishedWorkers = 0;
+		while (finishedWorkers < threads) {
+			Task task = results.take();
+			if (task == END) {
+				if (workerFailure.get() != null) {
+					writer.flush();
+					throw new IOException("A worker has failed: " + workerFailure.get(), workerFailure.get());
+				}
+				finishedWorkers++;
+				continue;
+			}
+			if (ordered) {
+				pending.put(task.index, task);
+				while ((task = pending.remove(next)) != null) {
+					writer.write(task.result);
+					writer.write('\n');
+					inFlight.release();
+					next++;
+				}
+			} else {
+				writer.write(task.result);
+				writer.write('\n');
+				inFlight.release();
+			}
+			// The output is flushed when the writer waits, so that the results are not held back.
+			if (results.isEmpty()) {
+				writer.flush();
+			}
+		}
+		writer.flush();
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		int depth = 8;
+		long moveTime = 0;
+		long nodeLimit = 0;
+		boolean solver = false;
+		int memory = 64;
+		Geometry geometry = Geometry.STANDARD;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int capacity = -1;
+		boolean ordered = true;
+		List<String> arguments = new ArrayList<>();
+		try {
+			for (int i=0; i<args.length; i++) {
+				switch (args[i]) {
+					case "--depth":
+						depth = Integer.parseInt(args[++i]);
+						break;
+					case "--movetime":
+						moveTime = Long.parseLong(args[++i]);
+						break;
+					case "--nodes":
+						nodeLimit = Long.parseLong(args[++i]);
+						break;
+					case "--solver":
+						solver = true;
+						break;
+					case "--memory":
+						memory = Integer.parseInt(args[++i]);
+						break;
+					case "--geometry":
+						geometry = Geometry.parse(args[++i]);
+						break;
+					case "--threads":
+						threads = Integer.parseInt(args[++i]);
+						break;
+					case "--queue":
+						capacity = Integer.parseInt(args[++i]);
+						break;
+					case "--unordered":
+						ordered = false;
+						break;
+					default:
+						arguments.add(args[i]);
+				}
+			}
+			if (arguments.isEmpty() || arguments.size() > 2) {
+				throw new IllegalArgumentException("Expected a positions file and an optional results file.");
+			}
+			if (depth < 1 || threads < 1 || memory < 1) {
+				throw new IllegalArgumentException("Invalid depth, number of threads or memory.");
+			}
+			capacity = (capacity < 0) ? 4 * threads : capacity;
+			if (capacity < 1) {
+				throw new IllegalArgumentException("The queue must hold at least 1 position.");
+			}
+		} catch (RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			System.err.println("Usage: java tools.Analyzer [--depth N] [--movetime MS] [--nodes N] [--solver] [--memory MB] "
+					+ "[--geometry CxRxK] [--threads N] [--queue N] [--unordered] positions.txt [results.txt]");
+			return;
+		}
+
+		Analyzer analyzer = new Analyzer(geometry, depth, moveTime, nodeLimit, solver, memory);
+		long start = System.nanoTime();
+		try (InputStream input = new FileInputStream(arguments.get(0));
+				OutputStream output = (arguments.size() > 1) ? new FileOutputStream(arguments.get(1)) : System.out) {
+			long count = analyzer.run(input, output, threads, capacity, ordered);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.err.println(String.format("Analyzed %d positions in %.1f s, %.1f positions/s",
+					count, seconds, count / Math.max(seconds, 1e-9)));
+		} catch (IOException e) {
+			System.err.println("ERROR : " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,160 @@
+package tools;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import connect4.GameRecord;
+import connect4.GameRecordReader;
+import connect4.Geometry;
+import enumeration.Color;
+import gui.BoardRenderer;
+import gui.Sprites;
+
+
+/*
+ * It renders all the games of a game record file, each to an animated GIF or to a PNG of its final position.
+ * The games are rendered in parallel. The images of the board and of the checkers
+ * are decoded once and shared by all the threads (see Sprites).
+ * The file is read while the games are rendered, with a few games per thread in flight,
+ * so the memory used does not depend on the number of games.
+ * It runs headless, e.g. with "-Djava.awt.headless=true".
+ *
+ * Usage: java tools.BatchRenderer [options] games.c4g outputDirectory
+ *   --format gif|png  an animation of the game or its final position (default: png)
+ *   --threads N       number of parallel renderings (default: number of cores)
+ *   --cell PIXELS     the size of a cell (default: 75)
+ *   --delay MS        the time each ply is shown in a GIF (default: 500)
+ * The images are named after the position of the game in the file, e.g. "game-000001.png".
+ */
+public class BatchRenderer {
+
+	// The games read ahead, per thread.
+	private static final int GAMES_IN_FLIGHT_PER_THREAD = 4;
+
+	private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+	public static void main(String[] args) throws InterruptedException {
+		boolean gif = false;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int cellSize = Sprites.CELL_SIZE;
+		int delay = 500;
+		List<String> arguments = new ArrayList<>();
+		try {
+			for (int i=0; i<args.length; i++) {
+				switch (args[i]) {
+					case "--format":
+						String format = args[++i].toLowerCase();
+						if (!format.equals("gif") && !format.equals("png")) {
+							throw new IllegalArgumentException("Unknown format: " + format + ".");
+						}
+						gif = format.equals("gif");
+						break;
+					case "--threads":
+						threads = Integer.parseInt(args[++i]);
+						break;
+					case "--cell":
+						cellSize = Integer.parseInt(args[++i]);
+						break;
+					case "--delay":
+						delay = Integer.parseInt(args[++i]);
+						break;
+					default:
+						arguments.add(args[i]);
+				}
+			}
+			if (arguments.size() != 2) {
+				throw new IllegalArgumentException("Expected a game file and an output directory.");
+			}
+			if (threads < 1 || cellSize < 8) {
+				throw new IllegalArgumentException("Invalid number of threads or cell size.");
+			}
+		} catch (RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			System.err.println("Usage: java tools.BatchRenderer [--format gif|png] [--threads N] [--cell PIXELS] [--delay MS] "
+					+ "games.c4g outputDirectory");
+			return;
+		}
+
+		File directory = new File(arguments.get(1));
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			System.err.println("ERROR : the directory \"" + directory + "\" cannot be created.");
+			return;
+		}
+
+		// A renderer per board geometry. The renderers only read their fields, so they are shared by the threads.
+		Map<Geometry, BoardRenderer> renderers = new ConcurrentHashMap<>();
+		final boolean renderGif = gif;
+		final int cell = cellSize;
+		final int frameDelay = delay;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CompletionService<File> completionService = new ExecutorCompletionService<>(executor);
+		int submitted = 0;
+		int rendered = 0;
+		int failed = 0;
+		long start = System.nanoTime();
+		long lastProgress = System.currentTimeMillis();
+
+		try (GameRecordReader reader = new GameRecordReader(new File(arguments.get(0)))) {
+			GameRecord record = reader.read();
+			while (record != null || rendered + failed < submitted) {
+				// It reads ahead until enough games are in flight, then waits for one of them.
+				if (record != null && submitted - rendered - failed < threads * GAMES_IN_FLIGHT_PER_THREAD) {
+					GameRecord game = record;
+					File file = new File(directory, String.format("game-%06d.%s", ++submitted, renderGif ? "gif" : "png"));
+					completionService.submit(() -> {
+						BoardRenderer renderer = renderers.computeIfAbsent(game.getGeometry(),
+								geometry -> new BoardRenderer(geometry, cell, Color.RED, Color.YELLOW));
+						if (renderGif) {
+							renderer.writeGif(game, file, frameDelay, 4 * frameDelay);
+						} else {
+							ImageIO.write(renderer.render(game.getBoard()), "png", file);
+						}
+						return file;
+					});
+					record = reader.read();
+					continue;
+				}
+
+				try {
+					completionService.take().get();
+					rendered++;
+				} catch (ExecutionException e) {
+					System.err.println("ERROR : " + e.getCause());
+					failed++;
+				}
+
+				if (System.currentTimeMillis() - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+					lastProgress = System.currentTimeMillis();
+					printProgress(rendered, failed, start);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		printProgress(rendered, failed, start);
+	}
+
+
+	private static void printProgress(int rendered, int failed, long start) {
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("Rendered %d games (%d failed) in %.1f s, %.1f games/s",
+				rendered, failed, seconds, rendered / Math.max(seconds, 1e-9)));
+	}
+
+}
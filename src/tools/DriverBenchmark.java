@@ -0,0 +1,143 @@
+package tools;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import connect4.Board;
+import connect4.Geometry;
+import connect4.MemoryTranspositionTable;
+import connect4.MiniMaxAi;
+import connect4.SearchResult;
+import enumeration.SearchDriver;
+import utility.Constants;
+
+
+/*
+ * It compares the drivers of the alpha-beta search (see "SearchDriver") on the same random positions:
+ * the nodes, the searches of the root and the time of the iterative search of every position,
+ * with a new transposition table for every search. The fewest nodes show the driver to use on the board.
+ * The values should be the same with every driver, so the positions of other values are counted.
+ *
+ * Usage: java tools.DriverBenchmark [options]
+ *   --positions N      the number of positions (default: 50)
+ *   --depth N          the depth of the searches (default: 8)
+ *   --random-plies N   the random moves of every position (default: 8)
+ *   --geometry CxRxK   the board, e.g. 9x7x5 (default: 7x6x4)
+ *   --seed N           the seed of the random moves (default: 1)
+ *   --memory MB        the transposition table of every search (default: 16)
+ */
+public class DriverBenchmark {
+
+	public static void main(String[] args) {
+		int numOfPositions = 50;
+		int depth = 8;
+		int randomPlies = 8;
+		Geometry geometry = Geometry.STANDARD;
+		long seed = 1;
+		int memory = 16;
+		try {
+			for (int i=0; i<args.length; i++) {
+				switch (args[i]) {
+					case "--positions":
+						numOfPositions = Integer.parseInt(args[++i]);
+						break;
+					case "--depth":
+						depth = Integer.parseInt(args[++i]);
+						break;
+					case "--random-plies":
+						randomPlies = Integer.parseInt(args[++i]);
+						break;
+					case "--geometry":
+						geometry = Geometry.parse(args[++i]);
+						break;
+					case "--seed":
+						seed = Long.parseLong(args[++i]);
+						break;
+					case "--memory":
+						memory = Integer.parseInt(args[++i]);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option \"" + args[i] + "\".");
+				}
+			}
+			if (numOfPositions < 1 || depth < 1 || randomPlies < 0 || randomPlies >= geometry.getNumOfCells() || memory < 1) {
+				throw new IllegalArgumentException("Invalid number of positions, depth, random plies or memory.");
+			}
+		} catch (RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			System.err.println("Usage: java tools.DriverBenchmark [--positions N] [--depth N] [--random-plies N] "
+					+ "[--geometry CxRxK] [--seed N] [--memory MB]");
+			return;
+		}
+
+		List<Board> positions = randomPositions(geometry, numOfPositions, randomPlies, new Random(seed));
+		System.out.println("Searching " + positions.size() + " positions of " + geometry + " to depth " + depth + ".");
+
+		// A first pass warms up the JIT compiler, so that the times of the drivers can be compared.
+		run(positions, SearchDriver.FULL_WINDOW, Math.min(depth, 4), memory, null);
+
+		int[] fullWindowValues = null;
+		for (SearchDriver driver : SearchDriver.values()) {
+			int[] values = new int[positions.size()];
+			long start = System.nanoTime();
+			long[] totals = run(positions, driver, depth, memory, values);
+			long millis = (System.nanoTime() - start) / 1000000;
+			int differences = 0;
+			if (fullWindowValues == null) {
+				fullWindowValues = values;
+			} else {
+				for (int i=0; i<values.length; i++) {
+					differences += (values[i] != fullWindowValues[i]) ? 1 : 0;
+				}
+			}
+			System.out.println(String.format("%-12s %12d nodes, %6d root searches, %7d ms, %9d nodes/s%s",
+					driver, totals[0], totals[1], millis, (millis == 0) ? 0 : totals[0] * 1000 / millis,
+					(differences > 0) ? ", " + differences + " other values" : ""));
+		}
+	}
+
+
+	// The total nodes and root searches of the iterative searches of the positions. It keeps the values, if given.
+	private static long[] run(List<Board> positions, SearchDriver driver, int depth, int memory, int[] values) {
+		long[] totals = new long[2];
+		for (int i=0; i<positions.size(); i++) {
+			Board board = positions.get(i);
+			int player = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+			MiniMaxAi ai = new MiniMaxAi(depth, player);
+			ai.setTranspositionTable(new MemoryTranspositionTable(memory));
+			ai.setSearchDriver(driver);
+			SearchResult result = ai.searchAlphaBeta(board, 0, null);
+			totals[0] += result.getStatistics().getNodes();
+			totals[1] += result.getStatistics().getRootSearches();
+			if (values != null) {
+				values[i] = result.getMove().getValue();
+			}
+		}
+		return totals;
+	}
+
+
+	// Positions after random moves, none of them finished.
+	private static List<Board> randomPositions(Geometry geometry, int numOfPositions, int randomPlies, Random random) {
+		List<Board> positions = new ArrayList<>();
+		for (int attempts=0; positions.size()<numOfPositions && attempts<100*numOfPositions; attempts++) {
+			Board board = new Board(geometry);
+			int player = Constants.P1;
+			for (int ply=0; ply<randomPlies && !board.checkForGameOver(); ply++) {
+				int col;
+				do {
+					col = random.nextInt(geometry.getNumOfColumns());
+				} while (board.checkFullColumn(col));
+				board.makeMove(col, player);
+				player = (player == Constants.P1) ? Constants.P2 : Constants.P1;
+			}
+			if (!board.checkForGameOver()) {
+				positions.add(board);
+			}
+		}
+		return positions;
+	}
+
+}
@@ -0,0 +1,143 @@
+package tools;
+
+
+import connect4.Board;
+import connect4.Evaluator;
+import connect4.MiniMaxAi;
+import connect4.Move;
+import connect4.NTupleEvaluator;
+import connect4.RandomChoiceAi;
+import connect4.ThreatSpaceSearch;
+import connect4.WindowEvaluator;
+import enumeration.SearchDriver;
+import utility.GameParameters;
+
+
+/*
+ * An engine configuration, as given on the command line of the tools.
+ * Supported specifications:
+ *   minimax:<depth>          plain MiniMax, e.g. "minimax:3"
+ *   alphabeta:<depth>        MiniMax with alpha-beta pruning, e.g. "alphabeta:5"
+ *   alphabeta:<millis>ms     alpha-beta with iterative deepening and a time limit per move, e.g. "alphabeta:200ms"
+ *   alphabeta:...:tss        alpha-beta after a threat-space search for forced wins, e.g. "alphabeta:5:tss"
+ *   ...:ntuple               the n-tuple network of GameParameters as the evaluation, e.g. "alphabeta:5:ntuple"
+ *   alphabeta:...:aspiration alpha-beta with aspiration windows, e.g. "alphabeta:200ms:aspiration"
+ *   alphabeta:...:mtdf       alpha-beta driven by MTD(f), e.g. "alphabeta:8:mtdf"
+ *   random                   the Random Choice AI
+ */
+public class EngineConfig {
+
+	// The maximum depth of a time-limited search. The time limit normally stops it much earlier.
+	static final int MAX_TIMED_DEPTH = 64;
+
+	// An engine that plays one side of a game.
+	public interface Engine {
+		Move findMove(Board board);
+	}
+
+	private final String name;
+	private final String type;
+	private final int depth;
+	private final long timeLimitMillis;
+	private final boolean threatSpaceSearch;
+	// The evaluation of the engine, or null for the default one.
+	private final Evaluator evaluator;
+	private final SearchDriver searchDriver;
+
+
+	private EngineConfig(String name, String type, int depth, long timeLimitMillis, boolean threatSpaceSearch, Evaluator evaluator,
+			SearchDriver searchDriver) {
+		this.name = name;
+		this.type = type;
+		this.depth = depth;
+		this.timeLimitMillis = timeLimitMillis;
+		this.threatSpaceSearch = threatSpaceSearch;
+		this.evaluator = evaluator;
+		this.searchDriver = searchDriver;
+	}
+
+
+	public static EngineConfig parse(String spec) {
+		String[] parts = spec.trim().toLowerCase().split(":");
+		String type = parts[0];
+		switch (type) {
+			case "random":
+				return new EngineConfig(spec, type, 0, 0, false, null, SearchDriver.FULL_WINDOW);
+			case "minimax":
+			case "alphabeta":
+				if (parts.length < 2) {
+					throw new IllegalArgumentException("Missing depth or time limit in engine \"" + spec + "\".");
+				}
+				boolean tss = false;
+				Evaluator evaluator = null;
+				SearchDriver driver = SearchDriver.FULL_WINDOW;
+				for (int i=2; i<parts.length; i++) {
+					if (parts[i].equals("tss") && type.equals("alphabeta")) {
+						tss = true;
+					} else if (parts[i].equals("aspiration") && type.equals("alphabeta")) {
+						driver = SearchDriver.ASPIRATION;
+					} else if (parts[i].equals("mtdf") && type.equals("alphabeta")) {
+						driver = SearchDriver.MTDF;
+					} else if (parts[i].equals("ntuple")) {
+						evaluator = NTupleEvaluator.open(GameParameters.nTupleFile, new WindowEvaluator());
+						if (!(evaluator instanceof NTupleEvaluator)) {
+							throw new IllegalArgumentException("No n-tuple network in " + GameParameters.nTupleFile + " for engine \"" + spec + "\".");
+						}
+					} else {
+						throw new IllegalArgumentException("Unknown option \"" + parts[i] + "\" in engine \"" + spec + "\".");
+					}
+				}
+				if (parts[1].endsWith("ms")) {
+					if (type.equals("minimax")) {
+						throw new IllegalArgumentException("Time limits need the alphabeta engine: \"" + spec + "\".");
+					}
+					long millis = Long.parseLong(parts[1].substring(0, parts[1].length() - 2));
+					return new EngineConfig(spec, type, MAX_TIMED_DEPTH, millis, tss, evaluator, driver);
+				}
+				return new EngineConfig(spec, type, Integer.parseInt(parts[1]), 0, tss, evaluator, driver);
+			default:
+				throw new IllegalArgumentException("Unknown engine \"" + spec + "\".");
+		}
+	}
+
+
+	// It creates a new engine instance, playing as the given player.
+	public Engine newEngine(int player) {
+		switch (type) {
+			case "random":
+				RandomChoiceAi rAi = new RandomChoiceAi(player);
+				return rAi::randomMove;
+			case "minimax":
+				MiniMaxAi minimaxAi = new MiniMaxAi(depth, player);
+				if (evaluator != null) {
+					minimaxAi.setEvaluator(evaluator);
+				}
+				return minimaxAi::miniMax;
+			default:
+				MiniMaxAi ai = new MiniMaxAi(depth, player);
+				if (evaluator != null) {
+					ai.setEvaluator(evaluator);
+				}
+				ai.setSearchDriver(searchDriver);
+				if (threatSpaceSearch) {
+					ai.setThreatSpaceSearch(new ThreatSpaceSearch());
+				}
+				if (timeLimitMillis > 0) {
+					return board -> ai.miniMaxAlphaBeta(board, timeLimitMillis);
+				}
+				return ai::miniMaxAlphaBeta;
+		}
+	}
+
+
+	public String getName() {
+		return name;
+	}
+
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
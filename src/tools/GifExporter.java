@@ -0,0 +1,82 @@
+package tools;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import connect4.GameRecord;
+import connect4.GameRecordReader;
+import enumeration.Color;
+import gui.BoardRenderer;
+import gui.Sprites;
+
+
+/*
+ * It exports a saved game as an animated GIF, one frame per ply, without opening a window.
+ * It runs headless, e.g. with "-Djava.awt.headless=true".
+ *
+ * Usage: java tools.GifExporter [options] games.c4g output.gif
+ *   --game N       the game of the file to export, counting from 1 (default: 1)
+ *   --cell PIXELS  the size of a cell (default: 75)
+ *   --delay MS     the time each ply is shown (default: 500)
+ *   --colors C1,C2 the colors of the players (default: RED,YELLOW)
+ */
+public class GifExporter {
+
+	public static void main(String[] args) {
+		int gameNumber = 1;
+		int cellSize = Sprites.CELL_SIZE;
+		int delay = 500;
+		Color player1Color = Color.RED;
+		Color player2Color = Color.YELLOW;
+		List<String> arguments = new ArrayList<>();
+		try {
+			for (int i=0; i<args.length; i++) {
+				if (args[i].equals("--game")) {
+					gameNumber = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("--cell")) {
+					cellSize = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("--delay")) {
+					delay = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("--colors")) {
+					String[] colors = args[++i].toUpperCase().split(",");
+					player1Color = Color.valueOf(colors[0]);
+					player2Color = Color.valueOf(colors[1]);
+				} else {
+					arguments.add(args[i]);
+				}
+			}
+			if (arguments.size() != 2) {
+				throw new IllegalArgumentException("Expected a game file and an output file.");
+			}
+			if (gameNumber < 1 || cellSize < 8) {
+				throw new IllegalArgumentException("Invalid game number or cell size.");
+			}
+		} catch (RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			System.err.println("Usage: java tools.GifExporter [--game N] [--cell PIXELS] [--delay MS] [--colors C1,C2] games.c4g output.gif");
+			return;
+		}
+
+		try (GameRecordReader reader = new GameRecordReader(new File(arguments.get(0)))) {
+			GameRecord record = null;
+			for (int i=0; i<gameNumber; i++) {
+				record = reader.read();
+				if (record == null) {
+					System.err.println("ERROR : the file has only " + i + " games.");
+					return;
+				}
+			}
+			BoardRenderer renderer = new BoardRenderer(record.getGeometry(), cellSize, player1Color, player2Color);
+			long start = System.currentTimeMillis();
+			renderer.writeGif(record, new File(arguments.get(1)), delay, 4 * delay);
+			System.out.println("Exported " + (record.getNumOfMoves() + 1) + " frames to \"" + arguments.get(1) + "\" in "
+					+ (System.currentTimeMillis() - start) + " ms.");
+		} catch (IOException | RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+package tools;
+
+
+/*
+ * The results of the games between two engines, from the point of view of the first one.
+ * It computes the Elo difference with its 95% error bar and the log-likelihood ratio
+ * of the sequential probability ratio test.
+ */
+public class MatchResult {
+
+	private final EngineConfig engine;
+	private final EngineConfig opponent;
+
+	private int wins;
+	private int draws;
+	private int losses;
+
+
+	public MatchResult(EngineConfig engine, EngineConfig opponent) {
+		this.engine = engine;
+		this.opponent = opponent;
+	}
+
+
+	public void addWin() {
+		wins++;
+	}
+
+
+	public void addDraw() {
+		draws++;
+	}
+
+
+	public void addLoss() {
+		losses++;
+	}
+
+
+	public int getGames() {
+		return wins + draws + losses;
+	}
+
+
+	// The average points per game: 1 for a win, 1/2 for a draw, 0 for a loss.
+	public double getScore() {
+		int games = getGames();
+		return (games == 0) ? 0.5 : (wins + 0.5 * draws) / games;
+	}
+
+
+	// The variance of the points of a single game.
+	public double getVariance() {
+		int games = getGames();
+		if (games == 0) {
+			return 0;
+		}
+		double score = getScore();
+		return (wins * Math.pow(1 - score, 2)
+				+ draws * Math.pow(0.5 - score, 2)
+				+ losses * Math.pow(score, 2)) / games;
+	}
+
+
+	public double getElo() {
+		return eloDifference(getScore());
+	}
+
+
+	// Half the width of the 95% confidence interval of the Elo difference.
+	public double getEloError() {
+		int games = getGames();
+		if (games == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double margin = 1.959964 * Math.sqrt(getVariance() / games);
+		double score = getScore();
+		double error = (eloDifference(score + margin) - eloDifference(score - margin)) / 2;
+		return Double.isNaN(error) ? Double.POSITIVE_INFINITY : error;
+	}
+
+
+	/*
+	 * The generalized SPRT log-likelihood ratio of "the Elo difference is elo1"
+	 * against "the Elo difference is elo0", with the normal approximation
+	 * of the trinomial distribution of the game results.
+	 */
+	public double getLogLikelihoodRatio(double elo0, double elo1) {
+		double variance = getVariance();
+		if (variance == 0) {
+			return 0;
+		}
+		double score0 = expectedScore(elo0);
+		double score1 = expectedScore(elo1);
+		return getGames() * (score1 - score0) * (2 * getScore() - score0 - score1) / (2 * variance);
+	}
+
+
+	public static double expectedScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+
+	public static double eloDifference(double score) {
+		if (score <= 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		if (score >= 1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+
+	public EngineConfig getEngine() {
+		return engine;
+	}
+
+
+	public EngineConfig getOpponent() {
+		return opponent;
+	}
+
+
+	public int getWins() {
+		return wins;
+	}
+
+
+	public int getDraws() {
+		return draws;
+	}
+
+
+	public int getLosses() {
+		return losses;
+	}
+
+
+	@Override
+	public String toString() {
+		return String.format("%s vs %s: +%d -%d =%d  score %.1f%%  Elo %+.1f +/- %.1f",
+				engine, opponent, wins, losses, draws, 100 * getScore(), getElo(), getEloError());
+	}
+
+}
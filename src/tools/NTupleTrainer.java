@@ -0,0 +1,246 @@
+package tools;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import connect4.Board;
+import connect4.Evaluator;
+import connect4.Geometry;
+import connect4.NTupleEvaluator;
+import connect4.WindowEvaluator;
+import utility.Constants;
+import utility.GameParameters;
+
+
+/*
+ * It trains an n-tuple network by temporal-difference learning, TD(0), from games of the network against itself,
+ * played on all the available cores. Every player picks the move whose position the network likes best,
+ * or a random move now and then, to explore. After every move that is not random, the prediction of the previous
+ * position is moved towards the prediction of the new one. The end of a game is not predicted, since its value is known:
+ * the last position before it learns the result, even after a random move.
+ * The threads update the same weights without locks.
+ *
+ * The network is written to the weights file, which the GUI, the console game and the server load at startup.
+ *
+ * Usage: java tools.NTupleTrainer [options]
+ *   --games N           the number of games (default: 1000000)
+ *   --tuples N          the number of tuples of a new network (default: 70)
+ *   --length N          the cells of a tuple of a new network (default: 8)
+ *   --learning-rate X   the step of every update (default: 0.01)
+ *   --epsilon X         the probability of a random move (default: 0.2)
+ *   --geometry CxRxK    the board of a new network, e.g. 9x7x5 (default: 7x6x4)
+ *   --seed N            the seed of the tuples of a new network (default: 1)
+ *   --threads N         number of threads (default: number of cores)
+ *   --resume            it trains further the network of the output file, instead of a new one
+ *   --output FILE       the weights file (default: the one of GameParameters)
+ */
+public class NTupleTrainer {
+
+	// The network is written after this many games, so that a long training can be stopped.
+	static final int SAVE_INTERVAL = 10000;
+
+	private final NTupleEvaluator network;
+	private final double learningRate;
+	private final double epsilon;
+	// The games won by each player, and the draws.
+	private final AtomicIntegerArray results = new AtomicIntegerArray(3);
+
+
+	NTupleTrainer(NTupleEvaluator network, double learningRate, double epsilon) {
+		this.network = network;
+		this.learningRate = learningRate;
+		this.epsilon = epsilon;
+	}
+
+
+	// It plays and learns a whole game, on the thread of the caller, and returns the winner.
+	int playGame() {
+		Board board = new Board(network.getGeometry());
+		// The board carries the indices of the tuples, so every prediction is a lookup per tuple.
+		network.prepare(board);
+		Board previous = null;
+		while (true) {
+			int player = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+			boolean exploring = ThreadLocalRandom.current().nextDouble() < epsilon;
+			board.makeMove(exploring ? randomMove(board) : bestMove(board, player), player);
+			if (board.checkForGameOver()) {
+				break;
+			}
+			// A random move says nothing about the value of the previous position, which is not updated.
+			if (previous != null && !exploring) {
+				network.learn(previous, network.predict(board), learningRate);
+			}
+			previous = new Board(board);
+		}
+		// The prediction of a finished game is its result, whatever the move that ended it.
+		if (previous != null) {
+			network.learn(previous, network.predict(board), learningRate);
+		}
+		results.incrementAndGet(board.getWinner());
+		return board.getWinner();
+	}
+
+
+	private static int randomMove(Board board) {
+		List<Integer> columns = new ArrayList<>();
+		for (int col=0; col<board.getGeometry().getNumOfColumns(); col++) {
+			if (!board.checkFullColumn(col)) {
+				columns.add(col);
+			}
+		}
+		return columns.get(ThreadLocalRandom.current().nextInt(columns.size()));
+	}
+
+
+	// The best move for the player, by the prediction of the position after it.
+	private int bestMove(Board board, int player) {
+		int bestCol = -1;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int col=0; col<board.getGeometry().getNumOfColumns(); col++) {
+			if (board.checkFullColumn(col)) {
+				continue;
+			}
+			board.makeMove(col, player);
+			double value = (player == Constants.P1) ? network.predict(board) : -network.predict(board);
+			board.undoMove(col);
+			if (value > bestValue) {
+				bestValue = value;
+				bestCol = col;
+			}
+		}
+		return bestCol;
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		int games = 1000000;
+		int numOfTuples = 70;
+		int tupleLength = 8;
+		double learningRate = 0.01;
+		double epsilon = 0.2;
+		Geometry geometry = Geometry.STANDARD;
+		long seed = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean resume = false;
+		String output = GameParameters.nTupleFile;
+		try {
+			for (int i=0; i<args.length; i++) {
+				switch (args[i]) {
+					case "--games":
+						games = Integer.parseInt(args[++i]);
+						break;
+					case "--tuples":
+						numOfTuples = Integer.parseInt(args[++i]);
+						break;
+					case "--length":
+						tupleLength = Integer.parseInt(args[++i]);
+						break;
+					case "--learning-rate":
+						learningRate = Double.parseDouble(args[++i]);
+						break;
+					case "--epsilon":
+						epsilon = Double.parseDouble(args[++i]);
+						break;
+					case "--geometry":
+						geometry = Geometry.parse(args[++i]);
+						break;
+					case "--seed":
+						seed = Long.parseLong(args[++i]);
+						break;
+					case "--threads":
+						threads = Integer.parseInt(args[++i]);
+						break;
+					case "--resume":
+						resume = true;
+						break;
+					case "--output":
+						output = args[++i];
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option \"" + args[i] + "\".");
+				}
+			}
+			if (games < 1 || numOfTuples < 1 || learningRate <= 0 || epsilon < 0 || epsilon > 1 || threads < 1) {
+				throw new IllegalArgumentException("Invalid number of games, tuples, learning rate, epsilon or threads.");
+			}
+			geometry.checkStoredDimensions();
+		} catch (RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			System.err.println("Usage: java tools.NTupleTrainer [--games N] [--tuples N] [--length N] [--learning-rate X] "
+					+ "[--epsilon X] [--geometry CxRxK] [--seed N] [--threads N] [--resume] [--output FILE]");
+			return;
+		}
+
+		NTupleEvaluator network;
+		try {
+			// The weights of a file are mapped read-only, so they are trained in a copy.
+			Evaluator fallback = new WindowEvaluator();
+			network = resume ? NTupleEvaluator.load(new File(output), fallback).copy()
+					: new NTupleEvaluator(geometry, numOfTuples, tupleLength, seed);
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			return;
+		}
+		System.out.println("Training " + network.getNumOfTuples() + " tuples on " + network.getGeometry()
+				+ " with " + games + " games on " + threads + " threads.");
+
+		NTupleTrainer trainer = new NTupleTrainer(network, learningRate, epsilon);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		AtomicInteger remaining = new AtomicInteger(games);
+		AtomicInteger played = new AtomicInteger();
+		List<Future<?>> workers = new ArrayList<>();
+		for (int t=0; t<threads; t++) {
+			workers.add(executor.submit(() -> {
+				while (remaining.getAndDecrement() > 0) {
+					trainer.playGame();
+					played.incrementAndGet();
+				}
+			}));
+		}
+		executor.shutdown();
+
+		long start = System.nanoTime();
+		int lastSave = 0;
+		try {
+			while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+				int count = played.get();
+				trainer.report(count, games, start);
+				if (count - lastSave >= SAVE_INTERVAL) {
+					lastSave = count;
+					network.save(new File(output));
+				}
+			}
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+			trainer.report(played.get(), games, start);
+			network.save(new File(output));
+			System.out.println("The network is written to " + output + ".");
+		} catch (IOException e) {
+			System.err.println("ERROR : " + e.getMessage());
+		} catch (ExecutionException e) {
+			System.err.println("ERROR : " + e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+
+	private void report(int count, int games, long start) {
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%d/%d games, %.1f games/s, Player 1 %d, Player 2 %d, draws %d",
+				count, games, count / seconds, results.get(Constants.P1), results.get(Constants.P2), results.get(Constants.EMPTY)));
+	}
+
+}
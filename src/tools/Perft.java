@@ -0,0 +1,150 @@
+package tools;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import connect4.Board;
+import connect4.Geometry;
+import utility.Constants;
+
+
+/*
+ * Perft: it counts all the legal move sequences of length "depth" from a position,
+ * using the move generation of the class "Board".
+ * Like in a real game, no moves are generated after a terminal position (see "checkForGameOver()"),
+ * so sequences that end the game early are not counted.
+ *
+ * Usage: java tools.Perft [--parallel] [--threads N] [--geometry 7x6x4] depth [moves]
+ *   moves    the position as a move string, e.g. "4453" (default: the empty board)
+ */
+public class Perft {
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		boolean parallel = false;
+		Geometry geometry = Geometry.STANDARD;
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<String> arguments = new ArrayList<>();
+		for (int i=0; i<args.length; i++) {
+			if (args[i].equals("--parallel")) {
+				parallel = true;
+			} else if (args[i].equals("--threads")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--geometry")) {
+				geometry = Geometry.parse(args[++i]);
+			} else {
+				arguments.add(args[i]);
+			}
+		}
+
+		if (arguments.isEmpty() || arguments.size() > 2) {
+			System.err.println("Usage: java tools.Perft [--parallel] [--threads N] [--geometry 7x6x4] depth [moves]");
+			return;
+		}
+
+		int depth = Integer.parseInt(arguments.get(0));
+		Board board = (arguments.size() == 2) ? Board.fromMoveString(geometry, arguments.get(1)) : new Board(geometry);
+		Board.printBoard(board.getGameBoard());
+
+		long start = System.nanoTime();
+		long[] counts = parallel ? perftDivideParallel(board, depth, threads) : perftDivide(board, depth);
+		long elapsed = System.nanoTime() - start;
+
+		long total = 0;
+		for (int col=0; col<counts.length; col++) {
+			if (counts[col] >= 0) {
+				System.out.println("Column " + (col+1) + ": " + counts[col]);
+				total += counts[col];
+			}
+		}
+		System.out.println();
+		System.out.println("Depth: " + depth);
+		System.out.println("Total: " + total);
+		System.out.println(String.format("Time: %.3f s", elapsed / 1e9));
+		System.out.println(String.format("Nodes per second: %.0f", total / Math.max(elapsed / 1e9, 1e-9)));
+	}
+
+
+	// It returns the number of move sequences of length "depth".
+	public static long perft(Board board, int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		if (board.checkForGameOver()) {
+			return 0;
+		}
+
+		int player = nextPlayer(board);
+		if (depth == 1) {
+			// Bulk counting: every legal move leads to a leaf.
+			int moves = 0;
+			for (int col=0; col<board.getGeometry().getNumOfColumns(); col++) {
+				if (!board.checkFullColumn(col)) {
+					moves++;
+				}
+			}
+			return moves;
+		}
+
+		long nodes = 0;
+		for (Board child : board.getChildren(player)) {
+			nodes += perft(child, depth - 1);
+		}
+		return nodes;
+	}
+
+
+	// It returns the perft count of each root move. Full columns get -1.
+	public static long[] perftDivide(Board board, int depth) {
+		long[] counts = new long[board.getGeometry().getNumOfColumns()];
+		for (int col=0; col<counts.length; col++) {
+			counts[col] = -1;
+		}
+		if (depth == 0 || board.checkForGameOver()) {
+			return counts;
+		}
+
+		for (Board child : board.getChildren(nextPlayer(board))) {
+			counts[child.getLastMove().getColumn()] = perft(child, depth - 1);
+		}
+		return counts;
+	}
+
+
+	// Like "perftDivide", but every root move is counted on its own thread.
+	public static long[] perftDivideParallel(Board board, int depth, int threads)
+			throws InterruptedException, ExecutionException {
+		long[] counts = new long[board.getGeometry().getNumOfColumns()];
+		for (int col=0; col<counts.length; col++) {
+			counts[col] = -1;
+		}
+		if (depth == 0 || board.checkForGameOver()) {
+			return counts;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Board> children = board.getChildren(nextPlayer(board));
+			List<Future<Long>> futures = new ArrayList<>();
+			for (Board child : children) {
+				futures.add(executor.submit(() -> perft(child, depth - 1)));
+			}
+			for (int i=0; i<children.size(); i++) {
+				counts[children.get(i).getLastMove().getColumn()] = futures.get(i).get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		return counts;
+	}
+
+
+	private static int nextPlayer(Board board) {
+		return (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+	}
+
+}
@@ -0,0 +1,188 @@
+package tools;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import connect4.Board;
+import connect4.GameRecord;
+import connect4.GameRecordWriter;
+import connect4.Geometry;
+import connect4.MemoryTranspositionTable;
+import connect4.MiniMaxAi;
+import connect4.PrincipalVariation;
+import connect4.TranspositionTable;
+import utility.Constants;
+
+
+/*
+ * It plays games of the AI against itself, on all the available cores, and appends them to a game record file,
+ * e.g. as the training data of "WeightTuner". A game takes about 27 bytes, and its positions are found by replaying it.
+ *
+ * Every game starts with random moves, so that the games differ, then both players search to the given depth.
+ * The moves come from the multi-PV search of the best move, whose root windows are exact.
+ *
+ * Usage: java tools.SelfPlay [options] games.c4g
+ *   --games N          the number of games (default: 1000)
+ *   --depth N          the depth of the searches (default: 4)
+ *   --random-plies N   the random moves at the start of every game (default: 6)
+ *   --geometry CxRxK   the board, e.g. 9x7x5 (default: 7x6x4)
+ *   --threads N        number of parallel games (default: number of cores)
+ *   --memory MB        the transposition table of every thread (default: 16)
+ */
+public class SelfPlay {
+
+	private final Geometry geometry;
+	private final int depth;
+	private final int randomPlies;
+	private final ThreadLocal<TranspositionTable> transpositionTables;
+
+
+	SelfPlay(Geometry geometry, int depth, int randomPlies, int memory) {
+		this.geometry = geometry;
+		this.depth = depth;
+		this.randomPlies = randomPlies;
+		this.transpositionTables = ThreadLocal.withInitial(() -> new MemoryTranspositionTable(memory));
+	}
+
+
+	// It plays a whole game, on the thread of the caller.
+	GameRecord playGame() {
+		Board board = new Board(geometry);
+		List<Integer> moves = new ArrayList<>();
+		MiniMaxAi[] ais = new MiniMaxAi[] { new MiniMaxAi(depth, Constants.P1), new MiniMaxAi(depth, Constants.P2) };
+		for (MiniMaxAi ai : ais) {
+			ai.setTranspositionTable(transpositionTables.get());
+		}
+
+		while (!board.checkForGameOver()) {
+			int player = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+			int col;
+			if (moves.size() < randomPlies) {
+				col = randomMove(board, player);
+			} else {
+				List<PrincipalVariation> variations = ais[player - Constants.P1].searchMultiPv(board, 1);
+				col = variations.get(0).getColumn();
+			}
+			board.makeMove(col, player);
+			moves.add(col);
+		}
+
+		int[] moveArray = new int[moves.size()];
+		for (int i=0; i<moveArray.length; i++) {
+			moveArray[i] = moves.get(i);
+		}
+		String name = "selfplay:" + depth;
+		return new GameRecord(geometry, name, name, board.getWinner(), moveArray);
+	}
+
+
+	// A random move that does not win, so that the random moves do not decide the game.
+	private static int randomMove(Board board, int player) {
+		List<Integer> columns = new ArrayList<>();
+		List<Integer> winning = new ArrayList<>();
+		for (int col=0; col<board.getGeometry().getNumOfColumns(); col++) {
+			if (!board.checkFullColumn(col)) {
+				(board.isWinningMove(col, player) ? winning : columns).add(col);
+			}
+		}
+		List<Integer> choices = columns.isEmpty() ? winning : columns;
+		return choices.get(ThreadLocalRandom.current().nextInt(choices.size()));
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		int games = 1000;
+		int depth = 4;
+		int randomPlies = 6;
+		Geometry geometry = Geometry.STANDARD;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int memory = 16;
+		List<String> arguments = new ArrayList<>();
+		try {
+			for (int i=0; i<args.length; i++) {
+				switch (args[i]) {
+					case "--games":
+						games = Integer.parseInt(args[++i]);
+						break;
+					case "--depth":
+						depth = Integer.parseInt(args[++i]);
+						break;
+					case "--random-plies":
+						randomPlies = Integer.parseInt(args[++i]);
+						break;
+					case "--geometry":
+						geometry = Geometry.parse(args[++i]);
+						break;
+					case "--threads":
+						threads = Integer.parseInt(args[++i]);
+						break;
+					case "--memory":
+						memory = Integer.parseInt(args[++i]);
+						break;
+					default:
+						arguments.add(args[i]);
+				}
+			}
+			if (arguments.size() != 1) {
+				throw new IllegalArgumentException("Expected a game record file.");
+			}
+			if (games < 1 || depth < 1 || randomPlies < 0 || threads < 1 || memory < 1) {
+				throw new IllegalArgumentException("Invalid number of games, depth, random plies, threads or memory.");
+			}
+			geometry.checkStoredDimensions();
+		} catch (RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			System.err.println("Usage: java tools.SelfPlay [--games N] [--depth N] [--random-plies N] [--geometry CxRxK] "
+					+ "[--threads N] [--memory MB] games.c4g");
+			return;
+		}
+
+		SelfPlay selfPlay = new SelfPlay(geometry, depth, randomPlies, memory);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CompletionService<GameRecord> completionService = new ExecutorCompletionService<>(executor);
+		for (int i=0; i<games; i++) {
+			completionService.submit(selfPlay::playGame);
+		}
+
+		long start = System.nanoTime();
+		long lastReport = start;
+		int[] results = new int[3];
+		long positions = 0;
+		try (GameRecordWriter writer = new GameRecordWriter(new File(arguments.get(0)), true)) {
+			for (int played=1; played<=games; played++) {
+				GameRecord record;
+				try {
+					record = completionService.take().get();
+				} catch (ExecutionException e) {
+					System.err.println("ERROR : " + e.getCause());
+					continue;
+				}
+				writer.write(record);
+				results[record.getResult()]++;
+				positions += record.getNumOfMoves();
+
+				if (System.nanoTime() - lastReport >= 1000000000L || played == games) {
+					lastReport = System.nanoTime();
+					double seconds = (lastReport - start) / 1e9;
+					System.out.println(String.format("%d/%d games, %d positions, %.1f games/s, Player 1 %d, Player 2 %d, draws %d",
+							played, games, positions, played / seconds,
+							results[Constants.P1], results[Constants.P2], results[Constants.EMPTY]));
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("ERROR : " + e.getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
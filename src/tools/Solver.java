@@ -0,0 +1,56 @@
+package tools;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import connect4.Board;
+import connect4.Geometry;
+import connect4.ProofNumberSolver;
+
+
+/*
+ * It proves the result of a position with the proof-number search solver:
+ * a win, a loss or a draw for the player to move, and the move that achieves it.
+ *
+ * Usage: java tools.Solver [--geometry 7x6x4] [--memory MB] [--nodes N] [moves]
+ *   moves    the position as a move string, e.g. "4453" (default: the empty board)
+ *   --memory the size of the transposition table in MB (default: 256)
+ *   --nodes  the solver gives up after this many nodes (default: 1000000000)
+ */
+public class Solver {
+
+	public static void main(String[] args) {
+		Geometry geometry = Geometry.STANDARD;
+		int memory = 256;
+		long maxNodes = 1000000000L;
+		List<String> arguments = new ArrayList<>();
+		try {
+			for (int i=0; i<args.length; i++) {
+				if (args[i].equals("--geometry")) {
+					geometry = Geometry.parse(args[++i]);
+				} else if (args[i].equals("--memory")) {
+					memory = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("--nodes")) {
+					maxNodes = Long.parseLong(args[++i]);
+				} else {
+					arguments.add(args[i]);
+				}
+			}
+			if (arguments.size() > 1) {
+				throw new IllegalArgumentException("Too many arguments.");
+			}
+		} catch (RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			System.err.println("Usage: java tools.Solver [--geometry 7x6x4] [--memory MB] [--nodes N] [moves]");
+			return;
+		}
+
+		Board board = arguments.isEmpty() ? new Board(geometry) : Board.fromMoveString(geometry, arguments.get(0));
+		Board.printBoard(board.getGameBoard());
+
+		ProofNumberSolver.Result result = new ProofNumberSolver(memory, maxNodes).solve(board);
+		System.out.println("Result for the player to move: " + result);
+	}
+
+}
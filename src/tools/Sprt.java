@@ -0,0 +1,79 @@
+package tools;
+
+
+/*
+ * Sequential probability ratio test between the hypotheses
+ * H0: "the Elo difference is elo0" and H1: "the Elo difference is elo1".
+ * The match stops as soon as the log-likelihood ratio leaves the bounds.
+ */
+public class Sprt {
+
+	public enum Status {
+		CONTINUE,
+		H0_ACCEPTED,
+		H1_ACCEPTED
+	}
+
+	private final double elo0;
+	private final double elo1;
+	private final double lowerBound;
+	private final double upperBound;
+
+
+	public Sprt(double elo0, double elo1, double alpha, double beta) {
+		if (elo1 <= elo0) {
+			throw new IllegalArgumentException("SPRT needs elo0 < elo1.");
+		}
+		// Otherwise the bounds are infinite, NaN, or on the wrong side of 0.
+		if (!(alpha > 0 && alpha < 1 && beta > 0 && beta < 1 && alpha + beta < 1)) {
+			throw new IllegalArgumentException("SPRT needs alpha and beta in (0, 1), with alpha + beta < 1.");
+		}
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+		this.lowerBound = Math.log(beta / (1 - alpha));
+		this.upperBound = Math.log((1 - beta) / alpha);
+	}
+
+
+	// "elo0,elo1[,alpha,beta]", with alpha = beta = 0.05 by default.
+	public static Sprt parse(String spec) {
+		String[] parts = spec.split(",");
+		if (parts.length != 2 && parts.length != 4) {
+			throw new IllegalArgumentException("SPRT expects elo0,elo1[,alpha,beta]: \"" + spec + "\".");
+		}
+		double alpha = (parts.length == 4) ? Double.parseDouble(parts[2]) : 0.05;
+		double beta = (parts.length == 4) ? Double.parseDouble(parts[3]) : 0.05;
+		return new Sprt(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]), alpha, beta);
+	}
+
+
+	public Status getStatus(MatchResult result) {
+		double llr = result.getLogLikelihoodRatio(elo0, elo1);
+		if (llr >= upperBound) {
+			return Status.H1_ACCEPTED;
+		}
+		if (llr <= lowerBound) {
+			return Status.H0_ACCEPTED;
+		}
+		return Status.CONTINUE;
+	}
+
+
+	// The log-likelihood ratio at which H0 is accepted.
+	public double getLowerBound() {
+		return lowerBound;
+	}
+
+
+	// The log-likelihood ratio at which H1 is accepted.
+	public double getUpperBound() {
+		return upperBound;
+	}
+
+
+	public String describe(MatchResult result) {
+		return String.format("LLR %.2f (%.2f, %.2f) [%.1f, %.1f]",
+				result.getLogLikelihoodRatio(elo0, elo1), lowerBound, upperBound, elo0, elo1);
+	}
+
+}
@@ -0,0 +1,303 @@
+package tools;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import connect4.Board;
+import connect4.GameRecord;
+import connect4.GameRecordWriter;
+import connect4.Geometry;
+import connect4.Move;
+import utility.Constants;
+
+
+/*
+ * Command-line tournament between engine configurations.
+ * The games are played concurrently, on all the available cores.
+ * Every opening is played twice, with the colors swapped, so that no engine
+ * gets an advantage from the openings or from playing first.
+ *
+ * Usage: java tools.Tournament [options] engine1 engine2 [engine3 ...]
+ *   --gauntlet             the first engine plays against each of the others (default: round-robin)
+ *   --games N              games per pairing (default: 100)
+ *   --threads N            number of parallel games (default: number of cores)
+ *   --openings N           number of random plies of every opening (default: 2)
+ *   --geometry CxRxK       the board, e.g. 9x7x5 (default: 7x6x4)
+ *   --sprt elo0,elo1[,alpha,beta]   stop as soon as the SPRT is decided (exactly 2 engines)
+ *   --record FILE          append the games to a game record file (see GameRecordWriter)
+ * Engines are given as in EngineConfig, e.g. "alphabeta:5", "alphabeta:100ms", "random".
+ */
+public class Tournament {
+
+	// A game of the tournament. "first" plays as Player 1.
+	private static class Game {
+		final MatchResult pairing;
+		final EngineConfig first;
+		final EngineConfig second;
+		final Geometry geometry;
+		final int[] opening;
+		int winner;
+		int[] moves;
+
+		Game(MatchResult pairing, EngineConfig first, EngineConfig second, Geometry geometry, int[] opening) {
+			this.pairing = pairing;
+			this.geometry = geometry;
+			this.first = first;
+			this.second = second;
+			this.opening = opening;
+		}
+	}
+
+
+	public static void main(String[] args) throws InterruptedException, IOException {
+		boolean gauntlet = false;
+		int gamesPerPairing = 100;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int openingPlies = 2;
+		Geometry geometry = Geometry.STANDARD;
+		Sprt sprt = null;
+		String recordFile = null;
+		List<EngineConfig> engines = new ArrayList<>();
+
+		try {
+			for (int i=0; i<args.length; i++) {
+				switch (args[i]) {
+					case "--gauntlet":
+						gauntlet = true;
+						break;
+					case "--games":
+						gamesPerPairing = Integer.parseInt(args[++i]);
+						break;
+					case "--threads":
+						threads = Integer.parseInt(args[++i]);
+						break;
+					case "--openings":
+						openingPlies = Integer.parseInt(args[++i]);
+						break;
+					case "--geometry":
+						geometry = Geometry.parse(args[++i]);
+						break;
+					case "--sprt":
+						sprt = Sprt.parse(args[++i]);
+						break;
+					case "--record":
+						recordFile = args[++i];
+						break;
+					default:
+						engines.add(EngineConfig.parse(args[i]));
+				}
+			}
+			if (engines.size() < 2) {
+				throw new IllegalArgumentException("At least 2 engines are needed.");
+			}
+			if (sprt != null && engines.size() != 2) {
+				throw new IllegalArgumentException("The SPRT needs exactly 2 engines.");
+			}
+			if (recordFile != null) {
+				geometry.checkStoredDimensions();
+			}
+		} catch (RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			System.err.println("Usage: java tools.Tournament [--gauntlet] [--games N] [--threads N] "
+					+ "[--openings N] [--geometry CxRxK] [--sprt elo0,elo1[,alpha,beta]] [--record FILE] engine1 engine2 ...");
+			return;
+		}
+
+		List<MatchResult> pairings = new ArrayList<>();
+		for (int i=0; i<engines.size(); i++) {
+			for (int j=i+1; j<engines.size(); j++) {
+				if (!gauntlet || i == 0) {
+					pairings.add(new MatchResult(engines.get(i), engines.get(j)));
+				}
+			}
+		}
+
+		List<int[]> openings = generateOpenings(geometry, openingPlies);
+		Collections.shuffle(openings, new Random(geometry.hashCode()));
+
+		// Game pairs with swapped colors are scheduled next to each other,
+		// and the pairings are interleaved, so that partial results stay balanced.
+		List<Game> schedule = new ArrayList<>();
+		for (int n=0; n<(gamesPerPairing + 1) / 2; n++) {
+			int[] opening = openings.get(n % openings.size());
+			for (MatchResult pairing : pairings) {
+				schedule.add(new Game(pairing, pairing.getEngine(), pairing.getOpponent(), geometry, opening));
+				schedule.add(new Game(pairing, pairing.getOpponent(), pairing.getEngine(), geometry, opening));
+			}
+		}
+
+		System.out.println("Tournament on " + geometry + ": " + engines.size() + " engines, " + pairings.size() + " pairings, "
+				+ schedule.size() + " games, " + threads + " threads, " + openings.size() + " openings.");
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CompletionService<Game> completionService = new ExecutorCompletionService<>(executor);
+		for (Game game : schedule) {
+			completionService.submit(() -> {
+				game.winner = playGame(game);
+				return game;
+			});
+		}
+
+		GameRecordWriter recordWriter = (recordFile != null) ? new GameRecordWriter(new File(recordFile), true) : null;
+		long start = System.nanoTime();
+		try {
+			for (int played=1; played<=schedule.size(); played++) {
+				Game game;
+				try {
+					game = completionService.take().get();
+				} catch (ExecutionException e) {
+					System.err.println("ERROR : " + e.getCause());
+					continue;
+				}
+				if (recordWriter != null) {
+					recordWriter.write(new GameRecord(game.geometry, game.first.getName(), game.second.getName(), game.winner, game.moves));
+				}
+
+				MatchResult pairing = game.pairing;
+				boolean engineIsFirst = (game.first == pairing.getEngine());
+				if (game.winner == Constants.EMPTY) {
+					pairing.addDraw();
+				} else if ((game.winner == Constants.P1) == engineIsFirst) {
+					pairing.addWin();
+				} else {
+					pairing.addLoss();
+				}
+
+				String line = "Game " + played + "/" + schedule.size() + ": " + pairing;
+				if (sprt != null) {
+					line += "  " + sprt.describe(pairing);
+				}
+				System.out.println(line);
+
+				if (sprt != null && sprt.getStatus(pairing) != Sprt.Status.CONTINUE) {
+					System.out.println((sprt.getStatus(pairing) == Sprt.Status.H1_ACCEPTED)
+							? "SPRT: H1 accepted, " + pairing.getEngine() + " is stronger."
+							: "SPRT: H0 accepted, " + pairing.getEngine() + " is not stronger.");
+					break;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			if (recordWriter != null) {
+				recordWriter.close();
+			}
+		}
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		printResults(engines, pairings, seconds);
+	}
+
+
+	// It plays a whole game, stores its moves and returns the winner (Constants.EMPTY for a draw).
+	static int playGame(Game game) {
+		int[] opening = game.opening;
+		EngineConfig.Engine engine1 = game.first.newEngine(Constants.P1);
+		EngineConfig.Engine engine2 = game.second.newEngine(Constants.P2);
+
+		Board board = new Board(game.geometry);
+		List<Integer> moves = new ArrayList<>();
+		for (int i=0; i<opening.length; i++) {
+			board.makeMove(opening[i], (i % 2 == 0) ? Constants.P1 : Constants.P2);
+			moves.add(opening[i]);
+		}
+
+		while (!board.checkForGameOver()) {
+			if (Thread.currentThread().isInterrupted()) {
+				break;
+			}
+			int player = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+			Move move = (player == Constants.P1) ? engine1.findMove(board) : engine2.findMove(board);
+			board.makeMove(move.getColumn(), player);
+			moves.add(move.getColumn());
+		}
+
+		game.moves = new int[moves.size()];
+		for (int i=0; i<game.moves.length; i++) {
+			game.moves[i] = moves.get(i);
+		}
+		return board.checkForGameOver() ? board.getWinner() : Constants.EMPTY;
+	}
+
+
+	// All the move sequences of the given length that do not end the game.
+	static List<int[]> generateOpenings(Geometry geometry, int plies) {
+		List<int[]> openings = new ArrayList<>();
+		addOpenings(new Board(geometry), new int[plies], 0, openings);
+		if (openings.isEmpty()) {
+			openings.add(new int[0]);
+		}
+		return openings;
+	}
+
+
+	private static void addOpenings(Board board, int[] moves, int ply, List<int[]> openings) {
+		if (ply == moves.length) {
+			openings.add(moves.clone());
+			return;
+		}
+		for (int col=0; col<board.getGeometry().getNumOfColumns(); col++) {
+			if (!board.checkFullColumn(col)) {
+				Board child = new Board(board);
+				child.makeMove(col, (ply % 2 == 0) ? Constants.P1 : Constants.P2);
+				if (!child.checkForGameOver()) {
+					moves[ply] = col;
+					addOpenings(child, moves, ply + 1, openings);
+				}
+			}
+		}
+	}
+
+
+	private static void printResults(List<EngineConfig> engines, List<MatchResult> pairings, double seconds) {
+		System.out.println();
+		System.out.println("*****************************");
+		System.out.println("Results:");
+		for (MatchResult pairing : pairings) {
+			System.out.println(pairing);
+		}
+
+		if (engines.size() > 2) {
+			System.out.println();
+			System.out.println("Standings:");
+			List<MatchResult> standings = new ArrayList<>();
+			for (EngineConfig engine : engines) {
+				MatchResult total = new MatchResult(engine, null);
+				for (MatchResult pairing : pairings) {
+					if (pairing.getEngine() == engine) {
+						addResults(total, pairing.getWins(), pairing.getDraws(), pairing.getLosses());
+					} else if (pairing.getOpponent() == engine) {
+						addResults(total, pairing.getLosses(), pairing.getDraws(), pairing.getWins());
+					}
+				}
+				standings.add(total);
+			}
+			standings.sort((r1, r2) -> Double.compare(r2.getScore(), r1.getScore()));
+			for (MatchResult total : standings) {
+				System.out.println(String.format("%-20s %5.1f / %-5d Elo vs field %+.1f +/- %.1f",
+						total.getEngine(), total.getWins() + 0.5 * total.getDraws(), total.getGames(),
+						total.getElo(), total.getEloError()));
+			}
+		}
+
+		System.out.println();
+		System.out.println(String.format("Elapsed time: %.1f s", seconds));
+	}
+
+
+	private static void addResults(MatchResult total, int wins, int draws, int losses) {
+		for (int i=0; i<wins; i++) total.addWin();
+		for (int i=0; i<draws; i++) total.addDraw();
+		for (int i=0; i<losses; i++) total.addLoss();
+	}
+
+}
@@ -0,0 +1,299 @@
+package tools;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import connect4.Board;
+import connect4.GameRecord;
+import connect4.GameRecordReader;
+import connect4.Geometry;
+import connect4.WindowEvaluator;
+import utility.Constants;
+import utility.GameParameters;
+
+
+/*
+ * It tunes the weights of the "WindowEvaluator" on the positions of game records, e.g. of "SelfPlay".
+ * Every position that is not the end of its game is labelled with the result of the game: 1, 0.5 or 0 for Player 1.
+ * The value of a position is the sum of the weights times its features (see "WindowEvaluator.countWindows()"),
+ * and sigmoid(K * value) predicts the result. The tuner first fits K to the default weights,
+ * then fits the weights by gradient descent (Adam), minimizing the mean squared error of the predictions.
+ * The error and its gradient are summed over the positions in parallel, on all the available cores.
+ *
+ * The weights are written multiplied by "SCALE", as integers, to the weights file, which the AI loads at startup.
+ * The search only compares values, so the scale does not matter, but a win is worth "WIN_SCORE",
+ * more than any position that is not won.
+ *
+ * Usage: java tools.WeightTuner [options] games.c4g [more.c4g ...]
+ *   --iterations N      the steps of the gradient descent (default: 500)
+ *   --learning-rate X   the step size of Adam (default: 0.05)
+ *   --skip-plies N      the first plies of every game are not used, e.g. random openings (default: 0)
+ *   --threads N         number of threads (default: number of cores)
+ *   --output FILE       the weights file (default: the one of GameParameters)
+ * The games of other geometries than the one of the first game are skipped.
+ */
+public class WeightTuner {
+
+	static final int SCALE = 100;
+	static final int WIN_SCORE = 1000000;
+
+	// The features of the positions, one array per number of checkers in a row.
+	private final int[][] features;
+	// The result of the game of every position, for Player 1.
+	private final double[] results;
+	private final int numOfPositions;
+	private final ExecutorService executor;
+	private final int numOfChunks;
+
+
+	WeightTuner(int[][] features, double[] results, int numOfPositions, ExecutorService executor, int numOfChunks) {
+		this.features = features;
+		this.results = results;
+		this.numOfPositions = numOfPositions;
+		this.executor = executor;
+		this.numOfChunks = numOfChunks;
+	}
+
+
+	/*
+	 * The mean squared error of the predictions of the weights, followed by its gradient
+	 * with respect to every weight, if "gradient" is true.
+	 */
+	double[] error(double k, double[] weights, boolean gradient) throws InterruptedException {
+		List<Callable<double[]>> tasks = new ArrayList<>();
+		for (int chunk=0; chunk<numOfChunks; chunk++) {
+			int from = (int) ((long) numOfPositions * chunk / numOfChunks);
+			int to = (int) ((long) numOfPositions * (chunk + 1) / numOfChunks);
+			tasks.add(() -> error(k, weights, gradient, from, to));
+		}
+		double[] sums = new double[weights.length + 1];
+		try {
+			for (Future<double[]> future : executor.invokeAll(tasks)) {
+				double[] partial = future.get();
+				for (int i=0; i<sums.length; i++) {
+					sums[i] += partial[i];
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		for (int i=0; i<sums.length; i++) {
+			sums[i] /= numOfPositions;
+		}
+		return sums;
+	}
+
+
+	private double[] error(double k, double[] weights, boolean gradient, int from, int to) {
+		double[] sums = new double[weights.length + 1];
+		for (int p=from; p<to; p++) {
+			double value = 0;
+			for (int n=0; n<weights.length; n++) {
+				value += weights[n] * features[n][p];
+			}
+			double prediction = 1 / (1 + Math.exp(-k * value));
+			double difference = results[p] - prediction;
+			sums[0] += difference * difference;
+			if (gradient) {
+				double factor = -2 * difference * prediction * (1 - prediction) * k;
+				for (int n=0; n<weights.length; n++) {
+					sums[n + 1] += factor * features[n][p];
+				}
+			}
+		}
+		return sums;
+	}
+
+
+	// The K of the smallest error, by a golden-section search of its logarithm.
+	double fitK(double[] weights) throws InterruptedException {
+		double low = -6;
+		double high = 2;
+		double ratio = (Math.sqrt(5) - 1) / 2;
+		double x1 = high - ratio * (high - low);
+		double x2 = low + ratio * (high - low);
+		double e1 = error(Math.pow(10, x1), weights, false)[0];
+		double e2 = error(Math.pow(10, x2), weights, false)[0];
+		for (int i=0; i<40; i++) {
+			if (e1 < e2) {
+				high = x2;
+				x2 = x1;
+				e2 = e1;
+				x1 = high - ratio * (high - low);
+				e1 = error(Math.pow(10, x1), weights, false)[0];
+			} else {
+				low = x1;
+				x1 = x2;
+				e1 = e2;
+				x2 = low + ratio * (high - low);
+				e2 = error(Math.pow(10, x2), weights, false)[0];
+			}
+		}
+		return Math.pow(10, (low + high) / 2);
+	}
+
+
+	// It minimizes the error with Adam, starting from the given weights, which it changes.
+	double tune(double k, double[] weights, int iterations, double learningRate) throws InterruptedException {
+		double beta1 = 0.9;
+		double beta2 = 0.999;
+		double[] m = new double[weights.length];
+		double[] v = new double[weights.length];
+		double error = 0;
+		for (int t=1; t<=iterations; t++) {
+			double[] errorAndGradient = error(k, weights, true);
+			error = errorAndGradient[0];
+			for (int n=0; n<weights.length; n++) {
+				double g = errorAndGradient[n + 1];
+				m[n] = beta1 * m[n] + (1 - beta1) * g;
+				v[n] = beta2 * v[n] + (1 - beta2) * g * g;
+				double mHat = m[n] / (1 - Math.pow(beta1, t));
+				double vHat = v[n] / (1 - Math.pow(beta2, t));
+				weights[n] -= learningRate * mHat / (Math.sqrt(vHat) + 1e-12);
+			}
+			if (t % 100 == 0 || t == iterations) {
+				System.out.println(String.format("Iteration %d: error %.6f, weights %s", t, error, Arrays.toString(weights)));
+			}
+		}
+		return error(k, weights, false)[0];
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		int iterations = 500;
+		double learningRate = 0.05;
+		int skipPlies = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String output = GameParameters.weightsFile;
+		List<String> files = new ArrayList<>();
+		try {
+			for (int i=0; i<args.length; i++) {
+				switch (args[i]) {
+					case "--iterations":
+						iterations = Integer.parseInt(args[++i]);
+						break;
+					case "--learning-rate":
+						learningRate = Double.parseDouble(args[++i]);
+						break;
+					case "--skip-plies":
+						skipPlies = Integer.parseInt(args[++i]);
+						break;
+					case "--threads":
+						threads = Integer.parseInt(args[++i]);
+						break;
+					case "--output":
+						output = args[++i];
+						break;
+					default:
+						files.add(args[i]);
+				}
+			}
+			if (files.isEmpty()) {
+				throw new IllegalArgumentException("Expected at least one game record file.");
+			}
+			if (iterations < 1 || learningRate <= 0 || skipPlies < 0 || threads < 1) {
+				throw new IllegalArgumentException("Invalid iterations, learning rate, skipped plies or threads.");
+			}
+		} catch (RuntimeException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			System.err.println("Usage: java tools.WeightTuner [--iterations N] [--learning-rate X] [--skip-plies N] "
+					+ "[--threads N] [--output FILE] games.c4g [more.c4g ...]");
+			return;
+		}
+
+		// The positions are read on this thread: it is fast compared to the tuning.
+		WindowEvaluator evaluator = new WindowEvaluator();
+		Geometry geometry = null;
+		int numOfFeatures = 0;
+		int[][] features = null;
+		double[] results = new double[1 << 16];
+		int numOfPositions = 0;
+		int numOfGames = 0;
+		int skippedGames = 0;
+		try {
+			for (String file : files) {
+				try (GameRecordReader reader = new GameRecordReader(new File(file))) {
+					GameRecord record;
+					while ((record = reader.read()) != null) {
+						if (geometry == null) {
+							geometry = record.getGeometry();
+							numOfFeatures = Math.max(0, geometry.getInARow() - 2);
+							features = new int[numOfFeatures][results.length];
+						}
+						if (!record.getGeometry().equals(geometry) || record.getResult() == GameRecord.UNFINISHED) {
+							skippedGames++;
+							continue;
+						}
+						double result = (record.getResult() == Constants.P1) ? 1 : (record.getResult() == Constants.P2) ? 0 : 0.5;
+						Board board = new Board(geometry);
+						for (int ply=0; ply<record.getNumOfMoves(); ply++) {
+							if (ply >= skipPlies) {
+								if (numOfPositions == results.length) {
+									results = Arrays.copyOf(results, 2 * results.length);
+									for (int n=0; n<numOfFeatures; n++) {
+										features[n] = Arrays.copyOf(features[n], results.length);
+									}
+								}
+								int[] windows = evaluator.countWindows(board);
+								for (int n=0; n<numOfFeatures; n++) {
+									features[n][numOfPositions] = windows[n + 2];
+								}
+								results[numOfPositions++] = result;
+							}
+							board.makeMove(record.getMove(ply), (ply % 2 == 0) ? Constants.P1 : Constants.P2);
+						}
+						numOfGames++;
+					}
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("ERROR : " + e.getMessage());
+			return;
+		}
+		if (numOfPositions == 0 || numOfFeatures == 0) {
+			System.err.println("ERROR : There are no positions to tune the weights on.");
+			return;
+		}
+		System.out.println("Tuning on " + numOfPositions + " positions of " + numOfGames + " games on " + geometry
+				+ (skippedGames > 0 ? ", " + skippedGames + " games skipped" : "") + ".");
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			WeightTuner tuner = new WeightTuner(features, results, numOfPositions, executor, 4 * threads);
+			double[] weights = new double[numOfFeatures];
+			for (int n=0; n<numOfFeatures; n++) {
+				weights[n] = Math.pow(10, n);
+			}
+			double k = tuner.fitK(weights);
+			double initialError = tuner.error(k, weights, false)[0];
+			System.out.println(String.format("K = %.6f, error of the default weights %.6f", k, initialError));
+
+			long start = System.nanoTime();
+			double error = tuner.tune(k, weights, iterations, learningRate);
+			System.out.println(String.format("Error %.6f after %d iterations, in %.1f s", error, iterations, (System.nanoTime() - start) / 1e9));
+
+			int[] scaled = new int[geometry.getInARow()];
+			for (int n=0; n<numOfFeatures; n++) {
+				scaled[n + 2] = (int) Math.round(weights[n] * SCALE);
+			}
+			new WindowEvaluator(geometry, scaled, WIN_SCORE).save(new File(output),
+					String.format("Tuned on %d positions of %d games, error %.6f (default weights %.6f)",
+							numOfPositions, numOfGames, error, initialError));
+			System.out.println("The weights are written to " + output + ".");
+		} catch (IOException e) {
+			System.err.println("ERROR : " + e.getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -15,5 +15,15 @@ public class GameParameters {
 	public static int maxDepth2 = 5;
 	public static Color player1Color = Color.RED;
 	public static Color player2Color = Color.YELLOW;
+
+	// The searched positions are kept in this file between runs. Its size is in MB.
+	public static String transpositionTableFile = "connect4.tt";
+	public static int transpositionTableMegabytes = 64;
+
+	// The evaluation weights tuned by "tools.WeightTuner", if the file exists.
+	public static String weightsFile = "weights.txt";
+
+	// The n-tuple network trained by "tools.NTupleTrainer". If the file exists, it is used instead of the weights.
+	public static String nTupleFile = "ntuple.c4n";
 	
 }
@@ -0,0 +1,79 @@
+package connect4_tests;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import connect4.Geometry;
+import org.junit.jupiter.api.Test;
+import tools.Analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class AnalyzerTest {
+
+	private static final String POSITIONS = "4453\n# a comment\n\n44\n4\n1\n2\n3\n48\n1111111\n";
+
+	// The lines written by the analyzer.
+	private static List<String> analyze(Analyzer analyzer, String input, int threads, int capacity, boolean ordered)
+			throws IOException, InterruptedException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		long count = analyzer.run(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output, threads, capacity, ordered);
+		List<String> lines = Arrays.asList(output.toString(StandardCharsets.UTF_8).split("\n"));
+		assertEquals(count, lines.size(), "Every position must give a line.");
+		return lines;
+	}
+
+	private static List<String> firstWords(List<String> lines) {
+		List<String> words = new ArrayList<>();
+		for (String line : lines) {
+			words.add(line.split(" ")[0]);
+		}
+		return words;
+	}
+
+	@Test
+	public void testOrderedAndUnordered() throws IOException, InterruptedException {
+		Analyzer analyzer = new Analyzer(Geometry.STANDARD, 3, 0, 0, false, 1);
+		List<String> expected = List.of("4453", "44", "4", "1", "2", "3", "48", "1111111");
+
+		// Fewer places in the queue than workers.
+		List<String> ordered = analyze(analyzer, POSITIONS, 3, 2, true);
+		assertEquals(expected, firstWords(ordered), "The results are not in the order of the input.");
+		assertTrue(ordered.get(0).matches("4453 [1-7] -?\\d+ 3 \\d+"), ordered.get(0));
+
+		// The nodes depend on what the other searches left in the shared table, so only the positions are compared.
+		List<String> unordered = firstWords(analyze(analyzer, POSITIONS, 3, 1, false));
+		Collections.sort(unordered);
+		List<String> sortedExpected = new ArrayList<>(expected);
+		Collections.sort(sortedExpected);
+		assertEquals(sortedExpected, unordered, "Wrong positions of the unordered results.");
+	}
+
+	@Test
+	public void testInvalidPositions() throws IOException, InterruptedException {
+		Analyzer analyzer = new Analyzer(Geometry.STANDARD, 3, 0, 0, false, 1);
+		List<String> lines = analyze(analyzer, POSITIONS, 2, 8, true);
+		assertTrue(lines.get(6).startsWith("48 ERROR "), lines.get(6));
+		assertTrue(lines.get(7).startsWith("1111111 ERROR "), lines.get(7));
+	}
+
+	@Test
+	public void testSolver() throws IOException, InterruptedException {
+		// Player 1 has two threats, and Player 1 has won.
+		Analyzer analyzer = new Analyzer(Geometry.STANDARD, 1, 0, 0, true, 1);
+		List<String> lines = analyze(analyzer, "445566\n4455667\n48\n", 2, 1, true);
+		assertTrue(lines.get(0).matches("445566 [1-7] WIN - \\d+"), lines.get(0));
+		assertEquals("4455667 - LOSS 0 0", lines.get(1), "Wrong result of a finished game.");
+		assertTrue(lines.get(2).startsWith("48 ERROR "), lines.get(2));
+	}
+
+}
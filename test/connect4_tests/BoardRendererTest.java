@@ -0,0 +1,42 @@
+package connect4_tests;
+
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import connect4.GameRecord;
+import connect4.Geometry;
+import enumeration.Color;
+import gui.BoardRenderer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+public class BoardRendererTest {
+
+	@Test
+	public void testGifHasOneFramePerPly() throws IOException {
+		File file = File.createTempFile("game", ".gif");
+		file.deleteOnExit();
+		GameRecord record = GameRecord.of(Geometry.STANDARD, "Player 1", "Player 2", new int[] {3, 3, 4, 2, 5, 1, 6});
+		BoardRenderer renderer = new BoardRenderer(Geometry.STANDARD, 40, Color.RED, Color.YELLOW);
+		renderer.writeGif(record, file, 100, 1000);
+
+		ImageReader reader = ImageIO.getImageReadersBySuffix("gif").next();
+		try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+			reader.setInput(input);
+			// The empty board, then a frame per move.
+			assertEquals(8, reader.getNumImages(true), "Wrong number of frames.");
+			assertEquals(renderer.getWidth(), reader.getWidth(0), "Wrong width.");
+			assertEquals(renderer.getHeight(), reader.getHeight(0), "Wrong height.");
+		} finally {
+			reader.dispose();
+		}
+	}
+
+}
@@ -1,12 +1,17 @@
 package connect4_tests;
 
 
+import java.util.Random;
+
 import connect4.Board;
+import connect4.Geometry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import utility.Constants;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 public class BoardTest {
@@ -117,6 +122,77 @@ public class BoardTest {
 		System.out.println();
 	}
 
+	@Test
+	public void testCheckWinStateLargeBoard() {
+		// 15x15 Connect-6 needs 4 words per player, so the lines cross word boundaries.
+		Board b = new Board(new Geometry(15, 15, 6));
+		for (int col=5; col<11; col++) {
+			assertFalse(b.checkWinState(), "Nobody should have won yet.");
+			b.makeMove(col, Constants.P2);
+			if (col < 10) {
+				b.makeMove(col, Constants.P1);
+			}
+		}
+		assertTrue(b.checkWinState(), "The horizontal line was not found.");
+		assertEquals(Constants.P2, b.getWinner(), "The winner is not correct.");
+	}
+
+	@Test
+	public void testCheckWinStateAfterSetCell() {
+		Board b = new Board();
+		for (int i=0; i<4; i++) {
+			b.setCell(numOfRows-1-i, i, Constants.P1);
+		}
+		Board.printBoard(b.getGameBoard());
+
+		assertTrue(b.checkWinState(), "The diagonal line was not found.");
+		assertEquals(Constants.P1, b.getWinner(), "The winner is not correct.");
+		System.out.println("*****************************");
+		System.out.println();
+	}
+
+	@Test
+	public void testThreats() {
+		// The moves found with the bitsets are those found by trying every column.
+		Random random = new Random(3);
+		for (Geometry geometry : new Geometry[] { Geometry.STANDARD, Geometry.parse("5x4x3"), Geometry.parse("9x7x5"),
+				Geometry.parse("12x10x6") }) {
+			for (int game=0; game<100; game++) {
+				Board b = new Board(geometry);
+				int player = Constants.P1;
+				while (!b.checkForGameOver()) {
+					for (int p : new int[] { Constants.P1, Constants.P2 }) {
+						int count = 0;
+						long doubleThreats = 0;
+						for (int col=0; col<geometry.getNumOfColumns(); col++) {
+							if (b.isWinningMove(col, p)) {
+								count++;
+							}
+							if (!b.checkFullColumn(col)) {
+								Board child = new Board(b);
+								child.makeMove(col, p);
+								int threats = 0;
+								for (int c=0; c<geometry.getNumOfColumns(); c++) {
+									threats += child.isWinningMove(c, p) ? 1 : 0;
+								}
+								doubleThreats |= (threats >= 2) ? 1L << col : 0;
+							}
+						}
+						assertEquals(count, b.countWinningMoves(p), "Wrong number of winning moves on " + geometry + ".");
+						int win = b.findWinningMove(p);
+						assertTrue((count == 0) ? win == -1 : b.isWinningMove(win, p), "Wrong winning move on " + geometry + ".");
+						assertEquals(doubleThreats, b.findDoubleThreatMoves(p), "Wrong double threats on " + geometry + ".");
+					}
+					int col = random.nextInt(geometry.getNumOfColumns());
+					if (!b.checkFullColumn(col)) {
+						b.makeMove(col, player);
+						player = (player == Constants.P1) ? Constants.P2 : Constants.P1;
+					}
+				}
+			}
+		}
+	}
+
 //	@Test
 //	public void testGetChildren() {
 //		fail("Not yet implemented");
@@ -0,0 +1,52 @@
+package connect4_tests;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import connect4.Geometry;
+import gui.EngineProtocol;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class EngineProtocolTest {
+
+	private static String[] run(String commands) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		EngineProtocol protocol = new EngineProtocol(new PrintStream(output, true, "UTF-8"), Geometry.STANDARD, null);
+		protocol.run(new ByteArrayInputStream(commands.getBytes(StandardCharsets.UTF_8)));
+		return output.toString("UTF-8").split("\\R");
+	}
+
+	@Test
+	public void testDepthLimit() throws IOException {
+		String[] lines = run("isready\nposition 4453\ngo depth 3\n");
+		assertEquals("readyok", lines[0], "Wrong answer to isready.");
+		assertEquals(5, lines.length, "Expected an info line per iteration and the best move.");
+		assertTrue(lines[3].startsWith("info depth 3 "), lines[3]);
+		assertTrue(lines[4].matches("bestmove [1-7]"), lines[4]);
+	}
+
+	@Test
+	public void testNodeLimit() throws IOException {
+		// The first iteration is always completed.
+		String[] lines = run("go depth 20 nodes 1\n");
+		assertEquals(2, lines.length, "The search did not stop at the node limit.");
+		assertTrue(lines[0].startsWith("info depth 1 "), lines[0]);
+	}
+
+	@Test
+	public void testStop() throws IOException {
+		String[] lines = run("go\nstop\nposition 1212121\ngo depth 2\nfoo\n");
+		assertTrue(lines[lines.length - 1].startsWith("info string"), "An unknown command was accepted.");
+		assertTrue(lines[lines.length - 2].startsWith("info string ERROR"), "A search started after the end of the game.");
+		assertTrue(lines[lines.length - 3].startsWith("bestmove "), "The stopped search has no best move.");
+	}
+
+}
@@ -0,0 +1,141 @@
+package connect4_tests;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import connect4.Board;
+import connect4.Geometry;
+import connect4.NTupleEvaluator;
+import connect4.WindowEvaluator;
+import org.junit.jupiter.api.Test;
+import utility.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+public class EvaluatorTest {
+
+	@Test
+	public void testVerticalAndDiagonalRuns() {
+		// Player 1 has 2 in a row vertically in column 1, with 2 empty cells above them.
+		Board board = Board.fromMoveString("1213");
+		assertEquals(1, board.countNInARow(2, Constants.P1) - countHorizontal(board, 2, Constants.P1),
+				"The vertical run is not counted.");
+
+		// Player 1 has 2 in a row in ascending diagonal: 1 in column 1 and 1 on the second row of column 2.
+		board = Board.fromMoveString("1225");
+		assertEquals(1, board.countNInARow(2, Constants.P1) - countHorizontal(board, 2, Constants.P1),
+				"The diagonal run is not counted.");
+	}
+
+	@Test
+	public void testSameValuesAsBoard() {
+		WindowEvaluator evaluator = new WindowEvaluator();
+		Random random = new Random(7);
+		for (Geometry geometry : List.of(Geometry.STANDARD, Geometry.parse("9x7x5"), Geometry.parse("5x4x3"),
+				Geometry.parse("12x10x6"))) {
+			for (int game=0; game<50; game++) {
+				Board board = new Board(geometry);
+				int player = Constants.P1;
+				while (!board.checkForGameOver()) {
+					int col = random.nextInt(geometry.getNumOfColumns());
+					if (board.checkFullColumn(col)) {
+						continue;
+					}
+					board.makeMove(col, player);
+					player = (player == Constants.P1) ? Constants.P2 : Constants.P1;
+					assertEquals(board.evaluate(), evaluator.evaluate(board), "Wrong value on a " + geometry + " board.");
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testWeightsFile() throws IOException {
+		File file = File.createTempFile("weights", ".txt");
+		file.deleteOnExit();
+		WindowEvaluator tuned = new WindowEvaluator(Geometry.STANDARD, new int[] { 0, 0, 3, 25 }, 1000);
+		tuned.save(file, "test");
+		WindowEvaluator loaded = WindowEvaluator.load(file);
+		assertEquals(tuned, loaded, "The weights changed when saved and loaded.");
+
+		// The value is the sum of the weights times the windows.
+		Board board = Board.fromMoveString("4453");
+		int[] windows = loaded.countWindows(board);
+		assertEquals(3 * windows[2] + 25 * windows[3], loaded.evaluate(board), "Wrong value of the weights.");
+
+		// Other geometries use the default weights.
+		board = Board.fromMoveString(Geometry.parse("9x7x5"), "5564");
+		assertEquals(board.evaluate(), loaded.evaluate(board), "The weights were used on another geometry.");
+	}
+
+	@Test
+	public void testNTupleIncrementalIndices() throws IOException {
+		NTupleEvaluator network = new NTupleEvaluator(Geometry.STANDARD, 16, 6, 3);
+		Random random = new Random(11);
+		for (int game=0; game<20; game++) {
+			Board board = new Board(Geometry.STANDARD);
+			network.prepare(board);
+			int player = Constants.P1;
+			while (!board.checkForGameOver()) {
+				int col = random.nextInt(Geometry.STANDARD.getNumOfColumns());
+				if (board.checkFullColumn(col)) {
+					continue;
+				}
+				board.makeMove(col, player);
+				player = (player == Constants.P1) ? Constants.P2 : Constants.P1;
+				network.learn(board, random.nextBoolean() ? 1 : -1, 0.1);
+
+				// The same value from the indices that follow the moves and from the checkers.
+				Board scratch = new Board(board);
+				scratch.setAccumulator(null);
+				assertEquals(network.evaluate(scratch), network.evaluate(board), "The indices are out of date.");
+				if (random.nextInt(4) == 0) {
+					board.undoMove(col);
+					scratch = new Board(board);
+					scratch.setAccumulator(null);
+					assertEquals(network.evaluate(scratch), network.evaluate(board), "The indices are out of date after an undo.");
+					player = (player == Constants.P1) ? Constants.P2 : Constants.P1;
+				}
+			}
+		}
+
+		// The mapped file has the same weights.
+		File file = File.createTempFile("ntuple", ".c4n");
+		file.deleteOnExit();
+		network.save(file);
+		NTupleEvaluator loaded = NTupleEvaluator.load(file, new WindowEvaluator());
+		assertEquals(network, loaded, "The network changed when saved and loaded.");
+		assertEquals(network.hashCode(), loaded.hashCode(), "The network changed when saved and loaded.");
+		Board board = Board.fromMoveString("4453");
+		assertEquals(network.evaluate(board), loaded.evaluate(board), "Wrong value of the mapped network.");
+	}
+
+	// The windows of "n" checkers of the player, horizontally, as counted by "Board.countNInARow()".
+	private static int countHorizontal(Board board, int n, int player) {
+		Geometry geometry = board.getGeometry();
+		int times = 0;
+		for (int i=0; i<geometry.getNumOfRows(); i++) {
+			for (int j=0; j+geometry.getInARow()<=geometry.getNumOfColumns(); j++) {
+				int k = 0;
+				while (k < n && board.getCell(i, j+k) == player) {
+					k++;
+				}
+				if (k < n) {
+					continue;
+				}
+				while (k < geometry.getInARow() && board.getCell(i, j+k) != ((player == Constants.P1) ? Constants.P2 : Constants.P1)) {
+					k++;
+				}
+				if (k == geometry.getInARow()) {
+					times++;
+				}
+			}
+		}
+		return times;
+	}
+
+}
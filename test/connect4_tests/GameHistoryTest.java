@@ -0,0 +1,72 @@
+package connect4_tests;
+
+
+import connect4.Board;
+import connect4.GameHistory;
+import connect4.Geometry;
+import org.junit.jupiter.api.Test;
+import utility.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class GameHistoryTest {
+
+	private static GameHistory play(String moves) {
+		GameHistory history = new GameHistory(Geometry.STANDARD);
+		for (int i=0; i<moves.length(); i++) {
+			history.play(moves.charAt(i) - '1', (i % 2 == 0) ? Constants.P1 : Constants.P2);
+		}
+		return history;
+	}
+
+	@Test
+	public void testUndoAndRedo() {
+		GameHistory history = play("445362");
+		history.undo();
+		history.undo();
+
+		Board expected = Board.fromMoveString("4453");
+		Board board = history.getBoard();
+		assertEquals(expected.getHashKey(), board.getHashKey(), "Wrong position after undo.");
+		assertEquals(4, board.getTurn(), "Wrong turn after undo.");
+		assertEquals(Constants.P2, board.getLastPlayer(), "Wrong last player after undo.");
+		assertEquals(2, board.getLastMove().getColumn(), "Wrong last move after undo.");
+
+		history.redo();
+		assertEquals(Board.fromMoveString("44536").getHashKey(), board.getHashKey(), "Wrong position after redo.");
+		assertTrue(history.canRedo(), "The last move can still be redone.");
+
+		// A new move forgets the moves that could be redone.
+		history.play(0, Constants.P2);
+		assertFalse(history.canRedo(), "The undone move was not forgotten.");
+		assertEquals(6, history.getNumOfMoves(), "Wrong number of moves.");
+	}
+
+	@Test
+	public void testUndoWinningMove() {
+		GameHistory history = play("1212121");
+		assertTrue(history.getBoard().checkForGameOver(), "Player 1 has won.");
+
+		history.undo();
+		assertFalse(history.getBoard().checkForGameOver(), "The win was taken back.");
+
+		// The win is found again after the redo.
+		history.redo();
+		assertEquals(Constants.P1, history.getBoard().getWinner(), "Player 1 has won again.");
+	}
+
+	@Test
+	public void testJumpTo() {
+		GameHistory history = play("4453627");
+		history.jumpTo(0);
+		assertEquals(new Board().getHashKey(), history.getBoard().getHashKey(), "The board is not empty.");
+		history.jumpTo(5);
+		assertEquals(Board.fromMoveString("44536").getHashKey(), history.getBoard().getHashKey(), "Wrong position at ply 5.");
+		history.jumpTo(7);
+		assertEquals(Board.fromMoveString("4453627").getHashKey(), history.getBoard().getHashKey(), "Wrong position at ply 7.");
+	}
+
+}
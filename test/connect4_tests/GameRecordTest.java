@@ -0,0 +1,95 @@
+package connect4_tests;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import connect4.Board;
+import connect4.GameRecord;
+import connect4.GameRecordReader;
+import connect4.GameRecordWriter;
+import connect4.Geometry;
+import org.junit.jupiter.api.Test;
+import utility.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class GameRecordTest {
+
+	@Test
+	public void testWriteAppendAndRead() throws IOException {
+		File file = File.createTempFile("games", ".c4g");
+		file.deleteOnExit();
+
+		List<GameRecord> records = new ArrayList<>();
+		records.add(GameRecord.of(Geometry.STANDARD, "alphabeta:5", "random", new int[] { 3, 3, 2, 2, 1, 1, 0 }));
+		records.add(GameRecord.of(Geometry.STANDARD, "Human", "Minimax AI depth 4", new int[] { 3, 4, 3 }));
+		try (GameRecordWriter writer = new GameRecordWriter(file, false)) {
+			writer.write(records.get(0));
+			writer.write(records.get(1));
+		}
+
+		// A board with more than 16 columns uses 1 byte per move.
+		records.add(GameRecord.of(new Geometry(6, 20, 4), "a", "b", new int[] { 19, 0, 18, 17, 12 }));
+		try (GameRecordWriter writer = new GameRecordWriter(file, true)) {
+			writer.write(records.get(2));
+		}
+
+		List<GameRecord> read = new ArrayList<>();
+		try (GameRecordReader reader = new GameRecordReader(file)) {
+			for (GameRecord record : reader) {
+				read.add(record);
+			}
+		}
+		assertEquals(records, read, "The games read differ from the games written.");
+
+		assertEquals(Constants.P1, read.get(0).getResult(), "Player 1 won the first game.");
+		assertEquals(GameRecord.UNFINISHED, read.get(1).getResult(), "The second game is not over.");
+		assertEquals("454", read.get(1).getMoveString(), "Wrong move string.");
+	}
+
+	@Test
+	public void testReplayedBoard() throws IOException {
+		File file = File.createTempFile("games", ".c4g");
+		file.deleteOnExit();
+
+		Board expected = Board.fromMoveString("4453");
+		try (GameRecordWriter writer = new GameRecordWriter(file, false)) {
+			writer.write(GameRecord.of(Geometry.STANDARD, "a", "b", new int[] { 3, 3, 4, 2 }));
+		}
+
+		try (GameRecordReader reader = new GameRecordReader(file)) {
+			Board board = reader.read().getBoard();
+			assertEquals(expected.getHashKey(), board.getHashKey(), "The replayed board differs.");
+			assertEquals(Constants.P2, board.getLastPlayer(), "Player 2 played the last move.");
+			assertEquals(2, board.getLastMove().getColumn(), "The last move was in column 3.");
+			assertNull(reader.read(), "There is a single game in the file.");
+		}
+	}
+
+	@Test
+	public void testTooLargeBoard() throws IOException {
+		File file = File.createTempFile("games", ".c4g");
+		file.deleteOnExit();
+
+		// The rows would be written in a byte, and read back as 300 - 256.
+		Geometry tall = new Geometry(300, 7, 4);
+		try (GameRecordWriter writer = new GameRecordWriter(file, false)) {
+			assertThrows(IllegalArgumentException.class, () -> writer.write(GameRecord.of(tall, "a", "b", new int[] { 3 })),
+					"A board of 300 rows was written.");
+			writer.write(GameRecord.of(Geometry.STANDARD, "a", "b", new int[] { 3, 3 }));
+		}
+
+		// Nothing of the rejected game was written.
+		try (GameRecordReader reader = new GameRecordReader(file)) {
+			assertEquals(Geometry.STANDARD, reader.read().getGeometry(), "The rejected game was partly written.");
+			assertNull(reader.read(), "There is a single game in the file.");
+		}
+	}
+
+}
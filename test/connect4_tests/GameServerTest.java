@@ -0,0 +1,134 @@
+package connect4_tests;
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import server.GameServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class GameServerTest {
+
+	private GameServer server;
+
+	@BeforeEach
+	public void startServer() throws IOException {
+		server = new GameServer(0, 60000, 1);
+		server.start();
+	}
+
+	@AfterEach
+	public void stopServer() {
+		server.stop();
+	}
+
+	// It returns the status and the body of the answer, e.g. "200 {...}".
+	private String request(String method, String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+		connection.setRequestMethod(method);
+		int status = connection.getResponseCode();
+		InputStream input = (status < 400) ? connection.getInputStream() : connection.getErrorStream();
+		String body = (input == null) ? "" : new String(input.readAllBytes(), StandardCharsets.UTF_8);
+		return status + " " + body;
+	}
+
+	private static String getId(String answer) {
+		int start = answer.indexOf("\"id\":\"") + 6;
+		return answer.substring(start, answer.indexOf('"', start));
+	}
+
+	@Test
+	public void testMovesAndAiMove() throws IOException {
+		String created = request("POST", "/games");
+		assertTrue(created.startsWith("201 "), created);
+		String id = getId(created);
+
+		request("POST", "/games/" + id + "/moves?column=4");
+		String answer = request("POST", "/games/" + id + "/moves?column=4");
+		assertTrue(answer.contains("\"moves\":\"44\""), answer);
+
+		answer = request("POST", "/games/" + id + "/ai?engine=minimax&level=3");
+		assertTrue(answer.startsWith("200 ") && answer.contains("\"turn\":3"), answer);
+
+		assertTrue(request("POST", "/games/" + id + "/moves?column=9").startsWith("400 "), "An invalid column was accepted.");
+		assertTrue(request("GET", "/games/unknown").startsWith("404 "), "An unknown game was found.");
+	}
+
+	@Test
+	public void testSearchQueueLimit() throws IOException, InterruptedException, ExecutionException {
+		// A single search thread and no queue: the AI moves asked while it searches are refused.
+		GameServer limited = new GameServer(0, 60000, 1, 1, 0);
+		limited.start();
+		ExecutorService clients = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> statuses = new ArrayList<>();
+			for (int i=0; i<4; i++) {
+				statuses.add(clients.submit(() -> {
+					HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + limited.getPort() + "/games").openConnection();
+					connection.setRequestMethod("POST");
+					String id = getId(new String(connection.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+					connection = (HttpURLConnection) new URL("http://localhost:" + limited.getPort() + "/games/" + id + "/ai?level=10").openConnection();
+					connection.setRequestMethod("POST");
+					return connection.getResponseCode();
+				}));
+			}
+			int served = 0;
+			int refused = 0;
+			for (Future<Integer> status : statuses) {
+				served += (status.get() == 200) ? 1 : 0;
+				refused += (status.get() == 503) ? 1 : 0;
+			}
+			assertTrue(served >= 1, "No AI move was played.");
+			assertTrue(refused >= 1, "No AI move was refused.");
+			assertEquals(4, served + refused, "Wrong status of an AI move.");
+		} finally {
+			clients.shutdownNow();
+			limited.stop();
+		}
+	}
+
+	@Test
+	public void testEventsAndGameOver() throws IOException {
+		String id = getId(request("POST", "/games"));
+		HttpURLConnection events = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/games/" + id + "/events").openConnection();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(events.getInputStream(), StandardCharsets.UTF_8));
+		assertEquals("event: state", reader.readLine(), "The current state is sent first.");
+		assertTrue(reader.readLine().contains("\"turn\":0"), "Wrong first state.");
+		reader.readLine();
+
+		for (char col : "1212121".toCharArray()) {
+			request("POST", "/games/" + id + "/moves?column=" + col);
+		}
+		String last = null;
+		for (int i=0; i<7; i++) {
+			assertEquals("event: state", reader.readLine(), "Every move is sent.");
+			last = reader.readLine();
+			reader.readLine();
+		}
+		assertTrue(last.contains("\"gameOver\":true") && last.contains("\"winner\":1"), last);
+		assertTrue(request("POST", "/games/" + id + "/moves?column=3").startsWith("409 "), "A move was played after the end.");
+
+		request("DELETE", "/games/" + id);
+		assertEquals("event: closed", reader.readLine(), "The stream was not ended.");
+		events.disconnect();
+		assertEquals(0, server.getNumOfSessions(), "The game was not removed.");
+	}
+
+}
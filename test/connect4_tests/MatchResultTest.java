@@ -0,0 +1,86 @@
+package connect4_tests;
+
+
+import org.junit.jupiter.api.Test;
+import tools.MatchResult;
+import tools.Sprt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class MatchResultTest {
+
+	private static MatchResult result(int wins, int losses, int draws) {
+		MatchResult result = new MatchResult(null, null);
+		for (int i=0; i<wins; i++) {
+			result.addWin();
+		}
+		for (int i=0; i<losses; i++) {
+			result.addLoss();
+		}
+		for (int i=0; i<draws; i++) {
+			result.addDraw();
+		}
+		return result;
+	}
+
+	@Test
+	public void testEloAndErrorBar() {
+		// A score of 60% is -400 * log10(1/0.6 - 1) Elo.
+		MatchResult result = result(60, 40, 0);
+		assertEquals(0.6, result.getScore(), 1e-12, "Wrong score.");
+		assertEquals(0.24, result.getVariance(), 1e-12, "Wrong variance.");
+		assertEquals(70.44, result.getElo(), 0.01, "Wrong Elo difference.");
+		assertEquals(70.57, result.getEloError(), 0.01, "Wrong error bar.");
+
+		// The draws lower the variance, so the error bar is smaller.
+		result = result(30, 20, 50);
+		assertEquals(34.86, result.getElo(), 0.01, "Wrong Elo difference with draws.");
+		assertEquals(48.47, result.getEloError(), 0.01, "Wrong error bar with draws.");
+
+		assertEquals(0, result(0, 0, 0).getElo(), 1e-12, "No games is an even score.");
+		assertEquals(Double.POSITIVE_INFINITY, result(5, 0, 0).getElo(), "Only wins is an infinite difference.");
+		assertEquals(-70.44, MatchResult.eloDifference(0.4), 0.01, "The Elo difference is not antisymmetric.");
+		assertEquals(0.6, MatchResult.expectedScore(MatchResult.eloDifference(0.6)), 1e-12, "The expected score is not the inverse.");
+	}
+
+	@Test
+	public void testLogLikelihoodRatio() {
+		MatchResult result = result(60, 40, 0);
+		assertEquals(0.5563, result.getLogLikelihoodRatio(0, 10), 0.0001, "Wrong LLR.");
+		assertEquals(0.6426, result.getLogLikelihoodRatio(-10, 0), 0.0001, "Wrong LLR.");
+		// A stronger engine favours the greater Elo difference, so swapping the hypotheses changes the sign.
+		assertEquals(-0.5563, result.getLogLikelihoodRatio(10, 0), 0.0001, "Wrong sign of the LLR.");
+		assertEquals(-0.5563, result(40, 60, 0).getLogLikelihoodRatio(-10, 0), 0.0001, "Wrong sign of the LLR.");
+		assertEquals(0, result(0, 0, 10).getLogLikelihoodRatio(0, 10), 1e-12, "Results without variance say nothing.");
+	}
+
+	@Test
+	public void testSprtDecisions() {
+		Sprt sprt = new Sprt(0, 10, 0.05, 0.05);
+		assertEquals(Math.log(0.05 / 0.95), sprt.getLowerBound(), 1e-12, "Wrong lower bound.");
+		assertEquals(Math.log(0.95 / 0.05), sprt.getUpperBound(), 1e-12, "Wrong upper bound.");
+
+		assertEquals(Sprt.Status.H1_ACCEPTED, sprt.getStatus(result(350, 150, 0)), "A clearly stronger engine was not accepted.");
+		assertEquals(Sprt.Status.H0_ACCEPTED, sprt.getStatus(result(150, 350, 0)), "A clearly weaker engine was not rejected.");
+		// LLR 2.78, inside the bounds.
+		assertEquals(Sprt.Status.CONTINUE, sprt.getStatus(result(300, 200, 0)), "The test stopped too early.");
+		assertEquals(Sprt.Status.CONTINUE, sprt.getStatus(result(60, 40, 0)), "The test stopped too early.");
+
+		assertEquals(sprt.getUpperBound(), Sprt.parse("0,10").getUpperBound(), 1e-12, "Wrong default alpha and beta.");
+		assertEquals(Math.log(0.8 / 0.1), Sprt.parse("0,10,0.1,0.2").getUpperBound(), 1e-12, "Wrong parsed alpha and beta.");
+	}
+
+	@Test
+	public void testInvalidSprt() {
+		assertThrows(IllegalArgumentException.class, () -> new Sprt(10, 0, 0.05, 0.05), "elo0 must be less than elo1.");
+		assertThrows(IllegalArgumentException.class, () -> new Sprt(0, 10, 0, 0.05), "alpha 0 was accepted.");
+		assertThrows(IllegalArgumentException.class, () -> new Sprt(0, 10, 0.05, 1), "beta 1 was accepted.");
+		assertThrows(IllegalArgumentException.class, () -> new Sprt(0, 10, -0.1, 0.05), "A negative alpha was accepted.");
+		assertThrows(IllegalArgumentException.class, () -> new Sprt(0, 10, 0.6, 0.5), "alpha + beta >= 1 was accepted.");
+		assertThrows(IllegalArgumentException.class, () -> new Sprt(0, 10, Double.NaN, 0.05), "NaN was accepted.");
+		assertThrows(IllegalArgumentException.class, () -> Sprt.parse("0,10,2,0.05"), "alpha 2 was accepted.");
+	}
+
+}
@@ -0,0 +1,99 @@
+package connect4_tests;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import connect4.Board;
+import connect4.MiniMaxAi;
+import connect4.Move;
+import connect4.PrincipalVariation;
+import org.junit.jupiter.api.Test;
+import utility.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class MultiPvTest {
+
+	@Test
+	public void testScoresOfAllMoves() {
+		Board board = Board.fromMoveString("445362");
+		MiniMaxAi ai = new MiniMaxAi(6, Constants.P1);
+		List<PrincipalVariation> variations = ai.searchMultiPv(board, 7);
+		assertEquals(7, variations.size(), "Every move must be scored.");
+
+		// Each score is the value of a full-window search of the move.
+		for (PrincipalVariation variation : variations) {
+			Board child = new Board(board);
+			child.makeMove(variation.getColumn(), Constants.P1);
+			Move move = new MiniMaxAi(6, Constants.P1).minAlphaBeta(child, 1, -MiniMaxAi.INFINITY, MiniMaxAi.INFINITY);
+			assertTrue(variation.isExact(), "The score of " + variation + " is not exact.");
+			assertEquals(move.getValue(), variation.getScore(), "Wrong score for " + variation + ".");
+		}
+		// Column 7 wins for Player 1 at once.
+		assertEquals(6, variations.get(0).getColumn(), "The winning move is not first.");
+	}
+
+	@Test
+	public void testBestMovesOfPlayer2() {
+		Board board = Board.fromMoveString("44536");
+		List<PrincipalVariation> all = new MiniMaxAi(5, Constants.P2).searchMultiPv(board, 7);
+		List<PrincipalVariation> top = new MiniMaxAi(5, Constants.P2).searchMultiPv(board, 2);
+
+		// Player 2 must block column 7 or lose.
+		assertEquals(6, top.get(0).getColumn(), "The blocking move is not first.");
+		for (int i=0; i<2; i++) {
+			assertEquals(all.get(i).getScore(), top.get(i).getScore(), "Wrong score of the move " + (i+1) + ".");
+			assertTrue(top.get(i).isExact(), "The best moves must have exact scores.");
+		}
+		for (int i=1; i<all.size(); i++) {
+			assertTrue(all.get(i).getScore() >= all.get(i-1).getScore(), "The moves of Player 2 are not sorted.");
+		}
+	}
+
+	@Test
+	public void testStopFromListener() {
+		Board board = Board.fromMoveString("4453");
+		MiniMaxAi ai = new MiniMaxAi(20, Constants.P1);
+		List<Integer> depths = new ArrayList<>();
+		List<PrincipalVariation> variations = ai.searchMultiPv(board, 7, (lines, statistics) -> {
+			depths.add(statistics.getDepth());
+			if (statistics.getDepth() == 3) {
+				ai.stop();
+			}
+		});
+
+		// The search returns the moves of the iteration that was completed when it was stopped.
+		assertEquals(List.of(1, 2, 3), depths, "Every iteration must be reported once.");
+		assertEquals(3, ai.getLastSearchStatistics().getDepth(), "The search did not stop after the iteration.");
+		assertEquals(7, variations.size(), "Every move must be scored.");
+	}
+
+	@Test
+	public void testFinishedPosition() {
+		// Player 1 has won in column 1.
+		Board board = Board.fromMoveString("1212121");
+		MiniMaxAi ai = new MiniMaxAi(4, Constants.P2);
+		assertTrue(ai.searchMultiPv(board, 7).isEmpty(), "A finished position has no moves.");
+		assertNull(ai.getTranspositionTable(), "The table of the search was left in the AI.");
+	}
+
+	@Test
+	public void testThreatExtensions() {
+		// Column 4 makes three in a row with both ends open, which wins 2 plies after the horizon of a depth 1 search.
+		Board board = Board.fromMoveString("2636");
+		MiniMaxAi ai = new MiniMaxAi(1, Constants.P1);
+		int win = ai.getEvaluator().evaluate(Board.fromMoveString("2636415"));
+		PrincipalVariation best = ai.searchMultiPv(board, 1).get(0);
+		assertEquals(3, best.getColumn(), "The double threat was not found.");
+		assertEquals(win, best.getScore(), "The double threat is not a win.");
+		assertTrue(ai.getLastSearchStatistics().getMaxDepthReached() > 1, "The search did not go past the horizon.");
+
+		ai.setThreatExtensionPlies(0);
+		assertTrue(ai.searchMultiPv(board, 1).get(0).getScore() < win, "The search went past the horizon.");
+	}
+
+}
@@ -0,0 +1,44 @@
+package connect4_tests;
+
+
+import connect4.Board;
+import org.junit.jupiter.api.Test;
+import tools.Perft;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+public class PerftTest {
+
+	// Known move sequence counts of the standard 7x6 board.
+	static final long[] EXPECTED_COUNTS = {1, 7, 49, 343, 2401, 16807, 117649, 823536, 5673234};
+
+	@Test
+	public void testPerftFromEmptyBoard() {
+		for (int depth=0; depth<EXPECTED_COUNTS.length; depth++) {
+			assertEquals(EXPECTED_COUNTS[depth], Perft.perft(new Board(), depth), "Wrong perft count at depth " + depth + ".");
+		}
+	}
+
+	@Test
+	public void testPerftDivideParallel() throws Exception {
+		Board b = Board.fromMoveString("4453");
+		long[] counts = Perft.perftDivide(b, 5);
+		long[] parallelCounts = Perft.perftDivideParallel(b, 5, 4);
+
+		long total = 0;
+		for (int col=0; col<counts.length; col++) {
+			assertEquals(counts[col], parallelCounts[col], "The parallel count of column " + (col+1) + " differs.");
+			total += counts[col];
+		}
+		assertEquals(Perft.perft(b, 5), total, "The divided counts do not add up.");
+	}
+
+	@Test
+	public void testPerftStopsAtTerminalPosition() {
+		// Player 1 has already won vertically in column 1.
+		Board b = Board.fromMoveString("1212121");
+		assertEquals(0, Perft.perft(b, 1), "Moves were generated after the end of the game.");
+	}
+
+}
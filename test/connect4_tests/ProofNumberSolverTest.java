@@ -0,0 +1,105 @@
+package connect4_tests;
+
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import connect4.Board;
+import connect4.Geometry;
+import connect4.ProofNumberSolver;
+import org.junit.jupiter.api.Test;
+import utility.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class ProofNumberSolverTest {
+
+	@Test
+	public void testDoubleThreatIsWin() {
+		// Player 1 to move after "2233": column 1 or 4 makes an open three.
+		ProofNumberSolver.Result result = new ProofNumberSolver(16, 1000000).solve(Board.fromMoveString("2233"));
+
+		assertEquals(ProofNumberSolver.Outcome.WIN, result.getOutcome(), "The win was not proven.");
+		int col = result.getProofColumn();
+		assertTrue(col == 0 || col == 3, "The proof move must make an open three.");
+	}
+
+	@Test
+	public void testOpponentDoubleThreatIsLoss() {
+		// Player 2 to move after "22334": Player 1 threatens columns 1 and 5.
+		ProofNumberSolver.Result result = new ProofNumberSolver(16, 1000000).solve(Board.fromMoveString("22334"));
+
+		assertEquals(ProofNumberSolver.Outcome.LOSS, result.getOutcome(), "The loss was not proven.");
+	}
+
+	@Test
+	public void testSmallBoardsAgainstFullSearch() {
+		// On a 5x4 Connect-4 and a 4x4 Connect-3, the results must match a full minimax search.
+		Geometry[] geometries = { new Geometry(4, 5, 4), new Geometry(4, 4, 3) };
+		Random random = new Random(33);
+		for (Geometry geometry : geometries) {
+			ProofNumberSolver solver = new ProofNumberSolver(1, 10000000);
+			values.clear();
+			for (int n=0; n<20; n++) {
+				Board b = new Board(geometry);
+				int plies = random.nextInt(6);
+				int player = Constants.P1;
+				for (int i=0; i<plies && !b.checkForGameOver(); i++) {
+					int col = random.nextInt(geometry.getNumOfColumns());
+					if (!b.checkFullColumn(col)) {
+						b.makeMove(col, player);
+						player = (player == Constants.P1) ? Constants.P2 : Constants.P1;
+					}
+				}
+				if (b.checkForGameOver()) {
+					continue;
+				}
+
+				ProofNumberSolver.Result result = solver.solve(b);
+				assertEquals(expectedOutcome(negamax(b)), result.getOutcome(), "Wrong result on " + geometry + ".");
+
+				// The proof move must keep the value of the position.
+				if (result.getOutcome() != ProofNumberSolver.Outcome.LOSS) {
+					Board child = new Board(b);
+					child.makeMove(result.getProofColumn(), player);
+					assertEquals(negamax(b), -negamax(child), "Wrong proof move on " + geometry + ".");
+				}
+			}
+		}
+	}
+
+	// The values of the positions already searched by "negamax", by hash key.
+	private final Map<Long, Integer> values = new HashMap<>();
+
+	// The value of the position for the player to move: 1 for a win, 0 for a draw, -1 for a loss.
+	private int negamax(Board board) {
+		if (board.checkForGameOver()) {
+			return (board.getWinner() == Constants.EMPTY) ? 0 : -1;
+		}
+		Integer value = values.get(board.getHashKey());
+		if (value != null) {
+			return value;
+		}
+		int player = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+		int best = -1;
+		for (Board child : board.getChildren(player)) {
+			best = Math.max(best, -negamax(child));
+			if (best == 1) {
+				break;
+			}
+		}
+		values.put(board.getHashKey(), best);
+		return best;
+	}
+
+	private static ProofNumberSolver.Outcome expectedOutcome(int value) {
+		if (value > 0) {
+			return ProofNumberSolver.Outcome.WIN;
+		}
+		return (value < 0) ? ProofNumberSolver.Outcome.LOSS : ProofNumberSolver.Outcome.DRAW;
+	}
+
+}
@@ -0,0 +1,55 @@
+package connect4_tests;
+
+
+import connect4.Board;
+import connect4.MemoryTranspositionTable;
+import connect4.MiniMaxAi;
+import connect4.SearchResult;
+import enumeration.SearchDriver;
+import org.junit.jupiter.api.Test;
+import utility.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class SearchDriverTest {
+
+	private static final String[] POSITIONS = { "4453", "445362", "3344", "1234567", "44444", "4455" };
+
+	@Test
+	public void testAlphaBetaValueIsMiniMaxValue() {
+		// The pruning must not change the value, for both players.
+		for (String moves : POSITIONS) {
+			Board board = Board.fromMoveString(moves);
+			int player = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+			MiniMaxAi ai = new MiniMaxAi(4, player);
+			ai.setThreatExtensionPlies(0);
+			assertEquals(ai.miniMax(board).getValue(), ai.miniMaxAlphaBeta(board).getValue(), "Wrong value of " + moves + ".");
+		}
+	}
+
+	@Test
+	public void testDriversAgree() {
+		for (String moves : POSITIONS) {
+			Board board = Board.fromMoveString(moves);
+			int player = (board.getLastPlayer() == Constants.P1) ? Constants.P2 : Constants.P1;
+			int[] values = new int[SearchDriver.values().length];
+			long[] rootSearches = new long[values.length];
+			for (SearchDriver driver : SearchDriver.values()) {
+				MiniMaxAi ai = new MiniMaxAi(7, player);
+				ai.setTranspositionTable(new MemoryTranspositionTable(4));
+				ai.setSearchDriver(driver);
+				SearchResult result = ai.searchAlphaBeta(board, 0, null);
+				values[driver.ordinal()] = result.getMove().getValue();
+				rootSearches[driver.ordinal()] = result.getStatistics().getRootSearches();
+				assertTrue(result.getStatistics().getNodes() > 0, "No nodes were searched.");
+			}
+			for (SearchDriver driver : SearchDriver.values()) {
+				assertEquals(values[0], values[driver.ordinal()], "The " + driver + " value of " + moves + " is wrong.");
+			}
+			assertEquals(7, rootSearches[SearchDriver.FULL_WINDOW.ordinal()], "A full window searches the root once per iteration.");
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+package connect4_tests;
+
+
+import connect4.Board;
+import connect4.Geometry;
+import connect4.MiniMaxAi;
+import connect4.Move;
+import connect4.ThreatSpaceSearch;
+import org.junit.jupiter.api.Test;
+import utility.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class ThreatSpaceSearchTest {
+
+	@Test
+	public void testDoubleThreat() {
+		// Player 1 has checkers in columns 2 and 3 of the bottom row.
+		// Column 4 makes an open three, with threats in columns 1 and 5.
+		Board b = Board.fromMoveString("2233");
+		ThreatSpaceSearch.Result result = new ThreatSpaceSearch().search(b, Constants.P1);
+
+		assertTrue(result.isWin(), "The double threat was not found.");
+		assertEquals(3, result.getSequence().size(), "The forced win should take 3 plies.");
+		int first = result.getSequence().get(0);
+		assertTrue(first == 0 || first == 3, "The first move must make an open three.");
+	}
+
+	@Test
+	public void testDeepForcedWinOnLargeBoard() {
+		// Connect-5 on a 9x7 board, with a forced win of 13 plies for Player 1.
+		Board b = Board.fromMoveString(new Geometry(7, 9, 5), "7344467346456554");
+		ThreatSpaceSearch.Result result = new ThreatSpaceSearch().search(b, Constants.P1);
+
+		assertTrue(result.isWin(), "The forced win was not found.");
+		assertTrue(result.getSequence().size() >= 9, "The forced win should be deep.");
+
+		// Replaying the sequence must win the game for Player 1.
+		int player = Constants.P1;
+		for (int col : result.getSequence()) {
+			b.makeMove(col, player);
+			player = (player == Constants.P1) ? Constants.P2 : Constants.P1;
+		}
+		assertTrue(b.checkWinState(), "The sequence does not end the game.");
+		assertEquals(Constants.P1, b.getWinner(), "The sequence does not win for Player 1.");
+	}
+
+	@Test
+	public void testNoForcedWinOnEmptyBoard() {
+		ThreatSpaceSearch.Result result = new ThreatSpaceSearch().search(new Board(), Constants.P1);
+		assertFalse(result.isWin(), "There is no forced win on the empty board.");
+	}
+
+	@Test
+	public void testForcedWinValueOfAi() {
+		// Player 2 has checkers in columns 3 and 4 of the bottom row, and column 2 or 5 makes an open three.
+		Board b = Board.fromMoveString("13147");
+		MiniMaxAi ai = new MiniMaxAi(1, Constants.P2);
+		ai.setThreatSpaceSearch(new ThreatSpaceSearch());
+		Move move = ai.miniMax(b);
+		assertTrue(move.getColumn() == 1 || move.getColumn() == 4, "The forced win was not played.");
+		// The proven win of either player is inside the full window, the same distance from both of its bounds.
+		assertEquals(-(MiniMaxAi.INFINITY - 1), move.getValue(), "Wrong value of the forced win of Player 2.");
+	}
+
+}
@@ -0,0 +1,131 @@
+package connect4_tests;
+
+
+import java.io.File;
+import java.io.IOException;
+
+import connect4.Board;
+import connect4.EvaluationCache;
+import connect4.MemoryTranspositionTable;
+import connect4.MiniMaxAi;
+import connect4.PersistentTranspositionTable;
+import connect4.TranspositionTable;
+import org.junit.jupiter.api.Test;
+import utility.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class TranspositionTableTest {
+
+	@Test
+	public void testPersistentEntriesSurviveReopening() throws IOException {
+		File file = File.createTempFile("table", ".tt");
+		file.delete();
+		file.deleteOnExit();
+		new File(file.getPath() + ".lock").deleteOnExit();
+		long key = Board.fromMoveString("4453").getHashKey();
+
+		try (PersistentTranspositionTable table = new PersistentTranspositionTable(file, 1)) {
+			table.store(key, 5, TranspositionTable.LOWER_BOUND, -1234, 6);
+		}
+
+		// The size of an existing file is kept.
+		try (PersistentTranspositionTable table = new PersistentTranspositionTable(file, 2)) {
+			long entry = table.probe(key);
+			assertEquals(5, TranspositionTable.getDraft(entry), "Wrong draft.");
+			assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getBound(entry), "Wrong bound.");
+			assertEquals(-1234, TranspositionTable.getScore(entry), "Wrong score.");
+			assertEquals(6, TranspositionTable.getColumn(entry), "Wrong column.");
+			assertEquals(0, table.probe(key + 1), "A missing position was found.");
+			assertEquals(65536, table.getNumOfEntries(), "The size of the file has changed.");
+		}
+	}
+
+	@Test
+	public void testOtherEvaluationClearsEntries() throws IOException {
+		File file = File.createTempFile("table", ".tt");
+		file.delete();
+		file.deleteOnExit();
+		new File(file.getPath() + ".lock").deleteOnExit();
+		long key = Board.fromMoveString("4453").getHashKey();
+
+		try (PersistentTranspositionTable table = new PersistentTranspositionTable(file, 1, 17)) {
+			table.store(key, 5, TranspositionTable.EXACT, 12, 3);
+		}
+		try (PersistentTranspositionTable table = new PersistentTranspositionTable(file, 1, 17)) {
+			assertTrue(table.probe(key) != 0, "The entry of the same evaluation was lost.");
+		}
+		// The scores of another evaluation are wrong.
+		try (PersistentTranspositionTable table = new PersistentTranspositionTable(file, 1, 18)) {
+			assertEquals(0, table.probe(key), "The entry of another evaluation was kept.");
+		}
+	}
+
+	@Test
+	public void testOtherEvaluationKeepsOpenTable() throws IOException {
+		File file = File.createTempFile("table", ".tt");
+		file.delete();
+		file.deleteOnExit();
+		new File(file.getPath() + ".lock").deleteOnExit();
+		long key = Board.fromMoveString("4453").getHashKey();
+
+		boolean replaced;
+
+		// The table of the other evaluation replaces the file, while the first table still maps the old one.
+		// On Windows the mapped file cannot be replaced, so the other table is temporary.
+		try (PersistentTranspositionTable table = new PersistentTranspositionTable(file, 1, 17)) {
+			table.store(key, 5, TranspositionTable.EXACT, 12, 3);
+			try (PersistentTranspositionTable other = new PersistentTranspositionTable(file, 1, 18)) {
+				replaced = !other.isTemporary();
+				assertEquals(0, other.probe(key), "The entry of another evaluation was kept.");
+				other.store(key + 1, 4, TranspositionTable.EXACT, 7, 2);
+				assertEquals(12, TranspositionTable.getScore(table.probe(key)), "The open table lost its entry.");
+				assertEquals(0, table.probe(key + 1), "The open table sees the entries of another evaluation.");
+			}
+		}
+		try (PersistentTranspositionTable table = new PersistentTranspositionTable(file, 1, 18)) {
+			assertEquals(replaced ? 7 : 0, TranspositionTable.getScore(table.probe(key + 1)), "The new file was not kept.");
+			assertEquals(65536, table.getNumOfEntries(), "Wrong size of the new file.");
+		}
+	}
+
+	@Test
+	public void testMiniMaxValuesDoNotChange() {
+		// In a single search, the table only saves the work of the transpositions.
+		Board b = Board.fromMoveString("445362");
+		MiniMaxAi ai = new MiniMaxAi(5, Constants.P1);
+		int value = ai.miniMax(b).getValue();
+		long nodes = ai.getLastSearchStatistics().getNodes();
+
+		ai.setTranspositionTable(new MemoryTranspositionTable(4));
+		assertEquals(value, ai.miniMax(b).getValue(), "The table changed the value of the position.");
+		assertTrue(ai.getLastSearchStatistics().getNodes() < nodes, "The table did not save any nodes.");
+	}
+
+	@Test
+	public void testEvaluationCache() {
+		EvaluationCache cache = new EvaluationCache(1);
+		long key = Board.fromMoveString("4453").getHashKey();
+		assertEquals(EvaluationCache.MISS, cache.probe(key), "An empty cache has a value.");
+		cache.store(key, -1234);
+		assertEquals(-1234, cache.probe(key), "Wrong value.");
+		assertEquals(EvaluationCache.MISS, cache.probe(key ^ (1L << 40)), "A position of the same slot was found.");
+
+		// A newer position of the same slot replaces the old one.
+		cache.store(key + cache.getNumOfEntries(), 7);
+		assertEquals(7, cache.probe(key + cache.getNumOfEntries()), "Wrong value.");
+		assertEquals(EvaluationCache.MISS, cache.probe(key), "The replaced position was found.");
+
+		// The cache only saves evaluations.
+		Board b = Board.fromMoveString("445362");
+		MiniMaxAi ai = new MiniMaxAi(5, Constants.P1);
+		ai.setEvaluationCache(null);
+		int value = ai.miniMax(b).getValue();
+		ai.setEvaluationCache(new EvaluationCache(64));
+		assertEquals(value, ai.miniMax(b).getValue(), "The cache changed the value of the position.");
+		assertTrue(ai.getLastSearchStatistics().getEvaluationHits() > 0, "The transpositions of the leaves were not found.");
+	}
+
+}